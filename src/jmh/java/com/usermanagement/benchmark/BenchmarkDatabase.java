@@ -0,0 +1,135 @@
+package com.usermanagement.benchmark;
+
+import com.usermanagement.repository.RepositoryConfig;
+import com.usermanagement.repository.SqliteUserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Seeded SQLite databases for the benchmarks. Each size is built once under
+ * target/jmh-db and copied for every trial, so writes never leak into the next run.
+ *
+ * User n (ids start at 1) is "user{n}" / "user{n}@example.com"; every hundredth user
+ * is an ADMIN, all others are USER. ADMIN holds all permissions, USER every other one.
+ */
+final class BenchmarkDatabase {
+    static final int PERMISSIONS = 50;
+    static final long ADMIN_ROLE_ID = 1L;
+    static final long USER_ROLE_ID = 2L;
+
+    private static final Path SEED_DIR = Paths.get("target", "jmh-db");
+    private static final int BATCH = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static boolean isAdmin(long userId) {
+        return userId % 100 == 0;
+    }
+
+    /** Copies the seed for the given size into a fresh temp directory. */
+    static Path freshCopy(int users) {
+        try {
+            Path dir = Files.createTempDirectory("jmh-users-");
+            Path copy = dir.resolve("users.db");
+            Files.copy(seed(users), copy);
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static SqliteUserRepository open(Path file, RepositoryConfig.StorageMode mode) {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + file);
+        config.setStorageMode(mode);
+        SqliteUserRepository repository = new SqliteUserRepository(config);
+        repository.rebuildUniquenessFilters();
+        return repository;
+    }
+
+    static void delete(Path file) {
+        try (Stream<Path> files = Files.walk(file.getParent())) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static synchronized Path seed(int users) throws IOException {
+        Path seed = SEED_DIR.resolve("users-" + users + ".db");
+        if (Files.exists(seed)) {
+            return seed;
+        }
+        Files.createDirectories(SEED_DIR);
+        Path building = SEED_DIR.resolve("users-" + users + ".db.building");
+        Files.deleteIfExists(building);
+
+        // Let the repository create the schema, then bulk load with plain JDBC.
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + building);
+        config.setUniquenessFilterEnabled(false);
+        new SqliteUserRepository(config).closeConnections();
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + building)) {
+            conn.setAutoCommit(false);
+            insertPermissions(conn);
+            insertUsers(conn, users);
+            conn.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Seeding " + users + " users failed: " + e.getMessage(), e);
+        }
+        Files.move(building, seed, StandardCopyOption.ATOMIC_MOVE);
+        return seed;
+    }
+
+    private static void insertPermissions(Connection conn) throws SQLException {
+        try (PreparedStatement permission = conn.prepareStatement(
+                     "INSERT INTO permissions (id, name, description) VALUES (?, ?, ?)");
+             PreparedStatement grant = conn.prepareStatement(
+                     "INSERT INTO role_permissions (role_id, permission_id) VALUES (?, ?)")) {
+            for (int p = 1; p <= PERMISSIONS; p++) {
+                permission.setInt(1, p);
+                permission.setString(2, "PERMISSION_" + p);
+                permission.setString(3, "Benchmark-Berechtigung " + p);
+                permission.addBatch();
+
+                grant.setLong(1, ADMIN_ROLE_ID);
+                grant.setInt(2, p);
+                grant.addBatch();
+                if (p % 2 == 0) {
+                    grant.setLong(1, USER_ROLE_ID);
+                    grant.setInt(2, p);
+                    grant.addBatch();
+                }
+            }
+            permission.executeBatch();
+            grant.executeBatch();
+        }
+    }
+
+    private static void insertUsers(Connection conn, int users) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO users (id, username, email, role_id) VALUES (?, ?, ?, ?)")) {
+            for (long id = 1; id <= users; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "user" + id);
+                insert.setString(3, "user" + id + "@example.com");
+                insert.setLong(4, isAdmin(id) ? ADMIN_ROLE_ID : USER_ROLE_ID);
+                insert.addBatch();
+                if (id % BATCH == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
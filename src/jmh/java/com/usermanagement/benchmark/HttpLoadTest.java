@@ -0,0 +1,231 @@
+package com.usermanagement.benchmark;
+
+import com.usermanagement.http.ServerConfig;
+import com.usermanagement.http.UserManagementServer;
+import com.usermanagement.metrics.LatencyHistogram;
+import com.usermanagement.repository.RepositoryConfig;
+import com.usermanagement.repository.UserRepository;
+import com.usermanagement.service.PermissionService;
+import com.usermanagement.service.RoleService;
+import com.usermanagement.service.UserService;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test for the HTTP API: a fixed number of client threads send
+ * requests back to back, each over its own keep-alive connection, and the sustained
+ * rate over the measurement window is reported. Without --url an embedded server is
+ * started on a seeded copy of the benchmark database.
+ *
+ * The client speaks plain HTTP/1.1 on a socket; java.net.http.HttpClient costs more
+ * CPU per request than the server does and would end up measuring itself.
+ *
+ * <pre>
+ * mvn -P benchmark -DskipTests compile exec:java \
+ *     -Dexec.mainClass=com.usermanagement.benchmark.HttpLoadTest \
+ *     -Dexec.args="--users 100000 --threads 32 --seconds 20 --endpoint check"
+ * </pre>
+ *
+ * Endpoints: "check" (GET /api/check?userId=..&amp;permission=..) and "user"
+ * (GET /api/users/{id}), both with random user ids.
+ */
+public final class HttpLoadTest {
+    private int users = 100_000;
+    private int threads = 32;
+    private int warmupSeconds = 5;
+    private int seconds = 20;
+    private String endpoint = "check";
+    private String url;
+    private RepositoryConfig.StorageMode storageMode = RepositoryConfig.StorageMode.WAL;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        HttpLoadTest test = new HttpLoadTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--users" -> users = Integer.parseInt(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "--seconds" -> seconds = Integer.parseInt(value);
+                case "--endpoint" -> endpoint = value;
+                case "--url" -> url = value;
+                case "--storage" -> storageMode = RepositoryConfig.StorageMode.valueOf(value);
+                default -> throw new IllegalArgumentException("Unbekannte Option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        Path database = null;
+        UserRepository repository = null;
+        UserManagementServer server = null;
+        if (url == null) {
+            database = BenchmarkDatabase.freshCopy(users);
+            repository = BenchmarkDatabase.open(database, storageMode);
+            ServerConfig config = new ServerConfig();
+            config.setPort(0);
+            config.setBacklog(4_096);
+            server = new UserManagementServer(config, repository, new UserService(repository),
+                    new RoleService(repository), new PermissionService(repository));
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+
+        try {
+            URI target = URI.create(url);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> work(target), "load-" + t);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+
+            System.out.printf("Aufwärmen: %d s, %d Threads, Endpunkt %s, %s%n", warmupSeconds, threads, endpoint, url);
+            Thread.sleep(warmupSeconds * 1000L);
+            latency.reset();
+            completed.reset();
+            errors.reset();
+            measuring = true;
+            long start = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            measuring = false;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            running = false;
+            for (Thread worker : workers) {
+                worker.join(5_000);
+            }
+
+            System.out.printf(Locale.ROOT, "Anfragen: %d, Fehler: %d, Dauer: %.1f s%n",
+                    completed.sum(), errors.sum(), elapsed);
+            System.out.printf(Locale.ROOT, "Durchsatz: %.0f Anfragen/s%n", completed.sum() / elapsed);
+            System.out.printf(Locale.ROOT, "Latenz µs: p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    latency.getPercentileNanos(0.5) / 1000.0, latency.getPercentileNanos(0.99) / 1000.0,
+                    latency.getPercentileNanos(0.999) / 1000.0, latency.getMaxNanos() / 1000.0);
+        } finally {
+            if (server != null) {
+                server.close();
+                repository.closeConnections();
+                BenchmarkDatabase.delete(database);
+            }
+        }
+    }
+
+    private void work(URI target) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        KeepAliveConnection connection = null;
+        while (running) {
+            long userId = random.nextLong(1, users + 1L);
+            String path = endpoint.equals("user")
+                    ? "/api/users/" + userId
+                    : "/api/check?userId=" + userId + "&permission=PERMISSION_" + (1 + random.nextInt(BenchmarkDatabase.PERMISSIONS));
+            long start = System.nanoTime();
+            try {
+                if (connection == null) {
+                    connection = new KeepAliveConnection(target);
+                }
+                int status = connection.get(path);
+                if (measuring) {
+                    latency.record(System.nanoTime() - start);
+                    if (status == 200) {
+                        completed.increment();
+                    } else {
+                        errors.increment();
+                    }
+                }
+            } catch (IOException e) {
+                if (measuring) {
+                    errors.increment();
+                }
+                if (connection != null) {
+                    connection.close();
+                    connection = null;
+                }
+            }
+        }
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /** One persistent HTTP/1.1 connection; responses must carry a Content-Length. */
+    private static final class KeepAliveConnection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private final String host;
+        private final StringBuilder line = new StringBuilder();
+
+        private KeepAliveConnection(URI target) throws IOException {
+            int port = target.getPort() < 0 ? 80 : target.getPort();
+            this.socket = new Socket(target.getHost(), port);
+            socket.setTcpNoDelay(true);
+            this.out = socket.getOutputStream();
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.host = target.getHost() + ":" + port;
+        }
+
+        private int get(String path) throws IOException {
+            String request = "GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n";
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String statusLine = readLine();
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+            in.skipNBytes(length);
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("Verbindung wurde geschlossen");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.usermanagement.benchmark;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.RepositoryConfig;
+import com.usermanagement.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repository hot paths against seeded databases. Each trial works on its own copy of
+ * the seed, so the write benchmarks start from the same state every time. Lookups pick
+ * random users, so with the larger sizes most of them miss the user cache.
+ *
+ * The benchmarks run once with one thread ({@link SingleThreaded}) and once with four
+ * ({@link MultiThreaded}) to show contention on the pool and on SQLite's write lock.
+ *
+ * insertReturning and insertThenSelect compare the statements behind saveUser on a plain
+ * connection: the current INSERT ... RETURNING against the former INSERT,
+ * last_insert_rowid() and user+role lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class UserRepositoryBenchmark {
+    private static final Role USER_ROLE = new Role(BenchmarkDatabase.USER_ROLE_ID, "USER");
+
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    @Param({"DEFAULT", "WAL"})
+    public RepositoryConfig.StorageMode storageMode;
+
+    private static final String INSERT_USER = "INSERT INTO users (username, email, role_id) VALUES (?, ?, ?)";
+    private static final String INSERT_USER_RETURNING = """
+            INSERT INTO users (username, email, role_id) VALUES (?, ?, ?)
+            RETURNING id, username, email, role_id,
+                      (SELECT r.name FROM roles r WHERE r.id = role_id) as role_name
+            """;
+    private static final String LAST_INSERT_ID = "SELECT last_insert_rowid()";
+    private static final String FIND_USER_BY_ID = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id = ?
+            """;
+
+    private Path database;
+    private UserRepository repository;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Connection> connection = ThreadLocal.withInitial(this::openConnection);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.freshCopy(users);
+        repository = BenchmarkDatabase.open(database, storageMode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        for (Connection conn : connections) {
+            conn.close();
+        }
+        repository.closeConnections();
+        BenchmarkDatabase.delete(database);
+    }
+
+    private Connection openConnection() {
+        try {
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + database);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
+            connections.add(conn);
+            return conn;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1L);
+    }
+
+    @Benchmark
+    public User findById() {
+        return repository.findById(randomUserId());
+    }
+
+    @Benchmark
+    public User findByUsername() {
+        return repository.findByUsername("user" + randomUserId());
+    }
+
+    @Benchmark
+    public User saveUser() {
+        String name = "bench" + sequence.incrementAndGet();
+        return repository.saveUser(new User(null, name, name + "@example.com", USER_ROLE));
+    }
+
+    @Benchmark
+    public User insertReturning() throws SQLException {
+        String name = "bench" + sequence.incrementAndGet();
+        try (PreparedStatement stmt = connection.get().prepareStatement(INSERT_USER_RETURNING)) {
+            bindInsert(stmt, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return mapUser(rs);
+            }
+        }
+    }
+
+    @Benchmark
+    public User insertThenSelect() throws SQLException {
+        String name = "bench" + sequence.incrementAndGet();
+        Connection conn = connection.get();
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_USER)) {
+            bindInsert(stmt, name);
+            stmt.executeUpdate();
+        }
+        long id;
+        try (PreparedStatement stmt = conn.prepareStatement(LAST_INSERT_ID);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            id = rs.getLong(1);
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(FIND_USER_BY_ID)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return mapUser(rs);
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, String name) throws SQLException {
+        stmt.setString(1, name);
+        stmt.setString(2, name + "@example.com");
+        stmt.setLong(3, BenchmarkDatabase.USER_ROLE_ID);
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        return new User(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                new Role(rs.getLong("role_id"), rs.getString("role_name")));
+    }
+
+    @Benchmark
+    public User updateUser() {
+        long id = randomUserId();
+        if (BenchmarkDatabase.isAdmin(id)) {
+            id--;
+        }
+        String email = "user" + id + "." + sequence.incrementAndGet() + "@example.com";
+        return repository.updateUser(new User(id, "user" + id, email, USER_ROLE));
+    }
+
+    @Benchmark
+    public List<User> findAllUsers() {
+        return repository.findAllUsers();
+    }
+
+    @Benchmark
+    public Role getRoleWithPermissions() {
+        return repository.getRoleWithPermissions(BenchmarkDatabase.ADMIN_ROLE_ID);
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends UserRepositoryBenchmark {
+    }
+
+    @Threads(4)
+    public static class MultiThreaded extends UserRepositoryBenchmark {
+    }
+}
@@ -0,0 +1,92 @@
+package com.usermanagement.benchmark;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.UserRepository;
+import com.usermanagement.service.UserService;
+import com.usermanagement.service.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Input validation without any database access. The legacy* benchmarks are the
+ * regex the service used before {@link UserValidator}, kept as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+    private static final String[] EMAILS = {
+            "anna@example.com",
+            "max.mustermann+news@firma.de",
+            "ohne-at-zeichen.example.com",
+            "@example.com",
+            "sehr.langer.benutzername.mit.vielen.punkten@sub.domain.example.org",
+            "leerzeichen im@namen.de"
+    };
+
+    private static final String LEGACY_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
+    private static final Pattern LEGACY_PATTERN = Pattern.compile(LEGACY_REGEX);
+    private static final int BATCH_SIZE = 1_000;
+
+    private UserService service;
+    private UserValidator validator;
+    private List<User> batch;
+    private UserValidator.Reason[] reasons;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        service = new UserService((UserRepository) null);
+        validator = service.getValidator();
+        batch = new ArrayList<>(BATCH_SIZE);
+        Role role = new Role(2L, "USER");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new User(null, "user" + i, EMAILS[i % EMAILS.length], role));
+        }
+        reasons = new UserValidator.Reason[BATCH_SIZE];
+    }
+
+    private String nextEmail() {
+        String email = EMAILS[next];
+        next = next + 1 == EMAILS.length ? 0 : next + 1;
+        return email;
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return service.isValidEmail(nextEmail());
+    }
+
+    @Benchmark
+    public boolean legacyStringMatches() {
+        return nextEmail().matches(LEGACY_REGEX);
+    }
+
+    @Benchmark
+    public boolean legacyPrecompiledPattern() {
+        return LEGACY_PATTERN.matcher(nextEmail()).matches();
+    }
+
+    /** One call validates {@value #BATCH_SIZE} users. */
+    @Benchmark
+    public int checkAllBatch() {
+        return validator.checkAll(batch, reasons);
+    }
+}
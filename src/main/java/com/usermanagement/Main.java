@@ -1,24 +1,66 @@
 package com.usermanagement;
 
+import com.usermanagement.http.ServerConfig;
+import com.usermanagement.http.UserManagementServer;
+import com.usermanagement.metrics.LatencyHistogram;
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
 import com.usermanagement.model.Role;
 import com.usermanagement.model.User;
 import com.usermanagement.model.Permission;
+import com.usermanagement.repository.InMemoryUserRepository;
+import com.usermanagement.repository.InstrumentedUserRepository;
+import com.usermanagement.repository.RepositoryConfig;
+import com.usermanagement.repository.SqliteUserRepository;
 import com.usermanagement.repository.UserRepository;
+import com.usermanagement.service.InstrumentedPermissionService;
+import com.usermanagement.service.InstrumentedRoleService;
+import com.usermanagement.service.InstrumentedUserService;
+import com.usermanagement.service.PermissionService;
+import com.usermanagement.service.UserExporter;
+import com.usermanagement.service.UserImporter;
 import com.usermanagement.service.UserService;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
-import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
 
 public class Main {
+    private static final int PAGE_SIZE = 20;
+    private static final String METRICS_FILE = "metrics.prom";
+
+    private static final Metrics metrics = new Metrics();
+
     private static UserRepository repository;
     private static UserService service;
+    private static PermissionService permissionService;
     private static Scanner scanner;
 
     public static void main(String[] args) {
         try {
-            repository = new UserRepository("jdbc:sqlite:users.db");
-            service = new UserService(repository);
+            // --in-memory serves reads from memory and writes users.db behind; it keeps a
+            // snapshot of its state in users.snapshot for a fast next start.
+            List<String> options = new ArrayList<>(List.of(args));
+            RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:users.db");
+            if (options.remove("--in-memory")) {
+                config.setSnapshotPath("users.snapshot");
+                repository = new InstrumentedUserRepository(new InMemoryUserRepository(config), metrics);
+            } else {
+                repository = new InstrumentedUserRepository(new SqliteUserRepository(config), metrics);
+            }
+            service = new InstrumentedUserService(repository, metrics);
+            permissionService = new InstrumentedPermissionService(repository, metrics);
+            if (!options.isEmpty() && options.get(0).equals("--http")) {
+                runHttpServer(options.size() > 1 ? Integer.parseInt(options.get(1)) : 8080);
+                return;
+            }
             scanner = new Scanner(System.in);
 
             boolean running = true;
@@ -33,7 +75,10 @@ public class Main {
                     case "4" -> manageUsers();
                     case "5" -> managePermissions();
                     case "6" -> resetDatabase();
-                    case "7" -> running = false;
+                    case "7" -> showPerformanceStats();
+                    case "8" -> exportUsers();
+                    case "9" -> importUsers();
+                    case "10" -> running = false;
                     default -> System.out.println("Ungültige Eingabe. Bitte versuchen Sie es erneut.");
                 }
 
@@ -44,6 +89,7 @@ public class Main {
             }
 
             System.out.println("Programm wird beendet.");
+            repository.closeConnections();
             scanner.close();
 
         } catch (Exception e) {
@@ -52,6 +98,24 @@ public class Main {
         }
     }
 
+    // Serves the JSON API until the JVM is stopped (Ctrl+C), then drains open requests.
+    private static void runHttpServer(int port) throws Exception {
+        ServerConfig config = new ServerConfig();
+        config.setPort(port);
+        UserManagementServer server = new UserManagementServer(config, repository, service,
+                new InstrumentedRoleService(repository, metrics), permissionService);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            repository.closeConnections();
+            stopped.countDown();
+        }, "http-shutdown"));
+        server.start();
+        System.out.println("HTTP-API läuft auf http://" + config.getHost() + ":" + server.getPort()
+                + " (Beenden mit Strg+C)");
+        stopped.await();
+    }
+
     private static void showMainMenu() {
         clearScreen();
         System.out.println("=== User Management System ===");
@@ -61,8 +125,11 @@ public class Main {
         System.out.println("4. Benutzer verwalten");
         System.out.println("5. Berechtigungen verwalten");
         System.out.println("6. Datenbank zurücksetzen");
-        System.out.println("7. Programm beenden");
-        System.out.print("\nIhre Wahl (1-7): ");
+        System.out.println("7. Performance-Statistiken");
+        System.out.println("8. Benutzer exportieren");
+        System.out.println("9. Benutzer importieren");
+        System.out.println("10. Programm beenden");
+        System.out.print("\nIhre Wahl (1-10): ");
     }
 
     private static void manageUsers() {
@@ -176,7 +243,7 @@ public class Main {
             System.out.print("\nBerechtigungs-ID eingeben: ");
             Long permissionId = Long.parseLong(scanner.nextLine());
 
-            repository.addPermissionToRole(roleId, permissionId);
+            permissionService.assignPermissionToRole(roleId, permissionId);
             System.out.println("Berechtigung erfolgreich hinzugefügt!");
 
         } catch (NumberFormatException e) {
@@ -209,7 +276,7 @@ public class Main {
                 System.out.print("\nBerechtigungs-ID zum Entfernen eingeben: ");
                 Long permissionId = Long.parseLong(scanner.nextLine());
 
-                repository.removePermissionFromRole(roleId, permissionId);
+                permissionService.removePermissionFromRole(roleId, permissionId);
                 System.out.println("Berechtigung erfolgreich entfernt!");
             } else {
                 System.out.println("Rolle nicht gefunden oder keine Berechtigungen vorhanden!");
@@ -224,11 +291,17 @@ public class Main {
     private static void showAllUsers() {
         clearScreen();
         System.out.println("=== Alle Benutzer ===");
-        List<User> users = repository.findAllUsers();
 
-        if (users.isEmpty()) {
-            System.out.println("Keine Benutzer in der Datenbank gefunden.");
-        } else {
+        Long afterId = null;
+        while (true) {
+            List<User> users = repository.findUsersPage(afterId, PAGE_SIZE);
+            if (users.isEmpty()) {
+                if (afterId == null) {
+                    System.out.println("Keine Benutzer in der Datenbank gefunden.");
+                }
+                return;
+            }
+
             for (User user : users) {
                 System.out.println("\nBenutzer Details:");
                 System.out.println("ID: " + user.getId());
@@ -237,6 +310,51 @@ public class Main {
                 System.out.println("Role: " + user.getRole().getName());
                 System.out.println("------------------------");
             }
+
+            if (users.size() < PAGE_SIZE) {
+                return;
+            }
+            System.out.print("\nWeitere Benutzer anzeigen? (Enter = ja, n = nein): ");
+            if (scanner.nextLine().equalsIgnoreCase("n")) {
+                return;
+            }
+            afterId = users.get(users.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Prints users page by page and returns the line the user typed, or null if
+     * there are no users at all. An empty line moves on to the next page; "/text"
+     * lists the users whose username or email starts with text instead.
+     */
+    private static String pickUser(String prompt, Function<User, String> formatter) {
+        List<User> users = repository.findUsersPage(null, PAGE_SIZE);
+        if (users.isEmpty()) {
+            System.out.println("Keine Benutzer vorhanden!");
+            return null;
+        }
+        System.out.println("\nVerfügbare Benutzer:");
+        boolean searching = false;
+        while (true) {
+            for (User user : users) {
+                System.out.println(formatter.apply(user));
+            }
+
+            boolean morePages = !searching && users.size() == PAGE_SIZE;
+            System.out.print("\n" + prompt + " (/Text sucht nach Username oder Email"
+                    + (morePages ? ", Enter für nächste Seite" : "") + "): ");
+            String input = scanner.nextLine();
+            if (input.startsWith("/")) {
+                users = repository.searchUsers(input.substring(1).trim(), PAGE_SIZE);
+                searching = true;
+                System.out.println(users.isEmpty() ? "\nKeine Treffer." : "\nTreffer:");
+                continue;
+            }
+            if (morePages && input.trim().isEmpty()) {
+                users = repository.findUsersPage(users.get(users.size() - 1).getId(), PAGE_SIZE);
+                continue;
+            }
+            return input;
         }
     }
 
@@ -244,6 +362,98 @@ public class Main {
         clearScreen();
         System.out.println("=== Datenbank Details ===");
         repository.checkDatabase();
+
+        System.out.println("\nBenutzer pro Rolle:");
+        repository.countUsersByRole().forEach((role, count) ->
+                System.out.println("  " + role + ": " + count));
+    }
+
+    private static void showPerformanceStats() {
+        clearScreen();
+        System.out.println("=== Performance-Statistiken ===");
+        List<OperationStats> operations = metrics.getOperations();
+        operations.removeIf(stats -> stats.getCalls() == 0);
+        if (operations.isEmpty()) {
+            System.out.println("Noch keine Operationen aufgezeichnet.");
+            return;
+        }
+
+        System.out.printf("%-42s %9s %7s %9s %10s %10s %10s %10s%n",
+                "Operation", "Aufrufe", "Fehler", "Zeilen", "p50 µs", "p99 µs", "p999 µs", "max µs");
+        for (OperationStats stats : operations) {
+            LatencyHistogram latency = stats.getLatency();
+            System.out.printf("%-42s %9d %7d %9d %10.1f %10.1f %10.1f %10.1f%n",
+                    stats.getName(), stats.getCalls(), stats.getErrors(), stats.getRows(),
+                    latency.getPercentileNanos(0.5) / 1000.0,
+                    latency.getPercentileNanos(0.99) / 1000.0,
+                    latency.getPercentileNanos(0.999) / 1000.0,
+                    latency.getMaxNanos() / 1000.0);
+        }
+
+        System.out.print("\nIm Prometheus-Format exportieren? (j/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("j")) {
+            System.out.print("Dateiname (Enter für " + METRICS_FILE + "): ");
+            String file = scanner.nextLine().trim();
+            try {
+                metrics.exportPrometheus(Paths.get(file.isEmpty() ? METRICS_FILE : file));
+                System.out.println("Statistiken wurden exportiert.");
+            } catch (IOException e) {
+                System.out.println("Fehler beim Exportieren: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void exportUsers() {
+        clearScreen();
+        System.out.println("=== Benutzer exportieren ===");
+        System.out.println("1. CSV");
+        System.out.println("2. JSON Lines");
+        System.out.print("Format (1-2): ");
+        UserExporter.Format format = scanner.nextLine().trim().equals("2")
+                ? UserExporter.Format.JSONL : UserExporter.Format.CSV;
+        System.out.print("Berechtigungen der Rolle mit exportieren? (j/n): ");
+        boolean withPermissions = scanner.nextLine().trim().equalsIgnoreCase("j");
+        String defaultFile = format == UserExporter.Format.CSV ? "users.csv" : "users.jsonl";
+        System.out.print("Dateiname (Enter für " + defaultFile + "): ");
+        String file = scanner.nextLine().trim();
+
+        long start = System.nanoTime();
+        try {
+            long count = new UserExporter(repository).export(Paths.get(file.isEmpty() ? defaultFile : file),
+                    format, withPermissions);
+            System.out.printf("%d Benutzer in %.1f s exportiert.%n", count, (System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            System.out.println("Fehler beim Exportieren: " + e.getMessage());
+        }
+    }
+
+    private static void importUsers() {
+        clearScreen();
+        System.out.println("=== Benutzer importieren ===");
+        System.out.print("Datei (.csv oder .jsonl): ");
+        String file = scanner.nextLine().trim();
+        if (file.isEmpty()) {
+            return;
+        }
+        UserExporter.Format format = file.toLowerCase(Locale.ROOT).endsWith(".jsonl")
+                ? UserExporter.Format.JSONL : UserExporter.Format.CSV;
+        Path errorFile = Paths.get(file + ".fehler.csv");
+
+        try {
+            Files.deleteIfExists(errorFile);
+            UserImporter.Summary summary = new UserImporter(repository).importFile(Paths.get(file),
+                    format, errorFile, progress -> System.out.printf("\r%d Zeilen, %d importiert, %d Fehler, %.0f Zeilen/s",
+                            progress.getRows(), progress.getImported(), progress.getFailed(), progress.getRowsPerSecond()));
+            System.out.printf("%n%d von %d Benutzern in %.1f s importiert.%n", summary.getImported(), summary.getRows(),
+                    summary.getElapsedNanos() / 1e9);
+            if (summary.getFailed() > 0) {
+                System.out.println(summary.getFailed() + " abgelehnte Zeilen stehen in " + errorFile);
+            }
+        } catch (IOException e) {
+            System.out.println("Fehler beim Importieren: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Fehler: " + e.getMessage());
+        }
     }
 
     private static void createNewUser() {
@@ -294,30 +504,17 @@ public class Main {
 
         if (confirm.equalsIgnoreCase("j")) {
             try {
-                if (repository != null) {
-                    repository.closeConnections();
-                }
-
-                File dbFile = new File("users.db");
-                if (dbFile.exists()) {
-                    if (!dbFile.delete()) {
-                        throw new RuntimeException("Konnte Datenbankdatei nicht löschen");
-                    }
-                }
-
-                repository = new UserRepository("jdbc:sqlite:users.db");
-                service = new UserService(repository);
+                repository.resetDatabase();
+                service = new InstrumentedUserService(repository, metrics);
+                permissionService = new InstrumentedPermissionService(repository, metrics);
 
                 Permission readPerm = repository.createPermission("READ", "Daten lesen");
                 Permission writePerm = repository.createPermission("WRITE", "Daten schreiben");
                 Permission deletePerm = repository.createPermission("DELETE", "Daten löschen");
                 Permission adminPerm = repository.createPermission("ADMIN", "Administrative Rechte");
 
-                Role adminRole = new Role(1L, "ADMIN");
-                repository.saveRole(adminRole);
-
-                Role userRole = new Role(2L, "USER");
-                repository.saveRole(userRole);
+                Role adminRole = findRole("ADMIN");
+                Role userRole = findRole("USER");
 
                 repository.addPermissionToRole(adminRole.getId(), readPerm.getId());
                 repository.addPermissionToRole(adminRole.getId(), writePerm.getId());
@@ -344,24 +541,25 @@ public class Main {
         }
     }
 
+    private static Role findRole(String name) {
+        return repository.getAllRoles().stream()
+                .filter(role -> role.getName().equals(name))
+                .findFirst()
+                .orElseGet(() -> repository.saveRole(new Role(null, name)));
+    }
+
     private static void editUser() {
         clearScreen();
         System.out.println("=== Benutzer bearbeiten ===");
 
-        List<User> users = repository.findAllUsers();
-        if (users.isEmpty()) {
-            System.out.println("Keine Benutzer vorhanden!");
+        String input = pickUser("Benutzer-ID zum Bearbeiten eingeben",
+                u -> u.getId() + ". " + u.getUsername() + " (" + u.getEmail() + ")");
+        if (input == null) {
             return;
         }
 
-        System.out.println("\nVerfügbare Benutzer:");
-        for (User user : users) {
-            System.out.println(user.getId() + ". " + user.getUsername() + " (" + user.getEmail() + ")");
-        }
-
-        System.out.print("\nBenutzer-ID zum Bearbeiten eingeben: ");
         try {
-            Long userId = Long.parseLong(scanner.nextLine());
+            Long userId = Long.parseLong(input);
             User user = repository.findById(userId);
 
             if (user != null) {
@@ -397,20 +595,14 @@ public class Main {
         clearScreen();
         System.out.println("=== Benutzer löschen ===");
 
-        List<User> users = repository.findAllUsers();
-        if (users.isEmpty()) {
-            System.out.println("Keine Benutzer vorhanden!");
+        String input = pickUser("Benutzer-ID zum Löschen eingeben",
+                u -> u.getId() + ". " + u.getUsername() + " (" + u.getEmail() + ")");
+        if (input == null) {
             return;
         }
 
-        System.out.println("\nVerfügbare Benutzer:");
-        for (User user : users) {
-            System.out.println(user.getId() + ". " + user.getUsername() + " (" + user.getEmail() + ")");
-        }
-
-        System.out.print("\nBenutzer-ID zum Löschen eingeben: ");
         try {
-            Long userId = Long.parseLong(scanner.nextLine());
+            Long userId = Long.parseLong(input);
             User user = repository.findById(userId);
 
             if (user != null) {
@@ -437,20 +629,14 @@ public class Main {
         clearScreen();
         System.out.println("=== Benutzerrolle ändern ===");
 
-        List<User> users = repository.findAllUsers();
-        if (users.isEmpty()) {
-            System.out.println("Keine Benutzer vorhanden!");
+        String input = pickUser("Benutzer-ID eingeben",
+                u -> u.getId() + ". " + u.getUsername() + " (Aktuelle Rolle: " + u.getRole().getName() + ")");
+        if (input == null) {
             return;
         }
 
-        System.out.println("\nVerfügbare Benutzer:");
-        for (User user : users) {
-            System.out.println(user.getId() + ". " + user.getUsername() + " (Aktuelle Rolle: " + user.getRole().getName() + ")");
-        }
-
-        System.out.print("\nBenutzer-ID eingeben: ");
         try {
-            Long userId = Long.parseLong(scanner.nextLine());
+            Long userId = Long.parseLong(input);
             User user = repository.findById(userId);
 
             if (user != null) {
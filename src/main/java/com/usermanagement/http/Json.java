@@ -0,0 +1,322 @@
+package com.usermanagement.http;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the API: writers for the model classes and a parser for the
+ * flat request objects ({"name": "...", "roleId": 2}). Nested values are rejected.
+ */
+final class Json {
+    private Json() {
+    }
+
+    static String user(User user) {
+        StringBuilder out = new StringBuilder(128);
+        appendUser(out, user);
+        return out.toString();
+    }
+
+    static String users(List<User> users) {
+        StringBuilder out = new StringBuilder(64 + users.size() * 96);
+        out.append('[');
+        for (int i = 0; i < users.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendUser(out, users.get(i));
+        }
+        return out.append(']').toString();
+    }
+
+    static String role(Role role) {
+        StringBuilder out = new StringBuilder(128);
+        appendRole(out, role);
+        return out.toString();
+    }
+
+    static String roles(List<Role> roles) {
+        StringBuilder out = new StringBuilder(128);
+        out.append('[');
+        for (int i = 0; i < roles.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendRole(out, roles.get(i));
+        }
+        return out.append(']').toString();
+    }
+
+    static String permission(Permission permission) {
+        StringBuilder out = new StringBuilder(96);
+        appendPermission(out, permission);
+        return out.toString();
+    }
+
+    static String permissions(List<Permission> permissions) {
+        StringBuilder out = new StringBuilder(128);
+        appendPermissions(out, permissions);
+        return out.toString();
+    }
+
+    static String counts(Map<String, Integer> counts) {
+        StringBuilder out = new StringBuilder(64);
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            string(out, entry.getKey()).append(':').append(entry.getValue());
+        }
+        return out.append('}').toString();
+    }
+
+    /** {"allowed":[...]} with one entry per checked id, bit i of {@code allowed} for entry i. */
+    static String allowed(BitSet allowed, int count) {
+        StringBuilder out = new StringBuilder(16 + count * 6);
+        out.append("{\"allowed\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(allowed.get(i));
+        }
+        return out.append("]}").toString();
+    }
+
+    static String error(String message) {
+        StringBuilder out = new StringBuilder(64);
+        out.append("{\"error\":");
+        return string(out, message).append('}').toString();
+    }
+
+    private static void appendUser(StringBuilder out, User user) {
+        out.append("{\"id\":").append(user.getId()).append(",\"username\":");
+        string(out, user.getUsername()).append(",\"email\":");
+        string(out, user.getEmail()).append(",\"role\":");
+        Role role = user.getRole();
+        if (role == null) {
+            out.append("null");
+        } else {
+            out.append("{\"id\":").append(role.getId()).append(",\"name\":");
+            string(out, role.getName()).append('}');
+        }
+        out.append('}');
+    }
+
+    private static void appendRole(StringBuilder out, Role role) {
+        out.append("{\"id\":").append(role.getId()).append(",\"name\":");
+        string(out, role.getName()).append(",\"permissions\":");
+        appendPermissions(out, role.getPermissions());
+        out.append('}');
+    }
+
+    private static void appendPermissions(StringBuilder out, List<Permission> permissions) {
+        out.append('[');
+        for (int i = 0; i < permissions.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendPermission(out, permissions.get(i));
+        }
+        out.append(']');
+    }
+
+    private static void appendPermission(StringBuilder out, Permission permission) {
+        out.append("{\"id\":").append(permission.getId()).append(",\"name\":");
+        string(out, permission.getName()).append(",\"description\":");
+        string(out, permission.getDescription()).append('}');
+    }
+
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object. Values are String, Long, Double, Boolean or null.
+     *
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, Object> parseObject(String text) {
+        Parser parser = new Parser(text);
+        parser.skipWhitespace();
+        Map<String, Object> result = parser.object();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error();
+        }
+        return result;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return result;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                result.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return result;
+                }
+                if (c != ',') {
+                    throw error();
+                }
+            }
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return number();
+            }
+            throw error();
+        }
+
+        private Object number() {
+            int start = pos;
+            boolean decimal = false;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            try {
+                return decimal ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+            } catch (NumberFormatException e) {
+                throw error();
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"', '\\', '/' -> out.append(escaped);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error();
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error();
+            }
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error();
+            }
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("Ungültiges JSON an Position " + pos);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.usermanagement.http;
+
+public class ServerConfig {
+    private String host = "localhost";
+    private int port = 8080;
+    private int backlog = 1_024;
+    private int workerThreads = 64;
+    private long drainTimeoutMillis = 10_000;
+    private int maxBodyBytes = 64 * 1024;
+    private int maxPageSize = 1_000;
+
+    public String getHost() { return host; }
+    public void setHost(String host) { this.host = host; }
+    /** 0 picks a free port; see {@link UserManagementServer#getPort()}. */
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+    public int getBacklog() { return backlog; }
+    public void setBacklog(int backlog) { this.backlog = backlog; }
+    /** Only used on JVMs without virtual threads. */
+    public int getWorkerThreads() { return workerThreads; }
+    public void setWorkerThreads(int workerThreads) { this.workerThreads = workerThreads; }
+    public long getDrainTimeoutMillis() { return drainTimeoutMillis; }
+    public void setDrainTimeoutMillis(long drainTimeoutMillis) { this.drainTimeoutMillis = drainTimeoutMillis; }
+    public int getMaxBodyBytes() { return maxBodyBytes; }
+    public void setMaxBodyBytes(int maxBodyBytes) { this.maxBodyBytes = maxBodyBytes; }
+    public int getMaxPageSize() { return maxPageSize; }
+    public void setMaxPageSize(int maxPageSize) { this.maxPageSize = maxPageSize; }
+}
@@ -0,0 +1,507 @@
+package com.usermanagement.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.UserRepository;
+import com.usermanagement.service.AsyncExecutor;
+import com.usermanagement.service.PermissionService;
+import com.usermanagement.service.RoleService;
+import com.usermanagement.service.UserExporter;
+import com.usermanagement.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JSON API over the services on the JDK's built-in HTTP server. Every request runs on
+ * its own virtual thread when the JVM has them, otherwise on a fixed worker pool.
+ * Connections are kept alive (HTTP/1.1) as long as the client wants; every response
+ * but the streamed export has a fixed Content-Length so the connection can be reused.
+ *
+ * <pre>
+ * GET    /api/check?userId=1&amp;permission=READ     {"allowed":true}   (also roleId=)
+ * GET    /api/check?userIds=1,2,3&amp;permission=READ {"allowed":[true,false,true]}
+ * GET    /api/users?afterId=0&amp;limit=50          page of users
+ * GET    /api/users?search=ann&amp;limit=20         username/email prefix search
+ * GET    /api/users/export?format=csv|jsonl&amp;permissions=true   all users, chunked
+ * POST   /api/users                             {"username","email","roleId"}
+ * GET    /api/users/{id}, PUT (same body), DELETE
+ * GET    /api/roles, POST {"name"}, GET /api/roles/{id}, GET /api/roles/counts
+ * PUT    /api/roles/{id}/permissions/{permissionId}, DELETE
+ * GET    /api/permissions, POST {"name","description"}
+ * GET    /health
+ * </pre>
+ *
+ * {@link #close()} drains: new requests get 503 with "Connection: close" while the
+ * running ones finish, then the listener is stopped.
+ */
+public class UserManagementServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(UserManagementServer.class);
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final byte[] ALLOWED = "{\"allowed\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DENIED = "{\"allowed\":false}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEALTHY = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    static {
+        // The JDK server writes headers and body as separate segments; with Nagle on,
+        // the client's delayed ACK adds ~40 ms to every keep-alive request. The JDK
+        // reads this once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ServerConfig config;
+    private final UserRepository repository;
+    private final UserService userService;
+    private final RoleService roleService;
+    private final PermissionService permissionService;
+    private final UserExporter exporter;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object drainLock = new Object();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean draining;
+    private volatile boolean stopped;
+
+    private interface Route {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    public UserManagementServer(ServerConfig config, UserRepository repository, UserService userService,
+                                RoleService roleService, PermissionService permissionService) throws IOException {
+        this.config = config;
+        this.repository = repository;
+        this.userService = userService;
+        this.roleService = roleService;
+        this.permissionService = permissionService;
+        this.exporter = new UserExporter(repository);
+
+        ExecutorService virtual = AsyncExecutor.newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(config.getWorkerThreads(), workerThreads());
+
+        this.server = HttpServer.create(new InetSocketAddress(config.getHost(), config.getPort()), config.getBacklog());
+        server.setExecutor(executor);
+        server.createContext("/api/check", exchange -> serve(exchange, this::checkPermission));
+        server.createContext("/api/", exchange -> serve(exchange, this::api));
+        server.createContext("/health", exchange -> serve(exchange, e -> send(e, 200, HEALTHY)));
+    }
+
+    public void start() {
+        server.start();
+        log.info("HTTP API listening on port {} ({})", getPort(), virtualThreads ? "virtual threads" : "worker pool");
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public int getInFlight() { return inFlight.get(); }
+    public long getRequestCount() { return requests.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public boolean isDraining() { return draining; }
+
+    @Override
+    public void close() {
+        shutdown(Duration.ofMillis(config.getDrainTimeoutMillis()));
+    }
+
+    /**
+     * Stops taking new requests and waits up to {@code timeout} for the running ones.
+     * Returns false if requests were still running when the server was stopped.
+     */
+    public boolean shutdown(Duration timeout) {
+        draining = true;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained;
+        synchronized (drainLock) {
+            try {
+                long remaining;
+                while (inFlight.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(drainLock, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drained = inFlight.get() == 0;
+        }
+        if (!stopped) {
+            stopped = true;
+            server.stop(0);
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!drained) {
+            log.warn("HTTP API stopped with {} requests still running", inFlight.get());
+        }
+        return drained;
+    }
+
+    private void serve(HttpExchange exchange, Route route) {
+        inFlight.incrementAndGet();
+        requests.increment();
+        try {
+            if (draining) {
+                rejected.increment();
+                exchange.getResponseHeaders().set("Connection", "close");
+                sendError(exchange, 503, "Server wird heruntergefahren");
+                return;
+            }
+            route.handle(exchange);
+        } catch (IllegalArgumentException e) {
+            sendErrorQuietly(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendErrorQuietly(exchange, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendErrorQuietly(exchange, 500, "Interner Fehler");
+        } catch (IOException e) {
+            log.debug("Client connection failed: {}", e.getMessage());
+        } finally {
+            exchange.close();
+            if (inFlight.decrementAndGet() == 0 && draining) {
+                synchronized (drainLock) {
+                    drainLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    // GET /api/check?userId=..&permission=.. is the hot path: no JSON building, no routing.
+    private void checkPermission(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            methodNotAllowed(exchange, "GET");
+            return;
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        String permission = queryParam(query, "permission");
+        String userId = queryParam(query, "userId");
+        String roleId = queryParam(query, "roleId");
+        String userIds = queryParam(query, "userIds");
+        int given = (userId == null ? 0 : 1) + (roleId == null ? 0 : 1) + (userIds == null ? 0 : 1);
+        if (permission == null || given != 1) {
+            throw new IllegalArgumentException("permission und genau eine von userId/roleId/userIds sind erforderlich");
+        }
+        if (userIds != null) {
+            List<Long> ids = parseIdList(userIds);
+            send(exchange, 200, Json.allowed(permissionService.hasPermission(ids, permission), ids.size()));
+            return;
+        }
+        boolean allowed = userId != null
+                ? permissionService.hasPermission(parseId(userId), permission)
+                : permissionService.roleHasPermission(parseId(roleId), permission);
+        send(exchange, 200, allowed ? ALLOWED : DENIED);
+    }
+
+    private void api(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String[] parts = path.substring("/api/".length()).split("/");
+        String method = exchange.getRequestMethod();
+
+        switch (parts[0]) {
+            case "users" -> users(exchange, method, parts);
+            case "roles" -> roles(exchange, method, parts);
+            case "permissions" -> permissions(exchange, method, parts);
+            default -> sendError(exchange, 404, "Unbekannter Pfad");
+        }
+    }
+
+    private void users(HttpExchange exchange, String method, String[] parts) throws IOException {
+        if (parts.length == 1) {
+            switch (method) {
+                case "GET" -> {
+                    String query = exchange.getRequestURI().getRawQuery();
+                    String afterId = queryParam(query, "afterId");
+                    String search = queryParam(query, "search");
+                    String limit = queryParam(query, "limit");
+                    int size = limit == null ? DEFAULT_PAGE_SIZE : Math.min(parseInt(limit), config.getMaxPageSize());
+                    List<User> page = search != null
+                            ? repository.searchUsers(search, size)
+                            : repository.findUsersPage(afterId == null ? null : parseId(afterId), size);
+                    send(exchange, 200, Json.users(page));
+                }
+                case "POST" -> {
+                    Map<String, Object> body = readBody(exchange);
+                    User user = userService.createUser(string(body, "username"), string(body, "email"),
+                            role(body));
+                    send(exchange, 201, Json.user(user));
+                }
+                default -> methodNotAllowed(exchange, "GET, POST");
+            }
+            return;
+        }
+        if (parts.length != 2) {
+            sendError(exchange, 404, "Unbekannter Pfad");
+            return;
+        }
+        if (parts[1].equals("export")) {
+            if (method.equals("GET")) {
+                exportUsers(exchange);
+            } else {
+                methodNotAllowed(exchange, "GET");
+            }
+            return;
+        }
+
+        Long id = parseId(parts[1]);
+        switch (method) {
+            case "GET" -> {
+                User user = repository.findById(id);
+                if (user == null) {
+                    sendError(exchange, 404, "Benutzer nicht gefunden");
+                } else {
+                    send(exchange, 200, Json.user(user));
+                }
+            }
+            case "PUT" -> {
+                Map<String, Object> body = readBody(exchange);
+                User user = new User(id, string(body, "username"), string(body, "email"), role(body));
+                send(exchange, 200, Json.user(userService.updateUser(user)));
+            }
+            case "DELETE" -> {
+                if (repository.findById(id) == null) {
+                    sendError(exchange, 404, "Benutzer nicht gefunden");
+                    return;
+                }
+                repository.deleteUser(id);
+                sendNoContent(exchange);
+            }
+            default -> methodNotAllowed(exchange, "GET, PUT, DELETE");
+        }
+    }
+
+    // Streams with chunked encoding; memory stays flat however many users there are.
+    private void exportUsers(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String format = queryParam(query, "format");
+        UserExporter.Format exportFormat = format == null ? UserExporter.Format.CSV : UserExporter.Format.of(format);
+        boolean withPermissions = "true".equals(queryParam(query, "permissions"));
+        exchange.getResponseHeaders().set("Content-Type", exportFormat.getContentType());
+        exchange.sendResponseHeaders(200, 0);
+        try (WritableByteChannel out = Channels.newChannel(exchange.getResponseBody())) {
+            exporter.export(out, exportFormat, withPermissions);
+        }
+    }
+
+    private void roles(HttpExchange exchange, String method, String[] parts) throws IOException {
+        if (parts.length == 1) {
+            switch (method) {
+                case "GET" -> send(exchange, 200, Json.roles(roleService.getAllRoles()));
+                case "POST" -> send(exchange, 201, Json.role(roleService.addRole(string(readBody(exchange), "name"))));
+                default -> methodNotAllowed(exchange, "GET, POST");
+            }
+            return;
+        }
+        if (parts.length == 2 && parts[1].equals("counts")) {
+            if (method.equals("GET")) {
+                send(exchange, 200, Json.counts(roleService.countUsersByRole()));
+            } else {
+                methodNotAllowed(exchange, "GET");
+            }
+            return;
+        }
+        if (parts.length == 2) {
+            if (!method.equals("GET")) {
+                methodNotAllowed(exchange, "GET");
+                return;
+            }
+            Role role = repository.getRoleWithPermissions(parseId(parts[1]));
+            if (role == null) {
+                sendError(exchange, 404, "Rolle nicht gefunden");
+            } else {
+                send(exchange, 200, Json.role(role));
+            }
+            return;
+        }
+        if (parts.length == 4 && parts[2].equals("permissions")) {
+            Long roleId = parseId(parts[1]);
+            Long permissionId = parseId(parts[3]);
+            switch (method) {
+                case "PUT" -> permissionService.assignPermissionToRole(roleId, permissionId);
+                case "DELETE" -> permissionService.removePermissionFromRole(roleId, permissionId);
+                default -> {
+                    methodNotAllowed(exchange, "PUT, DELETE");
+                    return;
+                }
+            }
+            sendNoContent(exchange);
+            return;
+        }
+        sendError(exchange, 404, "Unbekannter Pfad");
+    }
+
+    private void permissions(HttpExchange exchange, String method, String[] parts) throws IOException {
+        if (parts.length != 1) {
+            sendError(exchange, 404, "Unbekannter Pfad");
+            return;
+        }
+        switch (method) {
+            case "GET" -> send(exchange, 200, Json.permissions(permissionService.getAllPermissions()));
+            case "POST" -> {
+                Map<String, Object> body = readBody(exchange);
+                send(exchange, 201, Json.permission(
+                        permissionService.createPermission(string(body, "name"), string(body, "description"))));
+            }
+            default -> methodNotAllowed(exchange, "GET, POST");
+        }
+    }
+
+    private Role role(Map<String, Object> body) {
+        Object roleId = body.get("roleId");
+        if (roleId == null) {
+            return null;
+        }
+        if (!(roleId instanceof Long id)) {
+            throw new IllegalArgumentException("roleId muss eine Zahl sein");
+        }
+        Role role = repository.getRoleById(id);
+        if (role == null) {
+            throw new IllegalArgumentException("Rolle nicht gefunden");
+        }
+        return role;
+    }
+
+    private static String string(Map<String, Object> body, String key) {
+        Object value = body.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(key + " muss ein Text sein");
+        }
+        return (String) value;
+    }
+
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(config.getMaxBodyBytes() + 1);
+            if (bytes.length > config.getMaxBodyBytes()) {
+                throw new IllegalArgumentException("Anfrage ist zu groß");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Value of {@code name} in a raw query string, decoded only if it needs to be. */
+    static String queryParam(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            if (query.startsWith(name, start) && start + name.length() < end
+                    && query.charAt(start + name.length()) == '=') {
+                String value = query.substring(start + name.length() + 1, end);
+                return value.indexOf('%') < 0 && value.indexOf('+') < 0
+                        ? value : URLDecoder.decode(value, StandardCharsets.UTF_8);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige ID: " + value);
+        }
+    }
+
+    private List<Long> parseIdList(String value) {
+        String[] parts = value.split(",");
+        if (parts.length > config.getMaxPageSize()) {
+            throw new IllegalArgumentException("Zu viele IDs (maximal " + config.getMaxPageSize() + ")");
+        }
+        List<Long> ids = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            ids.add(parseId(part));
+        }
+        return ids;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige Zahl: " + value);
+        }
+    }
+
+    private static void methodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Methode nicht erlaubt");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, Json.error(message));
+    }
+
+    private static void sendErrorQuietly(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            sendError(exchange, status, message);
+        } catch (IOException e) {
+            log.debug("Could not send error response: {}", e.getMessage());
+        }
+    }
+
+    private static void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "http-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.usermanagement.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registry of {@link OperationStats} by name, e.g. "repository.findById". Look the stats
+ * up once and keep the reference; the map is only touched when a new name appears.
+ */
+public class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, OperationStats::new);
+    }
+
+    /** All operations sorted by name. */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparing(OperationStats::getName));
+        return sorted;
+    }
+
+    public void reset() {
+        operations.values().forEach(OperationStats::reset);
+    }
+
+    /** Writes the Prometheus text format (version 0.0.4). Latencies are in seconds. */
+    public void writePrometheus(Appendable out) throws IOException {
+        Collection<OperationStats> all = getOperations();
+
+        out.append("# HELP usermanagement_operation_duration_seconds Latenz pro Operation\n");
+        out.append("# TYPE usermanagement_operation_duration_seconds summary\n");
+        for (OperationStats stats : all) {
+            LatencyHistogram latency = stats.getLatency();
+            for (double quantile : QUANTILES) {
+                sample(out, "usermanagement_operation_duration_seconds", stats,
+                        ",quantile=\"" + quantile + "\"", seconds(latency.getPercentileNanos(quantile)));
+            }
+            sample(out, "usermanagement_operation_duration_seconds_sum", stats, "", seconds(latency.getSumNanos()));
+            sample(out, "usermanagement_operation_duration_seconds_count", stats, "", Long.toString(latency.getCount()));
+        }
+
+        out.append("# HELP usermanagement_operation_duration_seconds_max Höchste Latenz pro Operation\n");
+        out.append("# TYPE usermanagement_operation_duration_seconds_max gauge\n");
+        for (OperationStats stats : all) {
+            sample(out, "usermanagement_operation_duration_seconds_max", stats, "",
+                    seconds(stats.getLatency().getMaxNanos()));
+        }
+
+        counter(out, "usermanagement_operation_calls_total", "Aufrufe pro Operation", all, OperationStats::getCalls);
+        counter(out, "usermanagement_operation_errors_total", "Fehler pro Operation", all, OperationStats::getErrors);
+        counter(out, "usermanagement_operation_rows_total", "Gelesene oder geschriebene Zeilen pro Operation",
+                all, OperationStats::getRows);
+    }
+
+    /** Writes the Prometheus text to a temp file next to the target and moves it into place. */
+    public void exportPrometheus(Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writePrometheus(writer);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void counter(Appendable out, String name, String help,
+                                Collection<OperationStats> all, ToLongFunction<OperationStats> value) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (OperationStats stats : all) {
+            sample(out, name, stats, "", Long.toString(value.applyAsLong(stats)));
+        }
+    }
+
+    private static void sample(Appendable out, String name, OperationStats stats,
+                               String extraLabels, String value) throws IOException {
+        out.append(name).append("{operation=\"").append(escape(stats.getName())).append('"')
+                .append(extraLabels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,49 @@
+package com.usermanagement.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, errors, rows and latency of one named operation. Callers take
+ * {@link #start()} before the operation and report {@link #success} or
+ * {@link #failure} with it afterwards; neither allocates.
+ */
+public class OperationStats {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void success(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        rows.add(rowCount);
+    }
+
+    public void failure(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        errors.increment();
+    }
+
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+        rows.reset();
+    }
+
+    public String getName() { return name; }
+    public LatencyHistogram getLatency() { return latency; }
+    public long getCalls() { return calls.sum(); }
+    public long getErrors() { return errors.sum(); }
+    public long getRows() { return rows.sum(); }
+}
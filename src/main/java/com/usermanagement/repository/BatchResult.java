@@ -0,0 +1,79 @@
+package com.usermanagement.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-row outcome of a batched write. Row indexes refer to the position in the
+ * collection that was passed in.
+ */
+public class BatchResult<T> {
+    private final List<Row<T>> rows = new ArrayList<>();
+
+    public void addSuccess(int index, T value) {
+        add(new Row<>(index, value, null));
+    }
+
+    public void addFailure(int index, T value, String error) {
+        add(new Row<>(index, value, error));
+    }
+
+    // Rows are kept in index order as they arrive; writers report them mostly ascending,
+    // so this is nearly always a plain append.
+    private void add(Row<T> row) {
+        int at = rows.size();
+        while (at > 0 && rows.get(at - 1).getIndex() > row.getIndex()) {
+            at--;
+        }
+        rows.add(at, row);
+    }
+
+    public List<Row<T>> getRows() {
+        return List.copyOf(rows);
+    }
+
+    public List<T> getSucceeded() {
+        List<T> values = new ArrayList<>();
+        for (Row<T> row : rows) {
+            if (row.isSuccess()) {
+                values.add(row.getValue());
+            }
+        }
+        return values;
+    }
+
+    public List<Row<T>> getFailures() {
+        List<Row<T>> failures = new ArrayList<>();
+        for (Row<T> row : rows) {
+            if (!row.isSuccess()) {
+                failures.add(row);
+            }
+        }
+        return failures;
+    }
+
+    public int getSuccessCount() {
+        return (int) rows.stream().filter(Row::isSuccess).count();
+    }
+
+    public int getFailureCount() {
+        return rows.size() - getSuccessCount();
+    }
+
+    public static class Row<T> {
+        private final int index;
+        private final T value;
+        private final String error;
+
+        public Row(int index, T value, String error) {
+            this.index = index;
+            this.value = value;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public T getValue() { return value; }
+        public String getError() { return error; }
+        public boolean isSuccess() { return error == null; }
+    }
+}
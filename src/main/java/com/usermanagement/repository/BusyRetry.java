@@ -0,0 +1,68 @@
+package com.usermanagement.repository;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Retries work that failed with SQLITE_BUSY, backing off exponentially with jitter.
+ * The driver's busy_timeout already waits for locks, but SQLite returns BUSY without
+ * calling the busy handler when waiting could deadlock (e.g. a WAL read transaction
+ * that has to be restarted before it may write), so the whole unit is retried here.
+ */
+final class BusyRetry {
+    private static final int SQLITE_BUSY = 5;
+    private static final long MAX_BACKOFF_MILLIS = 1_000;
+
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final AtomicLong retries = new AtomicLong();
+
+    BusyRetry(int maxRetries, long backoffMillis) {
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    <T> T run(Supplier<T> action) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!shouldRetry(e, attempt) || !backoff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    boolean shouldRetry(Throwable e, int attempt) {
+        return attempt < maxRetries && isBusy(e);
+    }
+
+    /** Sleeps before the given retry. Returns false if interrupted, which ends the retries. */
+    boolean backoff(int attempt) {
+        retries.incrementAndGet();
+        long delay = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt, 16));
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    long getRetryCount() {
+        return retries.get();
+    }
+
+    static boolean isBusy(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (sql.getErrorCode() & 0xFF) == SQLITE_BUSY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
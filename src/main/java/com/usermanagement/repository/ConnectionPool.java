@@ -0,0 +1,321 @@
+package com.usermanagement.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of long-lived SQLite connections. Borrowed connections are
+ * proxies whose {@code close()} hands the physical connection back to the pool.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String dbUrl;
+    private final Properties connectionProperties;
+    private final boolean readOnly;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long connectionTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+    private final SlowQueryLog slowQueryLog;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public ConnectionPool(RepositoryConfig config) {
+        this(config, config.getPoolSize(), false);
+    }
+
+    /**
+     * @param size     maximum number of physical connections
+     * @param readOnly open the connections read-only (WAL readers)
+     */
+    public ConnectionPool(RepositoryConfig config, int size, boolean readOnly) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool-Größe muss mindestens 1 sein");
+        }
+        this.dbUrl = config.getDbUrl();
+        this.readOnly = readOnly;
+        this.connectionProperties = connectionProperties(config, readOnly);
+        this.maxSize = size;
+        this.minIdle = Math.min(config.getMinIdle(), size);
+        this.idleTimeoutMillis = config.getIdleTimeoutMillis();
+        this.connectionTimeoutMillis = config.getConnectionTimeoutMillis();
+        this.validationIntervalMillis = config.getValidationIntervalMillis();
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.slowQueryLog = SlowQueryLog.create(config);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timeout: no connection available after " + connectionTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        waitNanos.addAndGet(System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isHealthy(pooled)) {
+                    break;
+                }
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrowCount.incrementAndGet();
+            activeConnections.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isHealthy(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static Properties connectionProperties(RepositoryConfig config, boolean readOnly) {
+        if (config.getStorageMode() != RepositoryConfig.StorageMode.WAL && !readOnly) {
+            return null;
+        }
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.setReadOnly(readOnly);
+        if (config.getStorageMode() == RepositoryConfig.StorageMode.WAL) {
+            // journal_mode is persistent in the file; only a writer may switch it.
+            if (!readOnly) {
+                sqlite.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            }
+            sqlite.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(config.getSynchronous()));
+            sqlite.setCacheSize(-config.getCacheSizeKib());
+            sqlite.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(config.getMmapSizeBytes()));
+        }
+        return sqlite.toProperties();
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = connectionProperties == null
+                ? DriverManager.getConnection(dbUrl)
+                : DriverManager.getConnection(dbUrl, connectionProperties);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        activeConnections.decrementAndGet();
+        try {
+            if (closed) {
+                destroy(pooled);
+                return;
+            }
+            try {
+                pooled.statements.releaseAll();
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } catch (SQLException e) {
+                log.warn("Discarding broken connection: {}", e.getMessage());
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.statements.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            log.debug("Error closing connection: {}", e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.removeLastOccurrence(pooled)) {
+                evictedCount.incrementAndGet();
+                destroy(pooled);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    public boolean isClosed() { return closed; }
+    public int getMaxSize() { return maxSize; }
+    public boolean isReadOnly() { return readOnly; }
+    public int getTotalConnections() { return totalConnections.get(); }
+    public int getActiveConnections() { return activeConnections.get(); }
+    public int getIdleConnections() { return idle.size(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getEvictedCount() { return evictedCount.get(); }
+    public long getValidationFailures() { return validationFailures.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getTotalWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(waitNanos.get()); }
+    public long getStatementCacheHits() { return statementStats.hits.get(); }
+    public long getStatementCacheMisses() { return statementStats.misses.get(); }
+    public long getStatementCacheEvictions() { return statementStats.evictions.get(); }
+    public long getSlowQueryCount() { return slowQueryLog == null ? 0 : slowQueryLog.getSlowCount(); }
+    public long getSlowQueriesLogged() { return slowQueryLog == null ? 0 : slowQueryLog.getLoggedCount(); }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[" + (readOnly ? "read-only, " : "") + "total=" + getTotalConnections() +
+                ", active=" + getActiveConnections() +
+                ", idle=" + getIdleConnections() +
+                ", max=" + maxSize +
+                ", created=" + getCreatedCount() +
+                ", borrowed=" + getBorrowCount() +
+                ", evicted=" + getEvictedCount() +
+                ", validationFailures=" + getValidationFailures() +
+                ", timeouts=" + getTimeoutCount() +
+                ", stmtHits=" + getStatementCacheHits() +
+                ", stmtMisses=" + getStatementCacheMisses() +
+                ", stmtEvictions=" + getStatementCacheEvictions() +
+                ", slowQueries=" + getSlowQueryCount() + "]";
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize, statementStats, slowQueryLog);
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+    }
+
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + pooled.physical + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                return pooled.statements.prepare((Connection) proxy, (String) args[0]);
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.usermanagement.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counting Bloom filter over strings. A negative answer is definite, a positive one
+ * only means "maybe" and must be confirmed against the database. Counters make
+ * removal possible; a counter that saturates stays saturated so it never produces
+ * a false negative on its own.
+ *
+ * Reads are not synchronized: a racing read may miss a value that is being added
+ * concurrently, which the UNIQUE constraints on users catch anyway.
+ */
+public class CountingBloomFilter {
+    private static final int MAX_COUNT = 0xFF;
+
+    private final byte[] counters;
+    private final int hashFunctions;
+    private final int capacity;
+    private int size;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+
+    public CountingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.counters = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, m))];
+        this.hashFunctions = Math.max(1, (int) Math.round((double) counters.length / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public boolean mightContain(String value) {
+        lookups.incrementAndGet();
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counters[index(h1, h2, i)] == 0) {
+                negatives.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            int idx = index(h1, h2, i);
+            int count = counters[idx] & 0xFF;
+            if (count < MAX_COUNT) {
+                counters[idx] = (byte) (count + 1);
+            }
+        }
+        size++;
+    }
+
+    public synchronized void remove(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counters[index(h1, h2, i)] == 0) {
+                return;
+            }
+        }
+        for (int i = 0; i < hashFunctions; i++) {
+            int idx = index(h1, h2, i);
+            int count = counters[idx] & 0xFF;
+            if (count < MAX_COUNT) {
+                counters[idx] = (byte) (count - 1);
+            }
+        }
+        size = Math.max(0, size - 1);
+    }
+
+    /** True once the filter holds noticeably more values than it was sized for. */
+    public synchronized boolean isOverCapacity() {
+        return size > capacity * 2L;
+    }
+
+    public synchronized int size() { return size; }
+    public int getCapacity() { return capacity; }
+    public long getLookups() { return lookups.get(); }
+    public long getNegatives() { return negatives.get(); }
+
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % counters.length;
+    }
+
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,1039 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Keeps users, roles, permissions and role_permissions in concurrent maps, with
+ * username and email indexes, and answers every read from memory. Writes are
+ * serialized on one lock, applied to the maps and queued; a background thread writes
+ * the queue to SQLite in one transaction every
+ * {@link RepositoryConfig#getWriteBehindFlushIntervalMillis() flush interval}, in the
+ * order the changes were made. Ids are assigned here and written explicitly.
+ *
+ * {@link #closeConnections()} (or the JVM shutdown hook, if close is never called)
+ * flushes what is still queued, so a clean shutdown loses nothing; a crash loses at
+ * most the last interval. Each change runs under its own savepoint: one the database
+ * rejects (say, a UNIQUE clash with a row another process wrote) is rolled back alone,
+ * logged and kept in {@link #getRejectedChanges()}, and the rest still commit. If the
+ * flush as a whole fails (database busy, connection lost), the queue is kept and the
+ * next flush retries it.
+ *
+ * With a {@link RepositoryConfig#getSnapshotPath() snapshot path} the state is also
+ * dumped to a {@link UserSnapshot} on close. The next start maps that file and serves
+ * reads from it at once, while a background thread checks it against the database's
+ * change marker and fills the maps; writes wait until that is done. An outdated or
+ * damaged snapshot is dropped and the data is loaded from SQLite instead.
+ *
+ * The no-argument constructor gives a purely in-memory repository without SQLite,
+ * e.g. for tests.
+ */
+public class InMemoryUserRepository implements UserRepository {
+    private static final Logger log = LoggerFactory.getLogger(InMemoryUserRepository.class);
+    private static final String ADMIN = "ADMIN";
+
+    private final SqliteUserRepository store;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile boolean ready;
+    private volatile UserSnapshot warmSnapshot;
+    private volatile RuntimeException loadFailure;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private final Object flushLock = new Object();
+    private final ConcurrentLinkedQueue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong flushedChanges = new AtomicLong();
+    private final List<RejectedChange> rejectedChanges = new CopyOnWriteArrayList<>();
+
+    // Point lookups go to the hash map; the skip list only serves ordered listings.
+    private final Map<Long, UserRow> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, UserRow> usersInOrder = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String> roleNames = new ConcurrentSkipListMap<>();
+    private final Map<Long, Integer> memberCounts = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Permission> permissions = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<Long>> rolePermissions = new ConcurrentHashMap<>();
+    private final AtomicLong lastUserId = new AtomicLong();
+    private final AtomicLong lastRoleId = new AtomicLong();
+    private final AtomicLong lastPermissionId = new AtomicLong();
+    // Built on the first search, then kept current by index()/unindex().
+    private volatile UserSearchIndex searchIndex;
+
+    /** Memory only: starts empty with the default roles and persists nothing. */
+    public InMemoryUserRepository() {
+        this.store = null;
+        this.snapshotPath = null;
+        this.flusher = null;
+        this.shutdownHook = null;
+        seedDefaultRoles();
+        markLoaded();
+    }
+
+    /**
+     * Loads the database behind {@code config} and writes changes back to it. The
+     * store's uniqueness filters are switched off (on a copy of the config); the
+     * in-memory indexes replace them.
+     */
+    public InMemoryUserRepository(RepositoryConfig config) {
+        RepositoryConfig storeConfig = config.copy();
+        storeConfig.setUniquenessFilterEnabled(false);
+        this.store = new SqliteUserRepository(storeConfig);
+        this.snapshotPath = config.getSnapshotPath() != null ? Path.of(config.getSnapshotPath()) : null;
+        UserSnapshot snapshot = openSnapshot();
+        if (snapshot == null) {
+            load();
+            markLoaded();
+        } else {
+            warmSnapshot = snapshot;
+            Thread loader = new Thread(() -> warmStart(snapshot), "snapshot-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        long interval = config.getWriteBehindFlushIntervalMillis();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(this::shutdown, "write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /** True once the maps are loaded; until then reads come from the snapshot. */
+    public boolean isLoaded() {
+        return ready;
+    }
+
+    /** Changes applied in memory but not yet written to SQLite. */
+    public int getPendingWrites() {
+        return pending.size();
+    }
+
+    public long getFlushedChanges() {
+        return flushedChanges.get();
+    }
+
+    /** Changes the database refused during this run; they live only in memory. */
+    public List<RejectedChange> getRejectedChanges() {
+        return List.copyOf(rejectedChanges);
+    }
+
+    /**
+     * Writes all queued changes in one transaction and returns how many were written.
+     * A change the database rejects is rolled back to its savepoint, logged and moved
+     * to {@link #getRejectedChanges()}. If the transaction itself fails, nothing is
+     * removed from the queue.
+     */
+    public int flush() {
+        if (store == null) {
+            return 0;
+        }
+        synchronized (flushLock) {
+            // Only this method removes from the queue, so the snapshot is its head.
+            List<Change> batch = new ArrayList<>(pending);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            List<RejectedChange> rejected = new ArrayList<>();
+            try (Connection conn = store.getWriteConnectionPool().getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    for (Change change : batch) {
+                        RejectedChange failure = applyAlone(conn, change);
+                        if (failure != null) {
+                            rejected.add(failure);
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Database error: " + e.getMessage(), e);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                pending.poll();
+            }
+            for (RejectedChange failure : rejected) {
+                log.error("Write-behind: database rejected '{}', keeping it in memory only: {}",
+                        failure.change(), failure.error());
+            }
+            rejectedChanges.addAll(rejected);
+            int written = batch.size() - rejected.size();
+            flushedChanges.addAndGet(written);
+            return written;
+        }
+    }
+
+    /**
+     * Runs one change under a savepoint. Returns null on success, or the rejection if
+     * the database refused it. BUSY/LOCKED is not a rejection and fails the whole flush.
+     */
+    private static RejectedChange applyAlone(Connection conn, Change change) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            change.statement().apply(conn);
+            conn.releaseSavepoint(savepoint);
+            return null;
+        } catch (SQLException e) {
+            if (BusyRetry.isBusy(e)) {
+                throw e;
+            }
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+            return new RejectedChange(change.description(), e.getMessage());
+        } catch (RuntimeException e) {
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+            return new RejectedChange(change.description(), String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, {} changes stay queued: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void closeConnections() {
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // Already shutting down; the hook does the same work.
+            }
+        }
+        shutdown();
+    }
+
+    private void shutdown() {
+        if (store == null || !closed.compareAndSet(false, true)) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            boolean flushed = false;
+            try {
+                int written = flush();
+                flushed = true;
+                log.debug("Write-behind: {} changes written on close", written);
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush on close failed, {} changes were not written: {}",
+                        pending.size(), e.getMessage());
+                for (Change change : pending) {
+                    log.error("Not written: {}", change.description());
+                }
+            }
+            if (!rejectedChanges.isEmpty()) {
+                log.error("Write-behind: {} changes were rejected by the database during this run", rejectedChanges.size());
+            }
+            if (snapshotPath != null && ready) {
+                if (flushed && rejectedChanges.isEmpty()) {
+                    try {
+                        writeSnapshot();
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Could not write snapshot {}: {}", snapshotPath, e.getMessage());
+                    }
+                } else {
+                    // A snapshot would carry changes the database does not have.
+                    log.warn("Not writing snapshot {}: memory and database differ", snapshotPath);
+                }
+            }
+        } finally {
+            store.closeConnections();
+        }
+    }
+
+    /**
+     * Dumps the current state, stamped with the database's change marker, to the
+     * configured snapshot file. Flushes first and blocks writers while it runs.
+     */
+    public void writeSnapshot() throws IOException {
+        if (store == null || snapshotPath == null) {
+            throw new IllegalStateException("Kein Snapshot-Pfad konfiguriert");
+        }
+        awaitLoaded();
+        synchronized (writeLock) {
+            flush();
+            try (UserSnapshot.Writer writer = new UserSnapshot.Writer(snapshotPath, store.getDataVersion())) {
+                for (Map.Entry<Long, String> role : roleNames.entrySet()) {
+                    writer.role(role.getKey(), role.getValue(), memberCounts.getOrDefault(role.getKey(), 0));
+                }
+                for (Permission permission : permissions.values()) {
+                    writer.permission(permission.getId(), permission.getName(), permission.getDescription());
+                }
+                for (Long roleId : roleNames.keySet()) {
+                    for (Long permissionId : rolePermissions.getOrDefault(roleId, Set.of())) {
+                        writer.grant(roleId, permissionId);
+                    }
+                }
+                for (UserRow row : usersInOrder.values()) {
+                    writer.user(row.id(), row.username(), row.email(), row.roleId());
+                }
+                writer.commit(lastUserId.get(), lastRoleId.get(), lastPermissionId.get());
+            }
+        }
+        log.info("Wrote snapshot {} with {} users", snapshotPath, usersById.size());
+    }
+
+    private UserSnapshot openSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return null;
+        }
+        try {
+            return UserSnapshot.open(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private void warmStart(UserSnapshot snapshot) {
+        try {
+            long marker = store.getDataVersion();
+            if (snapshot.getChangeMarker() == marker && snapshot.verify()) {
+                loadFrom(snapshot);
+                log.info("Warm start from {}: {} users", snapshot.getFile(), snapshot.getUserCount());
+            } else {
+                log.warn("Snapshot {} is outdated or damaged (marker {}, database {}), loading from the database",
+                        snapshot.getFile(), snapshot.getChangeMarker(), marker);
+                warmSnapshot = null;
+                load();
+            }
+            markLoaded();
+        } catch (RuntimeException e) {
+            log.error("Loading users into memory failed", e);
+            loadFailure = e;
+            warmSnapshot = null;
+            loaded.countDown();
+        }
+    }
+
+    private void loadFrom(UserSnapshot snapshot) {
+        for (Role role : snapshot.getRoles()) {
+            roleNames.put(role.getId(), role.getName());
+            memberCounts.put(role.getId(), 0);
+        }
+        for (Permission permission : snapshot.getPermissions()) {
+            permissions.put(permission.getId(), permission);
+        }
+        snapshot.getRolePermissionIds().forEach((roleId, permissionIds) ->
+                rolePermissions.computeIfAbsent(roleId, id -> new ConcurrentSkipListSet<>()).addAll(permissionIds));
+        for (int i = 0; i < snapshot.getUserCount(); i++) {
+            User user = snapshot.userAt(i);
+            index(new UserRow(user.getId(), user.getUsername(), user.getEmail(), user.getRole().getId()));
+        }
+        lastUserId.set(snapshot.getLastUserId());
+        lastRoleId.set(snapshot.getLastRoleId());
+        lastPermissionId.set(snapshot.getLastPermissionId());
+    }
+
+    private void markLoaded() {
+        ready = true;
+        warmSnapshot = null;
+        loaded.countDown();
+    }
+
+    private void awaitLoaded() {
+        if (ready) {
+            return;
+        }
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unterbrochen beim Laden der Benutzerdaten", e);
+        }
+        if (loadFailure != null) {
+            throw new IllegalStateException("Benutzerdaten konnten nicht geladen werden", loadFailure);
+        }
+    }
+
+    /** The snapshot to answer a read from while the maps are loading, else null (waits if needed). */
+    private UserSnapshot warm() {
+        if (ready) {
+            return null;
+        }
+        UserSnapshot snapshot = warmSnapshot;
+        if (snapshot == null) {
+            awaitLoaded();
+        }
+        return snapshot;
+    }
+
+    private void load() {
+        for (Role role : store.getAllRoles()) {
+            roleNames.put(role.getId(), role.getName());
+            memberCounts.put(role.getId(), 0);
+        }
+        for (Permission permission : store.getAllPermissions()) {
+            permissions.put(permission.getId(), permission);
+        }
+        store.getRolePermissionIds().forEach((roleId, permissionIds) ->
+                rolePermissions.computeIfAbsent(roleId, id -> new ConcurrentSkipListSet<>()).addAll(permissionIds));
+        try (Stream<User> users = store.streamAllUsers()) {
+            users.forEach(user -> index(new UserRow(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getRole().getId())));
+        }
+
+        // AUTOINCREMENT never reuses ids, not even those of deleted rows.
+        try (Connection conn = store.getWriteConnectionPool().getConnection()) {
+            lastUserId.set(Math.max(sequence(conn, "users"), usersInOrder.isEmpty() ? 0 : usersInOrder.lastKey()));
+            lastRoleId.set(Math.max(sequence(conn, "roles"), roleNames.isEmpty() ? 0 : roleNames.lastKey()));
+            lastPermissionId.set(Math.max(sequence(conn, "permissions"),
+                    permissions.isEmpty() ? 0 : permissions.lastKey()));
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+        log.info("Loaded {} users, {} roles and {} permissions into memory",
+                usersById.size(), roleNames.size(), permissions.size());
+    }
+
+    private void seedDefaultRoles() {
+        for (String name : List.of(ADMIN, "USER")) {
+            long id = lastRoleId.incrementAndGet();
+            roleNames.put(id, name);
+            memberCounts.put(id, 0);
+        }
+    }
+
+    private static long sequence(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UserQueries.SEQUENCE_VALUE)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Reads
+
+    @Override
+    public User findByUsername(String username) {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.findByUsername(username);
+        }
+        Long id = username == null ? null : idsByUsername.get(username);
+        UserRow row = id == null ? null : usersById.get(id);
+        return row != null && row.username().equals(username) ? toUser(row) : null;
+    }
+
+    @Override
+    public User findById(Long id) {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return id == null ? null : warm.findById(id);
+        }
+        UserRow row = id == null ? null : usersById.get(id);
+        return row == null ? null : toUser(row);
+    }
+
+    @Override
+    public Map<Long, Long> findRoleIdsByUserIds(Collection<Long> userIds) {
+        UserSnapshot warm = warm();
+        Map<Long, Long> roleIds = new HashMap<>();
+        for (Long id : userIds) {
+            if (id == null) {
+                continue;
+            }
+            if (warm != null) {
+                Long roleId = warm.findRoleId(id);
+                if (roleId != null) {
+                    roleIds.put(id, roleId);
+                }
+                continue;
+            }
+            UserRow row = usersById.get(id);
+            if (row != null) {
+                roleIds.put(id, row.roleId());
+            }
+        }
+        return roleIds;
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.existsByUsername(username);
+        }
+        return username != null && idsByUsername.containsKey(username);
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            List<User> users = new ArrayList<>(warm.getUserCount());
+            for (int i = 0; i < warm.getUserCount(); i++) {
+                users.add(warm.userAt(i));
+            }
+            return users;
+        }
+        List<User> users = new ArrayList<>(usersInOrder.size());
+        for (UserRow row : usersInOrder.values()) {
+            users.add(toUser(row));
+        }
+        return users;
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return IntStream.range(0, warm.getUserCount()).mapToObj(warm::userAt);
+        }
+        return usersInOrder.values().stream().map(this::toUser);
+    }
+
+    @Override
+    public List<User> findUsersPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit muss größer als 0 sein");
+        }
+        List<User> users = new ArrayList<>(Math.min(limit, 1_024));
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            for (int i = warm.indexAfter(afterId != null ? afterId : 0L); i < warm.getUserCount() && users.size() < limit; i++) {
+                users.add(warm.userAt(i));
+            }
+            return users;
+        }
+        for (UserRow row : usersInOrder.tailMap(afterId != null ? afterId : 0L, false).values()) {
+            if (users.size() == limit) {
+                break;
+            }
+            users.add(toUser(row));
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> searchUsers(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Suchbegriff darf nicht null sein");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit muss größer als 0 sein");
+        }
+        awaitLoaded();
+        UserSearchIndex index = searchIndex;
+        if (index == null) {
+            synchronized (writeLock) {
+                if (searchIndex == null) {
+                    UserSearchIndex.Builder builder = new UserSearchIndex.Builder();
+                    for (UserRow row : usersInOrder.values()) {
+                        builder.add(row.id(), row.username(), row.email());
+                    }
+                    UserSearchIndex built = UserSearchIndex.loading();
+                    built.load(builder);
+                    searchIndex = built;
+                }
+                index = searchIndex;
+            }
+        }
+
+        long[] ids = index.search(prefix, limit);
+        List<User> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            UserRow row = usersById.get(id);
+            if (row != null) {
+                users.add(toUser(row));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<Role> getAllRoles() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.getRoles();
+        }
+        List<Role> roles = new ArrayList<>();
+        roleNames.forEach((id, name) -> roles.add(new Role(id, name)));
+        return roles;
+    }
+
+    @Override
+    public Role getRoleById(Long roleId) {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            Role role = roleId == null ? null : warm.getRoleWithPermissions(roleId);
+            return role == null ? null : new Role(role.getId(), role.getName());
+        }
+        String name = roleId == null ? null : roleNames.get(roleId);
+        return name == null ? null : new Role(roleId, name);
+    }
+
+    @Override
+    public Role getRoleWithPermissions(Long roleId) {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return roleId == null ? null : warm.getRoleWithPermissions(roleId);
+        }
+        Role role = getRoleById(roleId);
+        if (role == null) {
+            return null;
+        }
+        for (Long permissionId : rolePermissions.getOrDefault(roleId, Set.of())) {
+            Permission permission = permissions.get(permissionId);
+            if (permission != null) {
+                role.getPermissions().add(copy(permission));
+            }
+        }
+        return role;
+    }
+
+    @Override
+    public Map<String, Integer> countUsersByRole() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.countUsersByRole();
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        roleNames.forEach((id, name) -> counts.put(name, memberCounts.getOrDefault(id, 0)));
+        return counts;
+    }
+
+    @Override
+    public List<Permission> getAllPermissions() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.getPermissions();
+        }
+        List<Permission> result = new ArrayList<>(permissions.size());
+        for (Permission permission : permissions.values()) {
+            result.add(copy(permission));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, List<Long>> getRolePermissionIds() {
+        UserSnapshot warm = warm();
+        if (warm != null) {
+            return warm.getRolePermissionIds();
+        }
+        Map<Long, List<Long>> result = new HashMap<>();
+        rolePermissions.forEach((roleId, permissionIds) -> {
+            if (!permissionIds.isEmpty()) {
+                result.put(roleId, new ArrayList<>(permissionIds));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void checkDatabase() {
+        awaitLoaded();
+        System.out.println("\n=== Datenbank Status ===");
+        System.out.println("\nRollen:");
+        roleNames.forEach((id, name) -> System.out.println("ID: " + id + ", Name: " + name));
+        System.out.println("\nBenutzer:");
+        for (UserRow row : usersInOrder.values()) {
+            System.out.println("ID: " + row.id() + ", Username: " + row.username() + ", Email: " + row.email()
+                    + ", Role: " + roleNames.get(row.roleId()));
+        }
+        System.out.println("\nBerechtigungen:");
+        for (Permission p : permissions.values()) {
+            System.out.println("ID: " + p.getId() + ", Name: " + p.getName() + ", Description: " + p.getDescription());
+        }
+        System.out.println("\nRollen-Berechtigungen:");
+        rolePermissions.forEach((roleId, permissionIds) -> {
+            for (Long permissionId : permissionIds) {
+                Permission p = permissions.get(permissionId);
+                System.out.println("Role: " + roleNames.get(roleId) + ", Permission: " + (p != null ? p.getName() : null));
+            }
+        });
+        if (store != null) {
+            System.out.println("\nNoch nicht geschriebene Änderungen: " + pending.size());
+            System.out.println("Von der Datenbank abgelehnte Änderungen: " + rejectedChanges.size());
+        }
+    }
+
+    // Writes
+
+    @Override
+    public User saveUser(User user) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            checkAvailable(user.getUsername(), user.getEmail(), null, "");
+            long roleId = requireRole(user.getRole());
+            UserRow row = new UserRow(lastUserId.incrementAndGet(), user.getUsername(), user.getEmail(), roleId);
+            index(row);
+            pending.add(insertRow(row));
+            user.setId(row.id());
+            return toUser(row);
+        }
+    }
+
+    @Override
+    public User updateUser(User user) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            checkAvailable(user.getUsername(), user.getEmail(), user.getId(), "!");
+            UserRow current = user.getId() == null ? null : usersById.get(user.getId());
+            long roleId = requireRole(user.getRole());
+            if (current != null && isAdmin(current.roleId()) && !isAdmin(roleId) && adminCount() <= 1) {
+                throw new IllegalStateException("Der letzte Admin-Benutzer kann nicht zu einem normalen Benutzer geändert werden!");
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("Benutzer mit ID " + user.getId() + " nicht gefunden.");
+            }
+            UserRow row = new UserRow(current.id(), user.getUsername(), user.getEmail(), roleId);
+            unindex(current);
+            index(row);
+            pending.add(updateRow(row));
+            return user;
+        }
+    }
+
+    @Override
+    public void deleteUser(Long userId) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            UserRow current = userId == null ? null : usersById.get(userId);
+            if (current != null && isAdmin(current.roleId()) && adminCount() <= 1) {
+                throw new IllegalStateException("Der letzte Admin-Benutzer kann nicht gelöscht werden!");
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("Benutzer mit ID " + userId + " nicht gefunden.");
+            }
+            unindex(current);
+            pending.add(deleteRow(current.id()));
+        }
+    }
+
+    @Override
+    public BatchResult<User> saveUsers(Collection<User> users) {
+        awaitLoaded();
+        BatchResult<User> result = new BatchResult<>();
+        synchronized (writeLock) {
+            int i = 0;
+            for (User user : users) {
+                Long roleId = user.getRole() != null ? user.getRole().getId() : null;
+                if (idsByUsername.containsKey(user.getUsername())) {
+                    result.addFailure(i, user, "Username existiert bereits");
+                } else if (idsByEmail.containsKey(user.getEmail())) {
+                    result.addFailure(i, user, "Email existiert bereits");
+                } else if (roleId == null || !roleNames.containsKey(roleId)) {
+                    result.addFailure(i, user, "Rolle nicht gefunden");
+                } else {
+                    UserRow row = new UserRow(lastUserId.incrementAndGet(), user.getUsername(), user.getEmail(), roleId);
+                    index(row);
+                    pending.add(insertRow(row));
+                    result.addSuccess(i, toUser(row));
+                }
+                i++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<User> updateUsers(Collection<User> users) {
+        awaitLoaded();
+        BatchResult<User> result = new BatchResult<>();
+        synchronized (writeLock) {
+            int i = 0;
+            for (User user : users) {
+                Long roleId = user.getRole() != null ? user.getRole().getId() : null;
+                UserRow current = user.getId() == null ? null : usersById.get(user.getId());
+                Long usernameOwner = idsByUsername.get(user.getUsername());
+                Long emailOwner = idsByEmail.get(user.getEmail());
+
+                if (current == null) {
+                    result.addFailure(i, user, "Benutzer mit ID " + user.getId() + " nicht gefunden.");
+                } else if (usernameOwner != null && !usernameOwner.equals(user.getId())) {
+                    result.addFailure(i, user, "Username existiert bereits!");
+                } else if (emailOwner != null && !emailOwner.equals(user.getId())) {
+                    result.addFailure(i, user, "Email existiert bereits!");
+                } else if (roleId == null || !roleNames.containsKey(roleId)) {
+                    result.addFailure(i, user, "Rolle nicht gefunden");
+                } else if (isAdmin(current.roleId()) && !isAdmin(roleId) && adminCount() <= 1) {
+                    result.addFailure(i, user, "Der letzte Admin-Benutzer kann nicht zu einem normalen Benutzer geändert werden!");
+                } else {
+                    UserRow row = new UserRow(current.id(), user.getUsername(), user.getEmail(), roleId);
+                    unindex(current);
+                    index(row);
+                    pending.add(updateRow(row));
+                    result.addSuccess(i, toUser(row));
+                }
+                i++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Long> deleteUsers(Collection<Long> userIds) {
+        awaitLoaded();
+        BatchResult<Long> result = new BatchResult<>();
+        synchronized (writeLock) {
+            int i = 0;
+            for (Long userId : userIds) {
+                UserRow current = userId == null ? null : usersById.get(userId);
+                if (current == null) {
+                    result.addFailure(i, userId, "Benutzer mit ID " + userId + " nicht gefunden.");
+                } else if (isAdmin(current.roleId()) && adminCount() <= 1) {
+                    result.addFailure(i, userId, "Der letzte Admin-Benutzer kann nicht gelöscht werden!");
+                } else {
+                    unindex(current);
+                    pending.add(deleteRow(current.id()));
+                    result.addSuccess(i, userId);
+                }
+                i++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Role saveRole(Role role) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            if (roleNames.containsValue(role.getName())) {
+                throw new IllegalArgumentException("Rolle existiert bereits");
+            }
+            long id = lastRoleId.incrementAndGet();
+            String name = role.getName();
+            roleNames.put(id, name);
+            memberCounts.put(id, 0);
+            pending.add(new Change("insert role " + id + " " + name,
+                    conn -> execute(conn, UserQueries.INSERT_ROLE_WITH_ID, id, name)));
+            role.setId(id);
+            return role;
+        }
+    }
+
+    @Override
+    public Permission createPermission(String name, String description) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            for (Permission existing : permissions.values()) {
+                if (existing.getName().equals(name)) {
+                    throw new IllegalArgumentException("Berechtigung existiert bereits");
+                }
+            }
+            long id = lastPermissionId.incrementAndGet();
+            permissions.put(id, new Permission(id, name, description));
+            pending.add(new Change("insert permission " + id + " " + name,
+                    conn -> execute(conn, UserQueries.INSERT_PERMISSION_WITH_ID, id, name, description)));
+            return new Permission(id, name, description);
+        }
+    }
+
+    @Override
+    public void addPermissionToRole(Long roleId, Long permissionId) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            if (!roleNames.containsKey(roleId) || !permissions.containsKey(permissionId)) {
+                throw new IllegalArgumentException("Rolle oder Berechtigung nicht gefunden");
+            }
+            if (rolePermissions.computeIfAbsent(roleId, id -> new ConcurrentSkipListSet<>()).add(permissionId)) {
+                pending.add(new Change("grant permission " + permissionId + " to role " + roleId,
+                        conn -> execute(conn, UserQueries.INSERT_ROLE_PERMISSION, roleId, permissionId)));
+            }
+        }
+    }
+
+    @Override
+    public void removePermissionFromRole(Long roleId, Long permissionId) {
+        awaitLoaded();
+        synchronized (writeLock) {
+            Set<Long> permissionIds = rolePermissions.get(roleId);
+            if (permissionIds != null && permissionIds.remove(permissionId)) {
+                pending.add(new Change("revoke permission " + permissionId + " from role " + roleId,
+                        conn -> execute(conn, UserQueries.DELETE_ROLE_PERMISSION, roleId, permissionId)));
+            }
+        }
+    }
+
+    /** Drops queued changes, resets the database (if any) and reloads it. */
+    @Override
+    public void resetDatabase() {
+        awaitLoaded();
+        synchronized (writeLock) {
+            synchronized (flushLock) {
+                pending.clear();
+                rejectedChanges.clear();
+                searchIndex = null;
+                usersById.clear();
+                usersInOrder.clear();
+                idsByUsername.clear();
+                idsByEmail.clear();
+                roleNames.clear();
+                memberCounts.clear();
+                permissions.clear();
+                rolePermissions.clear();
+                lastUserId.set(0);
+                lastRoleId.set(0);
+                lastPermissionId.set(0);
+                if (store == null) {
+                    seedDefaultRoles();
+                } else {
+                    store.resetDatabase();
+                    load();
+                }
+            }
+        }
+    }
+
+    // In-memory state; callers hold writeLock (or are the constructor).
+
+    private void index(UserRow row) {
+        usersById.put(row.id(), row);
+        usersInOrder.put(row.id(), row);
+        idsByUsername.put(row.username(), row.id());
+        idsByEmail.put(row.email(), row.id());
+        memberCounts.merge(row.roleId(), 1, Integer::sum);
+        UserSearchIndex search = searchIndex;
+        if (search != null) {
+            search.add(row.id(), row.username(), row.email());
+        }
+    }
+
+    private void unindex(UserRow row) {
+        usersById.remove(row.id());
+        usersInOrder.remove(row.id());
+        idsByUsername.remove(row.username(), row.id());
+        idsByEmail.remove(row.email(), row.id());
+        memberCounts.merge(row.roleId(), -1, Integer::sum);
+        UserSearchIndex search = searchIndex;
+        if (search != null) {
+            search.remove(row.id(), row.username(), row.email());
+        }
+    }
+
+    private void checkAvailable(String username, String email, Long ownId, String suffix) {
+        Long usernameOwner = username == null ? null : idsByUsername.get(username);
+        if (usernameOwner != null && !usernameOwner.equals(ownId)) {
+            throw new IllegalArgumentException("Username existiert bereits" + suffix);
+        }
+        Long emailOwner = email == null ? null : idsByEmail.get(email);
+        if (emailOwner != null && !emailOwner.equals(ownId)) {
+            throw new IllegalArgumentException("Email existiert bereits" + suffix);
+        }
+    }
+
+    private long requireRole(Role role) {
+        if (role == null || role.getId() == null || !roleNames.containsKey(role.getId())) {
+            throw new IllegalArgumentException("Rolle nicht gefunden");
+        }
+        return role.getId();
+    }
+
+    private boolean isAdmin(long roleId) {
+        return ADMIN.equals(roleNames.get(roleId));
+    }
+
+    private int adminCount() {
+        int admins = 0;
+        for (Map.Entry<Long, String> role : roleNames.entrySet()) {
+            if (ADMIN.equals(role.getValue())) {
+                admins += memberCounts.getOrDefault(role.getKey(), 0);
+            }
+        }
+        return admins;
+    }
+
+    private User toUser(UserRow row) {
+        return new User(row.id(), row.username(), row.email(), new Role(row.roleId(), roleNames.get(row.roleId())));
+    }
+
+    private static Permission copy(Permission permission) {
+        return new Permission(permission.getId(), permission.getName(), permission.getDescription());
+    }
+
+    // Write-behind statements
+
+    private static Change insertRow(UserRow row) {
+        return new Change("insert user " + row.id() + " " + row.username(), conn -> execute(conn,
+                UserQueries.INSERT_USER_WITH_ID, row.id(), row.username(), row.email(), row.roleId()));
+    }
+
+    private static Change updateRow(UserRow row) {
+        return new Change("update user " + row.id() + " " + row.username(), conn -> execute(conn,
+                UserQueries.UPDATE_USER, row.username(), row.email(), row.roleId(), row.id()));
+    }
+
+    private static Change deleteRow(long userId) {
+        return new Change("delete user " + userId, conn -> execute(conn, UserQueries.DELETE_USER, userId));
+    }
+
+    private static void execute(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private record UserRow(long id, String username, String email, long roleId) {
+    }
+
+    /** A queued change the database refused, with the database's error message. */
+    public record RejectedChange(String change, String error) {
+    }
+
+    private record Change(String description, SqlWrite statement) {
+    }
+
+    @FunctionalInterface
+    private interface SqlWrite {
+        void apply(Connection conn) throws SQLException;
+    }
+}
@@ -0,0 +1,401 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
+import com.usermanagement.model.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Wraps any {@link UserRepository} and records latency, calls, errors and rows of every
+ * operation under "repository.&lt;method&gt;". Writes are timed including the wait for
+ * the SQLite write queue or, in memory, for the write lock. Streaming, maintenance and
+ * lifecycle calls are passed through untimed.
+ */
+public class InstrumentedUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final Metrics metrics;
+    private final OperationStats findByUsername;
+    private final OperationStats findById;
+    private final OperationStats findRoleIdsByUserIds;
+    private final OperationStats saveRole;
+    private final OperationStats existsByUsername;
+    private final OperationStats saveUser;
+    private final OperationStats deleteUser;
+    private final OperationStats updateUser;
+    private final OperationStats saveUsers;
+    private final OperationStats updateUsers;
+    private final OperationStats deleteUsers;
+    private final OperationStats findAllUsers;
+    private final OperationStats findUsersPage;
+    private final OperationStats searchUsers;
+    private final OperationStats createPermission;
+    private final OperationStats getAllPermissions;
+    private final OperationStats getAllRoles;
+    private final OperationStats getRoleById;
+    private final OperationStats countUsersByRole;
+    private final OperationStats getRoleWithPermissions;
+    private final OperationStats getRolePermissionIds;
+    private final OperationStats addPermissionToRole;
+    private final OperationStats removePermissionFromRole;
+
+    public InstrumentedUserRepository(UserRepository delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.findByUsername = metrics.operation("repository.findByUsername");
+        this.findById = metrics.operation("repository.findById");
+        this.findRoleIdsByUserIds = metrics.operation("repository.findRoleIdsByUserIds");
+        this.saveRole = metrics.operation("repository.saveRole");
+        this.existsByUsername = metrics.operation("repository.existsByUsername");
+        this.saveUser = metrics.operation("repository.saveUser");
+        this.deleteUser = metrics.operation("repository.deleteUser");
+        this.updateUser = metrics.operation("repository.updateUser");
+        this.saveUsers = metrics.operation("repository.saveUsers");
+        this.updateUsers = metrics.operation("repository.updateUsers");
+        this.deleteUsers = metrics.operation("repository.deleteUsers");
+        this.findAllUsers = metrics.operation("repository.findAllUsers");
+        this.findUsersPage = metrics.operation("repository.findUsersPage");
+        this.searchUsers = metrics.operation("repository.searchUsers");
+        this.createPermission = metrics.operation("repository.createPermission");
+        this.getAllPermissions = metrics.operation("repository.getAllPermissions");
+        this.getAllRoles = metrics.operation("repository.getAllRoles");
+        this.getRoleById = metrics.operation("repository.getRoleById");
+        this.countUsersByRole = metrics.operation("repository.countUsersByRole");
+        this.getRoleWithPermissions = metrics.operation("repository.getRoleWithPermissions");
+        this.getRolePermissionIds = metrics.operation("repository.getRolePermissionIds");
+        this.addPermissionToRole = metrics.operation("repository.addPermissionToRole");
+        this.removePermissionFromRole = metrics.operation("repository.removePermissionFromRole");
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public UserRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        long start = findByUsername.start();
+        try {
+            User user = delegate.findByUsername(username);
+            findByUsername.success(start, user == null ? 0 : 1);
+            return user;
+        } catch (RuntimeException e) {
+            findByUsername.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        long start = findById.start();
+        try {
+            User user = delegate.findById(id);
+            findById.success(start, user == null ? 0 : 1);
+            return user;
+        } catch (RuntimeException e) {
+            findById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Long, Long> findRoleIdsByUserIds(Collection<Long> userIds) {
+        long start = findRoleIdsByUserIds.start();
+        try {
+            Map<Long, Long> roleIds = delegate.findRoleIdsByUserIds(userIds);
+            findRoleIdsByUserIds.success(start, roleIds.size());
+            return roleIds;
+        } catch (RuntimeException e) {
+            findRoleIdsByUserIds.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Role saveRole(Role role) {
+        long start = saveRole.start();
+        try {
+            Role saved = delegate.saveRole(role);
+            saveRole.success(start, 1);
+            return saved;
+        } catch (RuntimeException e) {
+            saveRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        long start = existsByUsername.start();
+        try {
+            boolean exists = delegate.existsByUsername(username);
+            existsByUsername.success(start, exists ? 1 : 0);
+            return exists;
+        } catch (RuntimeException e) {
+            existsByUsername.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User saveUser(User user) {
+        long start = saveUser.start();
+        try {
+            User saved = delegate.saveUser(user);
+            saveUser.success(start, 1);
+            return saved;
+        } catch (RuntimeException e) {
+            saveUser.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteUser(Long userId) {
+        long start = deleteUser.start();
+        try {
+            delegate.deleteUser(userId);
+            deleteUser.success(start, 1);
+        } catch (RuntimeException e) {
+            deleteUser.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User updateUser(User user) {
+        long start = updateUser.start();
+        try {
+            User updated = delegate.updateUser(user);
+            updateUser.success(start, 1);
+            return updated;
+        } catch (RuntimeException e) {
+            updateUser.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<User> saveUsers(Collection<User> users) {
+        long start = saveUsers.start();
+        try {
+            BatchResult<User> result = delegate.saveUsers(users);
+            saveUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            saveUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<User> updateUsers(Collection<User> users) {
+        long start = updateUsers.start();
+        try {
+            BatchResult<User> result = delegate.updateUsers(users);
+            updateUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            updateUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<Long> deleteUsers(Collection<Long> userIds) {
+        long start = deleteUsers.start();
+        try {
+            BatchResult<Long> result = delegate.deleteUsers(userIds);
+            deleteUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            deleteUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        long start = findAllUsers.start();
+        try {
+            List<User> users = delegate.findAllUsers();
+            findAllUsers.success(start, users.size());
+            return users;
+        } catch (RuntimeException e) {
+            findAllUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> findUsersPage(Long afterId, int limit) {
+        long start = findUsersPage.start();
+        try {
+            List<User> users = delegate.findUsersPage(afterId, limit);
+            findUsersPage.success(start, users.size());
+            return users;
+        } catch (RuntimeException e) {
+            findUsersPage.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> searchUsers(String prefix, int limit) {
+        long start = searchUsers.start();
+        try {
+            List<User> users = delegate.searchUsers(prefix, limit);
+            searchUsers.success(start, users.size());
+            return users;
+        } catch (RuntimeException e) {
+            searchUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Permission createPermission(String name, String description) {
+        long start = createPermission.start();
+        try {
+            Permission permission = delegate.createPermission(name, description);
+            createPermission.success(start, permission == null ? 0 : 1);
+            return permission;
+        } catch (RuntimeException e) {
+            createPermission.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Permission> getAllPermissions() {
+        long start = getAllPermissions.start();
+        try {
+            List<Permission> permissions = delegate.getAllPermissions();
+            getAllPermissions.success(start, permissions.size());
+            return permissions;
+        } catch (RuntimeException e) {
+            getAllPermissions.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Role> getAllRoles() {
+        long start = getAllRoles.start();
+        try {
+            List<Role> roles = delegate.getAllRoles();
+            getAllRoles.success(start, roles.size());
+            return roles;
+        } catch (RuntimeException e) {
+            getAllRoles.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Role getRoleById(Long roleId) {
+        long start = getRoleById.start();
+        try {
+            Role role = delegate.getRoleById(roleId);
+            getRoleById.success(start, role == null ? 0 : 1);
+            return role;
+        } catch (RuntimeException e) {
+            getRoleById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> countUsersByRole() {
+        long start = countUsersByRole.start();
+        try {
+            Map<String, Integer> counts = delegate.countUsersByRole();
+            countUsersByRole.success(start, counts.size());
+            return counts;
+        } catch (RuntimeException e) {
+            countUsersByRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Role getRoleWithPermissions(Long roleId) {
+        long start = getRoleWithPermissions.start();
+        try {
+            Role role = delegate.getRoleWithPermissions(roleId);
+            getRoleWithPermissions.success(start, role == null ? 0 : 1 + role.getPermissions().size());
+            return role;
+        } catch (RuntimeException e) {
+            getRoleWithPermissions.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Long, List<Long>> getRolePermissionIds() {
+        long start = getRolePermissionIds.start();
+        try {
+            Map<Long, List<Long>> ids = delegate.getRolePermissionIds();
+            getRolePermissionIds.success(start, ids.size());
+            return ids;
+        } catch (RuntimeException e) {
+            getRolePermissionIds.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void addPermissionToRole(Long roleId, Long permissionId) {
+        long start = addPermissionToRole.start();
+        try {
+            delegate.addPermissionToRole(roleId, permissionId);
+            addPermissionToRole.success(start, 1);
+        } catch (RuntimeException e) {
+            addPermissionToRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removePermissionFromRole(Long roleId, Long permissionId) {
+        long start = removePermissionFromRole.start();
+        try {
+            delegate.removePermissionFromRole(roleId, permissionId);
+            removePermissionFromRole.success(start, 1);
+        } catch (RuntimeException e) {
+            removePermissionFromRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        return delegate.streamAllUsers();
+    }
+
+    @Override
+    public void checkDatabase() {
+        delegate.checkDatabase();
+    }
+
+    @Override
+    public void resetDatabase() {
+        delegate.resetDatabase();
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return delegate.getMaxConcurrency();
+    }
+
+    @Override
+    public void closeConnections() {
+        delegate.closeConnections();
+    }
+}
@@ -0,0 +1,116 @@
+package com.usermanagement.repository;
+
+public class RepositoryConfig implements Cloneable {
+    /** DEFAULT keeps SQLite's rollback journal; WAL splits reads and writes across connections. */
+    public enum StorageMode { DEFAULT, WAL }
+
+    private final String dbUrl;
+    private StorageMode storageMode = StorageMode.DEFAULT;
+    private int poolSize = 4;
+    private int minIdle = 1;
+    private long idleTimeoutMillis = 60_000;
+    private long connectionTimeoutMillis = 5_000;
+    private long validationIntervalMillis = 5_000;
+    private int statementCacheSize = 32;
+    private int userCacheSize = 10_000;
+    private long userCacheTtlMillis = 300_000;
+    private UserCache.EvictionPolicy userCacheEvictionPolicy = UserCache.EvictionPolicy.LRU;
+    private boolean uniquenessFilterEnabled = true;
+    private int uniquenessFilterCapacity = 10_000;
+    private double uniquenessFilterFalsePositiveRate = 0.01;
+    private boolean writeQueueEnabled = false;
+    private int writeQueueCapacity = 1_024;
+    private int writeBatchSize = 64;
+    private long writeMaxDelayMillis = 2;
+    private long writeQueueOfferTimeoutMillis = 5_000;
+    private String synchronous = "NORMAL";
+    private int cacheSizeKib = 8_192;
+    private long mmapSizeBytes = 256L * 1024 * 1024;
+    private long checkpointIntervalMillis = 60_000;
+    private int busyRetries = 5;
+    private long busyBackoffMillis = 10;
+    private long slowQueryThresholdMillis = 200;
+    private double slowQuerySampleRate = 1.0;
+    private int slowQueryMaxPerSecond = 5;
+    private boolean slowQueryExplainEnabled = true;
+    private long writeBehindFlushIntervalMillis = 1_000;
+    private String snapshotPath;
+
+    public RepositoryConfig(String dbUrl) {
+        this.dbUrl = dbUrl;
+    }
+
+    /** Independent copy, for callers that need to override settings without touching the original. */
+    public RepositoryConfig copy() {
+        try {
+            return (RepositoryConfig) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public String getDbUrl() { return dbUrl; }
+    public StorageMode getStorageMode() { return storageMode; }
+    public void setStorageMode(StorageMode storageMode) { this.storageMode = storageMode; }
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+    public int getMinIdle() { return minIdle; }
+    public void setMinIdle(int minIdle) { this.minIdle = minIdle; }
+    public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+    public long getConnectionTimeoutMillis() { return connectionTimeoutMillis; }
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis) { this.connectionTimeoutMillis = connectionTimeoutMillis; }
+    public long getValidationIntervalMillis() { return validationIntervalMillis; }
+    public void setValidationIntervalMillis(long validationIntervalMillis) { this.validationIntervalMillis = validationIntervalMillis; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public void setStatementCacheSize(int statementCacheSize) { this.statementCacheSize = statementCacheSize; }
+    public int getUserCacheSize() { return userCacheSize; }
+    public void setUserCacheSize(int userCacheSize) { this.userCacheSize = userCacheSize; }
+    public long getUserCacheTtlMillis() { return userCacheTtlMillis; }
+    public void setUserCacheTtlMillis(long userCacheTtlMillis) { this.userCacheTtlMillis = userCacheTtlMillis; }
+    public UserCache.EvictionPolicy getUserCacheEvictionPolicy() { return userCacheEvictionPolicy; }
+    public void setUserCacheEvictionPolicy(UserCache.EvictionPolicy policy) { this.userCacheEvictionPolicy = policy; }
+    public boolean isUniquenessFilterEnabled() { return uniquenessFilterEnabled; }
+    public void setUniquenessFilterEnabled(boolean uniquenessFilterEnabled) { this.uniquenessFilterEnabled = uniquenessFilterEnabled; }
+    public int getUniquenessFilterCapacity() { return uniquenessFilterCapacity; }
+    public void setUniquenessFilterCapacity(int uniquenessFilterCapacity) { this.uniquenessFilterCapacity = uniquenessFilterCapacity; }
+    public double getUniquenessFilterFalsePositiveRate() { return uniquenessFilterFalsePositiveRate; }
+    public void setUniquenessFilterFalsePositiveRate(double rate) { this.uniquenessFilterFalsePositiveRate = rate; }
+    public boolean isWriteQueueEnabled() { return writeQueueEnabled; }
+    public void setWriteQueueEnabled(boolean writeQueueEnabled) { this.writeQueueEnabled = writeQueueEnabled; }
+    public int getWriteQueueCapacity() { return writeQueueCapacity; }
+    public void setWriteQueueCapacity(int writeQueueCapacity) { this.writeQueueCapacity = writeQueueCapacity; }
+    public int getWriteBatchSize() { return writeBatchSize; }
+    public void setWriteBatchSize(int writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+    public long getWriteMaxDelayMillis() { return writeMaxDelayMillis; }
+    public void setWriteMaxDelayMillis(long writeMaxDelayMillis) { this.writeMaxDelayMillis = writeMaxDelayMillis; }
+    public long getWriteQueueOfferTimeoutMillis() { return writeQueueOfferTimeoutMillis; }
+    public void setWriteQueueOfferTimeoutMillis(long millis) { this.writeQueueOfferTimeoutMillis = millis; }
+    public String getSynchronous() { return synchronous; }
+    public void setSynchronous(String synchronous) { this.synchronous = synchronous; }
+    public int getCacheSizeKib() { return cacheSizeKib; }
+    public void setCacheSizeKib(int cacheSizeKib) { this.cacheSizeKib = cacheSizeKib; }
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+    public void setMmapSizeBytes(long mmapSizeBytes) { this.mmapSizeBytes = mmapSizeBytes; }
+    public long getCheckpointIntervalMillis() { return checkpointIntervalMillis; }
+    public void setCheckpointIntervalMillis(long millis) { this.checkpointIntervalMillis = millis; }
+    public int getBusyRetries() { return busyRetries; }
+    public void setBusyRetries(int busyRetries) { this.busyRetries = busyRetries; }
+    public long getBusyBackoffMillis() { return busyBackoffMillis; }
+    public void setBusyBackoffMillis(long busyBackoffMillis) { this.busyBackoffMillis = busyBackoffMillis; }
+    /** Statements at least this slow are logged; a negative value turns the slow-query log off. */
+    public long getSlowQueryThresholdMillis() { return slowQueryThresholdMillis; }
+    public void setSlowQueryThresholdMillis(long millis) { this.slowQueryThresholdMillis = millis; }
+    public double getSlowQuerySampleRate() { return slowQuerySampleRate; }
+    public void setSlowQuerySampleRate(double slowQuerySampleRate) { this.slowQuerySampleRate = slowQuerySampleRate; }
+    public int getSlowQueryMaxPerSecond() { return slowQueryMaxPerSecond; }
+    public void setSlowQueryMaxPerSecond(int slowQueryMaxPerSecond) { this.slowQueryMaxPerSecond = slowQueryMaxPerSecond; }
+    public boolean isSlowQueryExplainEnabled() { return slowQueryExplainEnabled; }
+    public void setSlowQueryExplainEnabled(boolean enabled) { this.slowQueryExplainEnabled = enabled; }
+    /** How often {@link InMemoryUserRepository} writes queued changes to SQLite. */
+    public long getWriteBehindFlushIntervalMillis() { return writeBehindFlushIntervalMillis; }
+    public void setWriteBehindFlushIntervalMillis(long millis) { this.writeBehindFlushIntervalMillis = millis; }
+    /** Warm-start snapshot of {@link InMemoryUserRepository}; null disables it. */
+    public String getSnapshotPath() { return snapshotPath; }
+    public void setSnapshotPath(String snapshotPath) { this.snapshotPath = snapshotPath; }
+}
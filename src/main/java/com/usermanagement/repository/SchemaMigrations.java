@@ -0,0 +1,212 @@
+package com.usermanagement.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ordered schema migrations. The applied versions are recorded in schema_version, so
+ * opening an existing database only runs the migrations it is missing. New schema
+ * changes are appended as a new version; released migrations are never edited.
+ */
+final class SchemaMigrations {
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private SchemaMigrations() {
+    }
+
+    record Migration(int version, String description, List<String> statements) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Basisschema", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS roles (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT NOT NULL UNIQUE
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS permissions (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT NOT NULL UNIQUE,
+                        description TEXT
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        username TEXT NOT NULL UNIQUE,
+                        email TEXT NOT NULL UNIQUE,
+                        role_id INTEGER,
+                        FOREIGN KEY (role_id) REFERENCES roles(id)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS role_permissions (
+                        role_id INTEGER,
+                        permission_id INTEGER,
+                        PRIMARY KEY (role_id, permission_id),
+                        FOREIGN KEY (role_id) REFERENCES roles(id),
+                        FOREIGN KEY (permission_id) REFERENCES permissions(id)
+                    )
+                    """,
+                    "INSERT OR IGNORE INTO roles (name) VALUES ('ADMIN')",
+                    "INSERT OR IGNORE INTO roles (name) VALUES ('USER')"
+            )),
+            new Migration(2, "Indizes auf Fremdschlüsseln", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_users_role_id ON users(role_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_role_permissions_permission_id ON role_permissions(permission_id)"
+            )),
+            new Migration(3, "Benutzerzähler pro Rolle", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS role_member_counts (
+                        role_id INTEGER PRIMARY KEY,
+                        member_count INTEGER NOT NULL DEFAULT 0
+                    )
+                    """,
+                    """
+                    INSERT OR REPLACE INTO role_member_counts (role_id, member_count)
+                    SELECT r.id, (SELECT COUNT(*) FROM users u WHERE u.role_id = r.id)
+                    FROM roles r
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_roles_insert_member_count
+                    AFTER INSERT ON roles
+                    BEGIN
+                        INSERT OR IGNORE INTO role_member_counts (role_id, member_count) VALUES (NEW.id, 0);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_roles_delete_member_count
+                    AFTER DELETE ON roles
+                    BEGIN
+                        DELETE FROM role_member_counts WHERE role_id = OLD.id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_users_insert_member_count
+                    AFTER INSERT ON users
+                    WHEN NEW.role_id IS NOT NULL
+                    BEGIN
+                        INSERT OR IGNORE INTO role_member_counts (role_id, member_count) VALUES (NEW.role_id, 0);
+                        UPDATE role_member_counts SET member_count = member_count + 1 WHERE role_id = NEW.role_id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_users_delete_member_count
+                    AFTER DELETE ON users
+                    WHEN OLD.role_id IS NOT NULL
+                    BEGIN
+                        UPDATE role_member_counts SET member_count = member_count - 1 WHERE role_id = OLD.role_id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_users_leave_role_member_count
+                    AFTER UPDATE OF role_id ON users
+                    WHEN OLD.role_id IS NOT NEW.role_id AND OLD.role_id IS NOT NULL
+                    BEGIN
+                        UPDATE role_member_counts SET member_count = member_count - 1 WHERE role_id = OLD.role_id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_users_join_role_member_count
+                    AFTER UPDATE OF role_id ON users
+                    WHEN OLD.role_id IS NOT NEW.role_id AND NEW.role_id IS NOT NULL
+                    BEGIN
+                        INSERT OR IGNORE INTO role_member_counts (role_id, member_count) VALUES (NEW.role_id, 0);
+                        UPDATE role_member_counts SET member_count = member_count + 1 WHERE role_id = NEW.role_id;
+                    END
+                    """
+            )),
+            new Migration(4, "Änderungszähler", dataVersionStatements())
+    );
+
+    private static final List<String> TABLES = List.of(
+            "role_permissions", "users", "role_member_counts", "permissions", "roles", "data_changes",
+            "schema_version");
+
+    /**
+     * data_changes.version goes up with every row written to users, roles, permissions or
+     * role_permissions, so a copy of the data (e.g. a {@link UserSnapshot}) can tell
+     * whether it is still current by comparing one number.
+     */
+    private static List<String> dataVersionStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("""
+                CREATE TABLE IF NOT EXISTS data_changes (
+                    id INTEGER PRIMARY KEY CHECK (id = 1),
+                    version INTEGER NOT NULL
+                )
+                """);
+        // Random start: a recreated database must not count through the markers of an old one.
+        statements.add("INSERT OR IGNORE INTO data_changes (id, version) VALUES (1, abs(random() >> 16))");
+        for (String table : List.of("users", "roles", "permissions", "role_permissions")) {
+            for (String event : List.of("INSERT", "UPDATE", "DELETE")) {
+                statements.add("CREATE TRIGGER IF NOT EXISTS trg_" + table + "_" + event.toLowerCase(Locale.ROOT)
+                        + "_data_version AFTER " + event + " ON " + table
+                        + " BEGIN UPDATE data_changes SET version = version + 1 WHERE id = 1; END");
+            }
+        }
+        return statements;
+    }
+
+    static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    static void migrate(Connection conn) throws SQLException {
+        int current = currentVersion(conn);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement record = conn.prepareStatement(
+                         "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                for (String sql : migration.statements()) {
+                    stmt.execute(sql);
+                }
+                record.setInt(1, migration.version());
+                record.setString(2, migration.description());
+                record.executeUpdate();
+                conn.commit();
+                log.info("Applied schema migration {} ({})", migration.version(), migration.description());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    static void dropAll(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : TABLES) {
+                stmt.execute("DROP TABLE IF EXISTS " + table);
+            }
+        }
+    }
+}
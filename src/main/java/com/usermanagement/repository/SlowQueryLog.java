@@ -0,0 +1,156 @@
+package com.usermanagement.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs prepared statements that run longer than the configured threshold with their
+ * bound parameters (email addresses redacted), row count and SQLite's query plan.
+ * Slow statements are sampled and then rate limited per second, so a burst of them
+ * costs at most a handful of EXPLAIN runs and log lines; the rest is only counted.
+ */
+final class SlowQueryLog {
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxPerSecond;
+    private final boolean explain;
+
+    // Current second in the high bits, entries logged in that second in the low bits.
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong slowCount = new AtomicLong();
+    private final AtomicLong loggedCount = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private SlowQueryLog(RepositoryConfig config) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowQueryThresholdMillis());
+        this.sampleRate = config.getSlowQuerySampleRate();
+        this.maxPerSecond = (int) Math.min(config.getSlowQueryMaxPerSecond(), COUNT_MASK);
+        this.explain = config.isSlowQueryExplainEnabled();
+    }
+
+    /** Returns null when the threshold is negative, i.e. the log is switched off. */
+    static SlowQueryLog create(RepositoryConfig config) {
+        return config.getSlowQueryThresholdMillis() < 0 ? null : new SlowQueryLog(config);
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * Called for a statement that {@link #isSlow was slow}. {@code params[1..paramCount]}
+     * are the bound values; {@code rows} is the number of rows read or changed, -1 if
+     * the statement failed.
+     */
+    void record(Connection physical, String sql, Object[] params, int paramCount, long elapsedNanos, long rows) {
+        slowCount.incrementAndGet();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        loggedCount.incrementAndGet();
+
+        log.warn(describe(physical, sql, params, paramCount, elapsedNanos, rows));
+    }
+
+    String describe(Connection physical, String sql, Object[] params, int paramCount, long elapsedNanos, long rows) {
+        StringBuilder entry = new StringBuilder(256);
+        entry.append("Slow query (")
+                .append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append(" ms, ")
+                .append(rows < 0 ? "failed" : "rows=" + rows).append("): ")
+                .append(sql.strip().replaceAll("\\s+", " "));
+        entry.append("\n  params: ");
+        appendParams(entry, params, paramCount);
+        if (explain) {
+            entry.append("\n  plan:");
+            appendPlan(entry, physical, sql, params, paramCount);
+        }
+        long dropped = suppressed.getAndSet(0);
+        if (dropped > 0) {
+            entry.append("\n  (").append(dropped).append(" slow queries not logged since the last entry)");
+        }
+        return entry.toString();
+    }
+
+    private boolean tryAcquire() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        while (true) {
+            long current = window.get();
+            long next = current >>> COUNT_BITS == second ? current + 1 : (second << COUNT_BITS) | 1;
+            if ((next & COUNT_MASK) > maxPerSecond) {
+                return false;
+            }
+            if (window.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    private static void appendParams(StringBuilder entry, Object[] params, int paramCount) {
+        entry.append('[');
+        for (int i = 1; i <= paramCount; i++) {
+            if (i > 1) {
+                entry.append(", ");
+            }
+            Object value = params[i];
+            if (value instanceof String text) {
+                entry.append('\'').append(redact(text)).append('\'');
+            } else {
+                entry.append(value);
+            }
+        }
+        entry.append(']');
+    }
+
+    /** Keeps the domain of anything that looks like an email address and hides the rest. */
+    static String redact(String value) {
+        int at = value.indexOf('@');
+        return at < 0 ? value : "***" + value.substring(at);
+    }
+
+    private static void appendPlan(StringBuilder entry, Connection physical, String sql,
+                                   Object[] params, int paramCount) {
+        try (PreparedStatement stmt = physical.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int count = Math.min(paramCount, stmt.getParameterMetaData().getParameterCount());
+            for (int i = 1; i <= count; i++) {
+                if (params[i] == null) {
+                    stmt.setNull(i, Types.NULL);
+                } else {
+                    stmt.setObject(i, params[i]);
+                }
+            }
+            Map<Integer, Integer> depth = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int level = depth.getOrDefault(rs.getInt("parent"), 0) + 1;
+                    depth.put(rs.getInt("id"), level);
+                    entry.append('\n').append("  ".repeat(level + 1)).append(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            entry.append(" unavailable (").append(e.getMessage()).append(')');
+        }
+    }
+
+    long getSlowCount() { return slowCount.get(); }
+    long getLoggedCount() { return loggedCount.get(); }
+}
@@ -0,0 +1,1355 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class SqliteUserRepository implements UserRepository {
+    private static final Logger log = LoggerFactory.getLogger(SqliteUserRepository.class);
+    static final int STREAM_FETCH_SIZE = 256;
+
+    private final ConnectionPool pool;
+    private final ConnectionPool writePool;
+    private final UserCache userCache;
+    private final RepositoryConfig config;
+    private final BusyRetry busyRetry;
+    private final WriteQueue writeQueue;
+    private final ScheduledExecutorService checkpointer;
+    private volatile CountingBloomFilter usernameFilter;
+    private volatile CountingBloomFilter emailFilter;
+    // Filters being filled by a rebuild; adds made meanwhile go to them as well.
+    private volatile CountingBloomFilter rebuildingUsernames;
+    private volatile CountingBloomFilter rebuildingEmails;
+    private final AtomicBoolean filterRebuildRunning = new AtomicBoolean();
+    private final Object searchIndexLock = new Object();
+    private volatile UserSearchIndex searchIndex;
+
+    public SqliteUserRepository(String dbUrl) {
+        this(new RepositoryConfig(dbUrl));
+    }
+
+    public SqliteUserRepository(RepositoryConfig config) {
+        this.config = config;
+        if (config.getStorageMode() == RepositoryConfig.StorageMode.WAL) {
+            // WAL lets readers run next to the single writer, so they get their own
+            // read-only connections and every mutation goes through one connection.
+            this.writePool = new ConnectionPool(config, 1, false);
+            this.pool = new ConnectionPool(config, config.getPoolSize(), true);
+        } else {
+            this.pool = new ConnectionPool(config);
+            this.writePool = pool;
+        }
+        this.userCache = new UserCache(config.getUserCacheSize(), config.getUserCacheTtlMillis(),
+                config.getUserCacheEvictionPolicy());
+        this.busyRetry = new BusyRetry(config.getBusyRetries(), config.getBusyBackoffMillis());
+        initializeDatabase();
+        this.writeQueue = config.isWriteQueueEnabled() ? new WriteQueue(writePool, config) : null;
+        this.checkpointer = writePool != pool && config.getCheckpointIntervalMillis() > 0
+                ? startCheckpointer(config.getCheckpointIntervalMillis()) : null;
+        if (config.isUniquenessFilterEnabled()) {
+            // Scanning a large users table takes a while; until the filters are ready
+            // every uniqueness check simply goes to the database.
+            startFilterRebuild();
+        }
+    }
+
+    /** Rebuilds the filters on a background thread unless a rebuild is already running. */
+    private void startFilterRebuild() {
+        if (!filterRebuildRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                rebuildUniquenessFilters();
+            } catch (RuntimeException e) {
+                log.warn("Could not build uniqueness filters: {}", e.getMessage());
+            } finally {
+                filterRebuildRunning.set(false);
+            }
+        }, "uniqueness-filter-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /** Pool used for reads; in DEFAULT storage mode it serves writes as well. */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /** Reads run in parallel up to the pool size; more callers would only wait for a connection. */
+    @Override
+    public int getMaxConcurrency() {
+        return pool.getMaxSize();
+    }
+
+    public ConnectionPool getWriteConnectionPool() {
+        return writePool;
+    }
+
+    public long getBusyRetryCount() {
+        return busyRetry.getRetryCount() + (writeQueue != null ? writeQueue.getBusyRetries() : 0);
+    }
+
+    private Connection readConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    private Connection writeConnection() throws SQLException {
+        return writePool.getConnection();
+    }
+
+    private ScheduledExecutorService startCheckpointer(long intervalMillis) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wal-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> checkpoint(UserQueries.WAL_CHECKPOINT),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    /** Copies committed WAL frames back into the database file. */
+    private void checkpoint(String sql) {
+        try (Connection conn = writeConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                log.debug("WAL checkpoint: busy={}, frames={}, checkpointed={}",
+                        rs.getInt(1), rs.getInt(2), rs.getInt(3));
+            }
+        } catch (SQLException e) {
+            log.warn("WAL checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    /** The group-commit writer, or null when writes run on the calling thread. */
+    public WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    @Override
+    public void closeConnections() {
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+            checkpoint(UserQueries.WAL_CHECKPOINT_TRUNCATE);
+        }
+        userCache.clear();
+        pool.close();
+        writePool.close();
+    }
+
+    private void initializeDatabase() {
+        try (Connection conn = writeConnection()) {
+            SchemaMigrations.migrate(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database: " + e.getMessage(), e);
+        }
+    }
+
+    public int getSchemaVersion() {
+        try (Connection conn = writeConnection()) {
+            return SchemaMigrations.currentVersion(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    /** Change marker of the data: grows with every write to users, roles or permissions. */
+    public long getDataVersion() {
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.DATA_VERSION);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops every table and re-applies all migrations. This is the only operation that
+     * destroys data; opening a repository never does.
+     */
+    @Override
+    public void resetDatabase() {
+        try (Connection conn = writeConnection()) {
+            SchemaMigrations.dropAll(conn);
+            SchemaMigrations.migrate(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to reset database: " + e.getMessage(), e);
+        }
+        userCache.clear();
+        searchIndex = null;
+        if (config.isUniquenessFilterEnabled()) {
+            rebuildUniquenessFilters();
+        }
+    }
+
+    /**
+     * Rebuilds the username and email Bloom filters from the users table. Called at
+     * startup and, on a background thread, whenever the filters hold far more values
+     * than they were sized for. The old filters stay in use until the new ones are
+     * swapped in; values added during the scan are put into both.
+     */
+    public synchronized void rebuildUniquenessFilters() {
+        try (Connection conn = readConnection()) {
+            int count;
+            try (PreparedStatement stmt = conn.prepareStatement(UserQueries.COUNT_USERS);
+                 ResultSet rs = stmt.executeQuery()) {
+                count = rs.next() ? rs.getInt(1) : 0;
+            }
+
+            int capacity = Math.max(config.getUniquenessFilterCapacity(), count * 2);
+            CountingBloomFilter usernames = new CountingBloomFilter(capacity, config.getUniquenessFilterFalsePositiveRate());
+            CountingBloomFilter emails = new CountingBloomFilter(capacity, config.getUniquenessFilterFalsePositiveRate());
+            rebuildingUsernames = usernames;
+            rebuildingEmails = emails;
+            try (PreparedStatement stmt = conn.prepareStatement(UserQueries.ALL_USERNAMES_AND_EMAILS)) {
+                stmt.setFetchSize(STREAM_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        usernames.add(rs.getString(1));
+                        emails.add(rs.getString(2));
+                    }
+                }
+            }
+            usernameFilter = usernames;
+            emailFilter = emails;
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        } finally {
+            // Cleared only after the swap, so addToFilters always reaches the new filters.
+            rebuildingUsernames = null;
+            rebuildingEmails = null;
+        }
+    }
+
+    public CountingBloomFilter getUsernameFilter() {
+        return usernameFilter;
+    }
+
+    public CountingBloomFilter getEmailFilter() {
+        return emailFilter;
+    }
+
+    private static boolean mightExist(CountingBloomFilter filter, String value) {
+        return filter == null || value == null || filter.mightContain(value);
+    }
+
+    private static List<String> candidates(List<String> values, CountingBloomFilter filter, boolean trustFilter) {
+        if (!trustFilter || filter == null) {
+            return values;
+        }
+        return values.stream().filter(value -> mightExist(filter, value)).toList();
+    }
+
+    // Runs on the committing thread (the writer thread with a write queue), so an
+    // oversized filter is only flagged here and rebuilt in the background.
+    private void addToFilters(String username, String email) {
+        CountingBloomFilter pendingUsernames = rebuildingUsernames;
+        CountingBloomFilter pendingEmails = rebuildingEmails;
+        CountingBloomFilter usernames = usernameFilter;
+        CountingBloomFilter emails = emailFilter;
+        if (pendingUsernames != null && pendingEmails != null && pendingUsernames != usernames) {
+            pendingUsernames.add(username);
+            pendingEmails.add(email);
+        }
+        if (usernames == null || emails == null) {
+            return;
+        }
+        usernames.add(username);
+        emails.add(email);
+        if (usernames.isOverCapacity()) {
+            startFilterRebuild();
+        }
+    }
+
+    /**
+     * The prefix index, scanned from the users table on first use. Writes that commit
+     * during the scan are recorded by the loading index and applied after it.
+     */
+    private UserSearchIndex searchIndex() {
+        UserSearchIndex index = searchIndex;
+        if (index != null && index.isLoaded()) {
+            return index;
+        }
+        synchronized (searchIndexLock) {
+            index = searchIndex;
+            if (index != null && index.isLoaded()) {
+                return index;
+            }
+            index = UserSearchIndex.loading();
+            searchIndex = index;
+            UserSearchIndex.Builder builder = new UserSearchIndex.Builder();
+            try (Connection conn = readConnection();
+                 PreparedStatement stmt = conn.prepareStatement(UserQueries.ALL_USER_SEARCH_KEYS)) {
+                stmt.setFetchSize(STREAM_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        builder.add(rs.getLong(1), rs.getString(2), rs.getString(3));
+                    }
+                }
+            } catch (SQLException e) {
+                searchIndex = null;
+                throw new RuntimeException("Database error: " + e.getMessage(), e);
+            }
+            index.load(builder);
+            return index;
+        }
+    }
+
+    private void addToSearchIndex(User user) {
+        UserSearchIndex index = searchIndex;
+        if (index != null) {
+            index.add(user.getId(), user.getUsername(), user.getEmail());
+        }
+    }
+
+    private void removeFromSearchIndex(Long userId, CurrentUser previous) {
+        UserSearchIndex index = searchIndex;
+        if (index != null && previous != null) {
+            index.remove(userId, previous.username(), previous.email());
+        }
+    }
+
+    private void removeFromFilters(CurrentUser previous) {
+        CountingBloomFilter usernames = usernameFilter;
+        CountingBloomFilter emails = emailFilter;
+        if (previous == null || usernames == null || emails == null) {
+            return;
+        }
+        usernames.remove(previous.username());
+        emails.remove(previous.email());
+    }
+
+    /**
+     * Maps a UNIQUE violation on users to the same IllegalArgumentException the explicit
+     * checks throw; this is the fallback for values the Bloom filters did not report.
+     */
+    private static void rethrowIfDuplicate(SQLException e, String suffix) {
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("UNIQUE constraint failed: users.username")) {
+            throw new IllegalArgumentException("Username existiert bereits" + suffix);
+        }
+        if (message.contains("UNIQUE constraint failed: users.email")) {
+            throw new IllegalArgumentException("Email existiert bereits" + suffix);
+        }
+    }
+
+    private static long insertReturningId(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Creating user failed, no ID obtained.");
+            }
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            if (String.valueOf(e.getMessage()).contains("UNIQUE constraint failed: users.")) {
+                throw new DuplicateKeyException(e);
+            }
+            throw e;
+        }
+    }
+
+    private static void executeBatch(PreparedStatement stmt) throws SQLException {
+        try {
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            if (String.valueOf(e.getMessage()).contains("UNIQUE constraint failed: users.")) {
+                throw new DuplicateKeyException(e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        User cached = userCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = userCache.beginLoad();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_USER_BY_USERNAME)) {
+            stmt.setString(1, username);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                User user = rs.next() ? mapUser(rs) : null;
+                userCache.put(user, generation);
+                return user;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        User cached = userCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = userCache.beginLoad();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_USER_BY_ID)) {
+            stmt.setLong(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                User user = rs.next() ? mapUser(rs) : null;
+                userCache.put(user, generation);
+                return user;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+    }
+
+    /**
+     * Role id per user for a set of user ids. Cached users are answered from the user
+     * cache, the rest with chunked {@code id IN (...)} queries; unknown ids and users
+     * without a role are missing from the result.
+     */
+    @Override
+    public Map<Long, Long> findRoleIdsByUserIds(Collection<Long> userIds) {
+        Map<Long, Long> roleIds = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(userIds)) {
+            if (id == null) {
+                continue;
+            }
+            User cached = userCache.getById(id);
+            if (cached == null) {
+                misses.add(id);
+            } else if (cached.getRole() != null && cached.getRole().getId() != null) {
+                roleIds.put(id, cached.getRole().getId());
+            }
+        }
+        if (misses.isEmpty()) {
+            return roleIds;
+        }
+
+        try (Connection conn = readConnection()) {
+            for (int from = 0; from < misses.size(); from += UserQueries.IN_LIST_CHUNK) {
+                List<Long> chunk = misses.subList(from, Math.min(misses.size(), from + UserQueries.IN_LIST_CHUNK));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        UserQueries.withInList(UserQueries.ROLE_IDS_BY_USER_IDS, chunk.size()))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            long roleId = rs.getLong(2);
+                            if (!rs.wasNull()) {
+                                roleIds.put(rs.getLong(1), roleId);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+        return roleIds;
+    }
+
+    @Override
+    public Role saveRole(Role role) {
+        try (Connection conn = writeConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.INSERT_ROLE)) {
+            stmt.setString(1, role.getName());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Creating role failed, no ID obtained.");
+                }
+                role.setId(rs.getLong(1));
+            }
+            return role;
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        if (!mightExist(usernameFilter, username)) {
+            return false;
+        }
+        try (Connection conn = readConnection()) {
+            return exists(conn, UserQueries.USERNAME_EXISTS, username);
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+    }
+
+    @Override
+    public User saveUser(User user) {
+        return await(saveUserAsync(user));
+    }
+
+    public CompletableFuture<User> saveUserAsync(User user) {
+        return write(conn -> insertUser(conn, user)).thenApply(saved -> {
+            user.setId(saved.getId());
+            userCache.invalidate(user.getId());
+            addToFilters(user.getUsername(), user.getEmail());
+            addToSearchIndex(user);
+            return saved.getRole().getName() != null ? saved : user;
+        });
+    }
+
+    private User insertUser(Connection conn, User user) throws SQLException {
+        if (mightExist(usernameFilter, user.getUsername())
+                && exists(conn, UserQueries.USERNAME_EXISTS, user.getUsername())) {
+            throw new IllegalArgumentException("Username existiert bereits");
+        }
+        if (mightExist(emailFilter, user.getEmail())
+                && exists(conn, UserQueries.EMAIL_EXISTS, user.getEmail())) {
+            throw new IllegalArgumentException("Email existiert bereits");
+        }
+
+        // RETURNING hands back the id and the joined role name, so the insert
+        // needs no follow-up last_insert_rowid() or user+role lookup.
+        try (PreparedStatement stmt = conn.prepareStatement(UserQueries.INSERT_USER_RETURNING)) {
+            stmt.setString(1, user.getUsername());
+            stmt.setString(2, user.getEmail());
+            stmt.setLong(3, user.getRole().getId());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Creating user failed, no rows affected.");
+                }
+                return mapUser(rs);
+            }
+        } catch (SQLException e) {
+            rethrowIfDuplicate(e, "");
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteUser(Long userId) {
+        await(deleteUserAsync(userId));
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(Long userId) {
+        return write(conn -> deleteUserRow(conn, userId)).thenAccept(removed -> {
+            userCache.invalidate(userId);
+            removeFromFilters(removed);
+            removeFromSearchIndex(userId, removed);
+        });
+    }
+
+    private CurrentUser deleteUserRow(Connection conn, Long userId) throws SQLException {
+        CurrentUser current = currentUser(conn, userId);
+        if (current != null && current.isAdmin() && adminCount(conn) <= 1) {
+            throw new IllegalStateException("Der letzte Admin-Benutzer kann nicht gelöscht werden!");
+        }
+
+        try (PreparedStatement deleteStmt = conn.prepareStatement(UserQueries.DELETE_USER)) {
+            deleteStmt.setLong(1, userId);
+            if (deleteStmt.executeUpdate() == 0) {
+                userCache.invalidate(userId);
+                throw new IllegalArgumentException("Benutzer mit ID " + userId + " nicht gefunden.");
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return await(updateUserAsync(user));
+    }
+
+    public CompletableFuture<User> updateUserAsync(User user) {
+        return write(conn -> updateUserRow(conn, user)).thenApply(previous -> {
+            userCache.invalidate(user.getId());
+            removeFromFilters(previous);
+            addToFilters(user.getUsername(), user.getEmail());
+            removeFromSearchIndex(user.getId(), previous);
+            addToSearchIndex(user);
+            return user;
+        });
+    }
+
+    private CurrentUser updateUserRow(Connection conn, User user) throws SQLException {
+        if (mightExist(usernameFilter, user.getUsername())
+                && existsForOther(conn, UserQueries.USERNAME_TAKEN_BY_OTHER, user.getUsername(), user.getId())) {
+            throw new IllegalArgumentException("Username existiert bereits!");
+        }
+        if (mightExist(emailFilter, user.getEmail())
+                && existsForOther(conn, UserQueries.EMAIL_TAKEN_BY_OTHER, user.getEmail(), user.getId())) {
+            throw new IllegalArgumentException("Email existiert bereits!");
+        }
+
+        CurrentUser current = currentUser(conn, user.getId());
+        // The role name comes from the database, not from the caller's Role object.
+        if (current != null && current.isAdmin()
+                && !"ADMIN".equals(roleNames(conn).get(user.getRole().getId()))
+                && adminCount(conn) <= 1) {
+            throw new IllegalStateException("Der letzte Admin-Benutzer kann nicht zu einem normalen Benutzer geändert werden!");
+        }
+
+        try (PreparedStatement updateStmt = conn.prepareStatement(UserQueries.UPDATE_USER)) {
+            updateStmt.setString(1, user.getUsername());
+            updateStmt.setString(2, user.getEmail());
+            updateStmt.setLong(3, user.getRole().getId());
+            updateStmt.setLong(4, user.getId());
+
+            if (updateStmt.executeUpdate() == 0) {
+                userCache.invalidate(user.getId());
+                throw new IllegalArgumentException("Benutzer mit ID " + user.getId() + " nicht gefunden.");
+            }
+        } catch (SQLException e) {
+            rethrowIfDuplicate(e, "!");
+            throw e;
+        }
+        return current;
+    }
+
+    @Override
+    public BatchResult<User> saveUsers(Collection<User> users) {
+        List<User> rows = new ArrayList<>(users);
+        return busyRetry.run(() -> {
+            try {
+                return saveUsers(rows, true);
+            } catch (DuplicateKeyException e) {
+                // A value the filters did not know about (written by another process): redo
+                // the batch with full duplicate lookups.
+                return saveUsers(rows, false);
+            }
+        });
+    }
+
+    private BatchResult<User> saveUsers(List<User> rows, boolean trustFilters) {
+        BatchResult<User> result = new BatchResult<>();
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        try (Connection conn = writeConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Map<Long, String> roleNames = roleNames(conn);
+                Map<String, Long> takenUsernames = lookupIds(conn, UserQueries.EXISTING_USERNAMES,
+                        candidates(rows.stream().map(User::getUsername).toList(), usernameFilter, trustFilters));
+                Map<String, Long> takenEmails = lookupIds(conn, UserQueries.EXISTING_EMAILS,
+                        candidates(rows.stream().map(User::getEmail).toList(), emailFilter, trustFilters));
+
+                try (PreparedStatement stmt = conn.prepareStatement(UserQueries.INSERT_USER_RETURNING_ID)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        User user = rows.get(i);
+                        Long roleId = user.getRole() != null ? user.getRole().getId() : null;
+                        if (takenUsernames.containsKey(user.getUsername())) {
+                            result.addFailure(i, user, "Username existiert bereits");
+                        } else if (takenEmails.containsKey(user.getEmail())) {
+                            result.addFailure(i, user, "Email existiert bereits");
+                        } else if (roleId == null || !roleNames.containsKey(roleId)) {
+                            result.addFailure(i, user, "Rolle nicht gefunden");
+                        } else {
+                            takenUsernames.put(user.getUsername(), -1L);
+                            takenEmails.put(user.getEmail(), -1L);
+                            stmt.setString(1, user.getUsername());
+                            stmt.setString(2, user.getEmail());
+                            stmt.setLong(3, roleId);
+                            result.addSuccess(i, new User(insertReturningId(stmt), user.getUsername(), user.getEmail(),
+                                    new Role(roleId, roleNames.get(roleId))));
+                        }
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+
+        for (User user : result.getSucceeded()) {
+            userCache.invalidate(user.getId());
+            addToFilters(user.getUsername(), user.getEmail());
+            addToSearchIndex(user);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<User> updateUsers(Collection<User> users) {
+        List<User> rows = new ArrayList<>(users);
+        return busyRetry.run(() -> {
+            try {
+                return updateUsers(rows, true);
+            } catch (DuplicateKeyException e) {
+                return updateUsers(rows, false);
+            }
+        });
+    }
+
+    private BatchResult<User> updateUsers(List<User> rows, boolean trustFilters) {
+        BatchResult<User> result = new BatchResult<>();
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, CurrentUser> before;
+        try (Connection conn = writeConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Map<Long, String> roleNames = roleNames(conn);
+                before = currentUsers(conn, rows.stream().map(User::getId).toList());
+                Map<Long, CurrentUser> current = new HashMap<>(before);
+                Map<String, Long> usernameOwners = lookupIds(conn, UserQueries.EXISTING_USERNAMES,
+                        candidates(rows.stream().map(User::getUsername).toList(), usernameFilter, trustFilters));
+                Map<String, Long> emailOwners = lookupIds(conn, UserQueries.EXISTING_EMAILS,
+                        candidates(rows.stream().map(User::getEmail).toList(), emailFilter, trustFilters));
+                int admins = adminCount(conn);
+
+                int updated = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(UserQueries.UPDATE_USER)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        User user = rows.get(i);
+                        Long roleId = user.getRole() != null ? user.getRole().getId() : null;
+                        CurrentUser existing = current.get(user.getId());
+                        String newRole = roleNames.get(roleId);
+                        Long usernameOwner = usernameOwners.get(user.getUsername());
+                        Long emailOwner = emailOwners.get(user.getEmail());
+
+                        if (existing == null) {
+                            result.addFailure(i, user, "Benutzer mit ID " + user.getId() + " nicht gefunden.");
+                        } else if (usernameOwner != null && !usernameOwner.equals(user.getId())) {
+                            result.addFailure(i, user, "Username existiert bereits!");
+                        } else if (emailOwner != null && !emailOwner.equals(user.getId())) {
+                            result.addFailure(i, user, "Email existiert bereits!");
+                        } else if (newRole == null) {
+                            result.addFailure(i, user, "Rolle nicht gefunden");
+                        } else if (existing.isAdmin() && !newRole.equals("ADMIN") && admins <= 1) {
+                            result.addFailure(i, user, "Der letzte Admin-Benutzer kann nicht zu einem normalen Benutzer geändert werden!");
+                        } else {
+                            if (existing.isAdmin() != newRole.equals("ADMIN")) {
+                                admins += newRole.equals("ADMIN") ? 1 : -1;
+                            }
+                            current.put(user.getId(), new CurrentUser(user.getUsername(), user.getEmail(), newRole));
+                            usernameOwners.put(user.getUsername(), user.getId());
+                            emailOwners.put(user.getEmail(), user.getId());
+                            stmt.setString(1, user.getUsername());
+                            stmt.setString(2, user.getEmail());
+                            stmt.setLong(3, roleId);
+                            stmt.setLong(4, user.getId());
+                            stmt.addBatch();
+                            updated++;
+                            result.addSuccess(i, new User(user.getId(), user.getUsername(), user.getEmail(),
+                                    new Role(roleId, newRole)));
+                        }
+                    }
+                    if (updated > 0) {
+                        executeBatch(stmt);
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+
+        for (User user : result.getSucceeded()) {
+            userCache.invalidate(user.getId());
+            removeFromFilters(before.get(user.getId()));
+            addToFilters(user.getUsername(), user.getEmail());
+            removeFromSearchIndex(user.getId(), before.get(user.getId()));
+            addToSearchIndex(user);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Long> deleteUsers(Collection<Long> userIds) {
+        List<Long> rows = new ArrayList<>(userIds);
+        return busyRetry.run(() -> deleteUserBatch(rows));
+    }
+
+    private BatchResult<Long> deleteUserBatch(List<Long> rows) {
+        BatchResult<Long> result = new BatchResult<>();
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, CurrentUser> before;
+        try (Connection conn = writeConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                before = currentUsers(conn, rows);
+                Map<Long, CurrentUser> remaining = new HashMap<>(before);
+                int admins = adminCount(conn);
+
+                int deleted = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(UserQueries.DELETE_USER)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        Long userId = rows.get(i);
+                        CurrentUser existing = remaining.remove(userId);
+                        if (existing == null) {
+                            result.addFailure(i, userId, "Benutzer mit ID " + userId + " nicht gefunden.");
+                        } else if (existing.isAdmin() && admins <= 1) {
+                            result.addFailure(i, userId, "Der letzte Admin-Benutzer kann nicht gelöscht werden!");
+                        } else {
+                            if (existing.isAdmin()) {
+                                admins--;
+                            }
+                            stmt.setLong(1, userId);
+                            stmt.addBatch();
+                            deleted++;
+                            result.addSuccess(i, userId);
+                        }
+                    }
+                    if (deleted > 0) {
+                        stmt.executeBatch();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+
+        for (Long userId : result.getSucceeded()) {
+            userCache.invalidate(userId);
+            removeFromFilters(before.get(userId));
+            removeFromSearchIndex(userId, before.get(userId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        List<User> users = new ArrayList<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ALL_USERS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                users.add(mapUser(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+        return users;
+    }
+
+    /**
+     * Streams all users over a forward-only cursor. The stream holds a pooled
+     * connection until it is closed, so use it in a try-with-resources block.
+     */
+    @Override
+    public Stream<User> streamAllUsers() {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = readConnection();
+            stmt = conn.prepareStatement(UserQueries.FIND_ALL_USERS);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+
+            Connection streamConn = conn;
+            PreparedStatement streamStmt = stmt;
+            Spliterator<User> cursor = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super User> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapUser(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Database error", e);
+                    }
+                }
+            };
+            return StreamSupport.stream(cursor, false).onClose(() -> {
+                closeQuietly(rs);
+                closeQuietly(streamStmt);
+                closeQuietly(streamConn);
+            });
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            throw new RuntimeException("Database error", e);
+        }
+    }
+
+    @Override
+    public List<User> searchUsers(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Suchbegriff darf nicht null sein");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit muss größer als 0 sein");
+        }
+
+        long[] ids = searchIndex().search(prefix, limit);
+        Map<Long, User> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (long id : ids) {
+            User cached = userCache.getById(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            try (Connection conn = readConnection()) {
+                for (int from = 0; from < misses.size(); from += UserQueries.IN_LIST_CHUNK) {
+                    List<Long> chunk = misses.subList(from, Math.min(misses.size(), from + UserQueries.IN_LIST_CHUNK));
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            UserQueries.withInList(UserQueries.FIND_USERS_BY_IDS, chunk.size()))) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setLong(i + 1, chunk.get(i));
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                User user = mapUser(rs);
+                                found.put(user.getId(), user);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Database error", e);
+            }
+        }
+
+        List<User> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findUsersPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit muss größer als 0 sein");
+        }
+
+        List<User> users = new ArrayList<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_USERS_PAGE)) {
+            stmt.setLong(1, afterId != null ? afterId : 0L);
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+        return users;
+    }
+
+    @Override
+    public void checkDatabase() {
+        try (Connection conn = readConnection();
+             Statement stmt = conn.createStatement()) {
+            System.out.println("\n=== Datenbank Status ===");
+
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM roles")) {
+                System.out.println("\nRollen:");
+                while (rs.next()) {
+                    System.out.println("ID: " + rs.getLong("id") +
+                            ", Name: " + rs.getString("name"));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("""
+                SELECT u.*, r.name as role_name
+                FROM users u
+                JOIN roles r ON u.role_id = r.id
+            """)) {
+                System.out.println("\nBenutzer:");
+                while (rs.next()) {
+                    System.out.println("ID: " + rs.getLong("id") +
+                            ", Username: " + rs.getString("username") +
+                            ", Email: " + rs.getString("email") +
+                            ", Role: " + rs.getString("role_name"));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM permissions")) {
+                System.out.println("\nBerechtigungen:");
+                while (rs.next()) {
+                    System.out.println("ID: " + rs.getLong("id") +
+                            ", Name: " + rs.getString("name") +
+                            ", Description: " + rs.getString("description"));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("""
+                SELECT r.name as role_name, p.name as permission_name
+                FROM role_permissions rp
+                JOIN roles r ON r.id = rp.role_id
+                JOIN permissions p ON p.id = rp.permission_id
+            """)) {
+                System.out.println("\nRollen-Berechtigungen:");
+                while (rs.next()) {
+                    System.out.println("Role: " + rs.getString("role_name") +
+                            ", Permission: " + rs.getString("permission_name"));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Fehler beim Prüfen der Datenbank: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public Permission createPermission(String name, String description) {
+        try (Connection conn = writeConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.INSERT_PERMISSION)) {
+            stmt.setString(1, name);
+            stmt.setString(2, description);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Creating permission failed, no ID obtained.");
+                }
+                return new Permission(rs.getLong(1), name, description);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Permission> getAllPermissions() {
+        List<Permission> permissions = new ArrayList<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ALL_PERMISSIONS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                permissions.add(mapPermission(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+        return permissions;
+    }
+
+    @Override
+    public List<Role> getAllRoles() {
+        List<Role> roles = new ArrayList<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ALL_ROLES);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                roles.add(new Role(
+                        rs.getLong("id"),
+                        rs.getString("name")
+                ));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+        return roles;
+    }
+
+    @Override
+    public Role getRoleById(Long roleId) {
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ROLE_BY_ID)) {
+            stmt.setLong(1, roleId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Role(
+                            rs.getLong("id"),
+                            rs.getString("name")
+                    );
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number of users per role name, read from the trigger-maintained
+     * role_member_counts table instead of counting the users table.
+     */
+    @Override
+    public Map<String, Integer> countUsersByRole() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.COUNT_USERS_BY_ROLE);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getString("name"), rs.getInt("member_count"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    @Override
+    public Role getRoleWithPermissions(Long roleId) {
+        try (Connection conn = readConnection()) {
+            Role role;
+            try (PreparedStatement roleStmt = conn.prepareStatement(UserQueries.FIND_ROLE_BY_ID)) {
+                roleStmt.setLong(1, roleId);
+                try (ResultSet roleRs = roleStmt.executeQuery()) {
+                    if (!roleRs.next()) {
+                        return null;
+                    }
+                    role = new Role(
+                            roleRs.getLong("id"),
+                            roleRs.getString("name")
+                    );
+                }
+            }
+
+            try (PreparedStatement permStmt = conn.prepareStatement(UserQueries.FIND_PERMISSIONS_BY_ROLE)) {
+                permStmt.setLong(1, roleId);
+                try (ResultSet permRs = permStmt.executeQuery()) {
+                    while (permRs.next()) {
+                        role.getPermissions().add(mapPermission(permRs));
+                    }
+                }
+            }
+
+            return role;
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+    }
+
+    @Override
+    public Map<Long, List<Long>> getRolePermissionIds() {
+        Map<Long, List<Long>> rolePermissions = new HashMap<>();
+        try (Connection conn = readConnection();
+             PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ALL_ROLE_PERMISSIONS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rolePermissions.computeIfAbsent(rs.getLong("role_id"), id -> new ArrayList<>())
+                        .add(rs.getLong("permission_id"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error", e);
+        }
+        return rolePermissions;
+    }
+
+    @Override
+    public void addPermissionToRole(Long roleId, Long permissionId) {
+        await(addPermissionToRoleAsync(roleId, permissionId));
+    }
+
+    public CompletableFuture<Void> addPermissionToRoleAsync(Long roleId, Long permissionId) {
+        return write(conn -> updateRolePermission(conn, UserQueries.INSERT_ROLE_PERMISSION, roleId, permissionId));
+    }
+
+    @Override
+    public void removePermissionFromRole(Long roleId, Long permissionId) {
+        await(removePermissionFromRoleAsync(roleId, permissionId));
+    }
+
+    public CompletableFuture<Void> removePermissionFromRoleAsync(Long roleId, Long permissionId) {
+        return write(conn -> updateRolePermission(conn, UserQueries.DELETE_ROLE_PERMISSION, roleId, permissionId));
+    }
+
+    private static Void updateRolePermission(Connection conn, String sql, Long roleId, Long permissionId)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, roleId);
+            stmt.setLong(2, permissionId);
+            stmt.executeUpdate();
+        }
+        return null;
+    }
+
+    /**
+     * Runs a write through the group-commit queue when it is enabled, otherwise right
+     * here on a pooled connection in autocommit mode.
+     */
+    private <T> CompletableFuture<T> write(WriteQueue.Command<T> command) {
+        if (writeQueue != null) {
+            return writeQueue.submit(command);
+        }
+        try {
+            return CompletableFuture.completedFuture(busyRetry.run(() -> {
+                try (Connection conn = writeConnection()) {
+                    return command.execute(conn);
+                } catch (SQLException e) {
+                    throw new RuntimeException("Database error: " + e.getMessage(), e);
+                }
+            }));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        Role role = new Role(rs.getLong("role_id"), rs.getString("role_name"));
+        return new User(rs.getLong("id"), rs.getString("username"), rs.getString("email"), role);
+    }
+
+    private static Permission mapPermission(ResultSet rs) throws SQLException {
+        return new Permission(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description")
+        );
+    }
+
+    private static Map<Long, String> roleNames(Connection conn) throws SQLException {
+        Map<Long, String> names = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(UserQueries.FIND_ALL_ROLES);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.put(rs.getLong("id"), rs.getString("name"));
+            }
+        }
+        return names;
+    }
+
+    private static Map<String, Long> lookupIds(Connection conn, String template, List<String> values) throws SQLException {
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < values.size(); from += UserQueries.IN_LIST_CHUNK) {
+            List<String> chunk = values.subList(from, Math.min(values.size(), from + UserQueries.IN_LIST_CHUNK));
+            try (PreparedStatement stmt = conn.prepareStatement(UserQueries.withInList(template, chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString(2), rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Map<Long, CurrentUser> currentUsers(Connection conn, List<Long> userIds) throws SQLException {
+        Map<Long, CurrentUser> users = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += UserQueries.IN_LIST_CHUNK) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + UserQueries.IN_LIST_CHUNK));
+            try (PreparedStatement stmt = conn.prepareStatement(UserQueries.withInList(UserQueries.CURRENT_USERS, chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setObject(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.put(rs.getLong("id"), new CurrentUser(rs.getString("username"),
+                                rs.getString("email"), rs.getString("role_name")));
+                    }
+                }
+            }
+        }
+        return users;
+    }
+
+    private static boolean exists(Connection conn, String sql, String value) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, value);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean existsForOther(Connection conn, String sql, String value, Long userId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, value);
+            stmt.setLong(2, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static CurrentUser currentUser(Connection conn, Long userId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UserQueries.CURRENT_USER)) {
+            stmt.setLong(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next()
+                        ? new CurrentUser(rs.getString("username"), rs.getString("email"), rs.getString("role_name"))
+                        : null;
+            }
+        }
+    }
+
+    private static int adminCount(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UserQueries.ADMIN_COUNT);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt("admin_count") : 0;
+        }
+    }
+
+    private record CurrentUser(String username, String email, String roleName) {
+        boolean isAdmin() {
+            return "ADMIN".equals(roleName);
+        }
+    }
+
+    private static final class DuplicateKeyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private DuplicateKeyException(SQLException cause) {
+            super("Database error: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.usermanagement.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * Handed-out statements are proxies; closing them only clears the parameters so the
+ * next caller preparing the same SQL on this connection reuses the compiled statement.
+ *
+ * With a {@link SlowQueryLog} the proxies also time every execution (for queries the
+ * time spent in executeQuery and next()) and remember the bound parameters, so slow
+ * statements can be logged when they finish.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final Stats stats;
+    private final SlowQueryLog slowQueryLog;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, Stats stats, SlowQueryLog slowQueryLog) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    PreparedStatement prepare(Connection owner, String sql) throws SQLException {
+        if (maxSize <= 0) {
+            return uncached(owner, sql);
+        }
+
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse) {
+            stats.hits.incrementAndGet();
+        } else if (cached != null) {
+            // Same SQL prepared twice on one connection at once: hand out a private copy.
+            stats.misses.incrementAndGet();
+            return uncached(owner, sql);
+        } else {
+            stats.misses.incrementAndGet();
+            cached = new CachedStatement(physical.prepareStatement(sql), owner, sql, slowQueryLog);
+            statements.put(sql, cached);
+            evictOverflow();
+        }
+        cached.inUse = true;
+        return cached.proxy;
+    }
+
+    // A statement that is closed for real on close(); only wrapped when it has to be timed.
+    private PreparedStatement uncached(Connection owner, String sql) throws SQLException {
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (slowQueryLog == null) {
+            return statement;
+        }
+        CachedStatement copy = new CachedStatement(statement, owner, sql, slowQueryLog);
+        copy.evicted = true;
+        copy.inUse = true;
+        return copy.proxy;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            stats.evictions.incrementAndGet();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                cached.reset();
+            }
+        }
+    }
+
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    static final class Stats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final Connection owner;
+        private final PreparedStatement proxy;
+        private final String sql;
+        private final SlowQueryLog slowQueryLog;
+        private boolean inUse;
+        private boolean evicted;
+
+        // Only used with a slow-query log. One result set is open per statement at a
+        // time, so its proxy and the counters are reused for every execution.
+        private Object[] params;
+        private int paramCount;
+        private TimedResultSet timedResultSet;
+
+        private CachedStatement(PreparedStatement statement, Connection owner, String sql, SlowQueryLog slowQueryLog) {
+            this.statement = statement;
+            this.owner = owner;
+            this.sql = sql;
+            this.slowQueryLog = slowQueryLog;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        private void reset() {
+            inUse = false;
+            finishQuery();
+            clearParams();
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                statement.clearBatch();
+                statement.clearParameters();
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (inUse) {
+                        reset();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !inUse || statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    if (!inUse && !method.getName().equals("toString")) {
+                        throw new SQLException("Statement is closed");
+                    }
+                }
+            }
+            if (slowQueryLog == null) {
+                return delegate(method, args);
+            }
+            switch (method.getName()) {
+                case "executeQuery" -> {
+                    if (args == null) {
+                        return executeQuery(method);
+                    }
+                }
+                case "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch" -> {
+                    if (args == null) {
+                        return executeTimed(method);
+                    }
+                }
+                case "clearParameters" -> clearParams();
+                default -> {
+                    if (args != null && args.length >= 2 && args[0] instanceof Integer index
+                            && method.getName().startsWith("set")) {
+                        rememberParam(index, method.getName().equals("setNull") ? null : args[1]);
+                    }
+                }
+            }
+            return delegate(method, args);
+        }
+
+        private Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object executeQuery(Method method) throws Throwable {
+            finishQuery();
+            long start = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) delegate(method, null);
+            } catch (Throwable e) {
+                finish(System.nanoTime() - start, -1);
+                throw e;
+            }
+            if (timedResultSet == null) {
+                timedResultSet = new TimedResultSet(this);
+            }
+            timedResultSet.open(rs, System.nanoTime() - start);
+            return timedResultSet.proxy;
+        }
+
+        private Object executeTimed(Method method) throws Throwable {
+            finishQuery();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = delegate(method, null);
+            } catch (Throwable e) {
+                finish(System.nanoTime() - start, -1);
+                throw e;
+            }
+            finish(System.nanoTime() - start, affectedRows(result));
+            return result;
+        }
+
+        private long affectedRows(Object result) throws SQLException {
+            if (result instanceof Number count) {
+                return count.longValue();
+            }
+            if (result instanceof int[] counts) {
+                return Arrays.stream(counts).filter(count -> count > 0).asLongStream().sum();
+            }
+            if (result instanceof long[] counts) {
+                return Arrays.stream(counts).filter(count -> count > 0).sum();
+            }
+            return Math.max(0, statement.getUpdateCount());
+        }
+
+        private void finishQuery() {
+            if (timedResultSet != null && timedResultSet.open) {
+                timedResultSet.open = false;
+                finish(timedResultSet.elapsedNanos, timedResultSet.rows);
+            }
+        }
+
+        private void finish(long elapsedNanos, long rows) {
+            if (slowQueryLog.isSlow(elapsedNanos)) {
+                try {
+                    slowQueryLog.record(statement.getConnection(), sql, params, paramCount, elapsedNanos, rows);
+                } catch (SQLException | RuntimeException e) {
+                    // Logging must never break the statement that was logged.
+                }
+            }
+        }
+
+        private void rememberParam(int index, Object value) {
+            if (params == null || index >= params.length) {
+                params = Arrays.copyOf(params == null ? new Object[0] : params, Math.max(index + 1, 8));
+            }
+            params[index] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        private void clearParams() {
+            if (params != null) {
+                Arrays.fill(params, null);
+            }
+            paramCount = 0;
+        }
+    }
+
+    /**
+     * Result set of a timed query: counts rows and adds the time spent in next() to the
+     * execution time. The statement reports it when the result set or the statement
+     * is closed, or when the statement is executed again.
+     */
+    private static final class TimedResultSet implements InvocationHandler {
+        private final CachedStatement owner;
+        private final ResultSet proxy;
+        private ResultSet resultSet;
+        private boolean open;
+        private long elapsedNanos;
+        private long rows;
+
+        private TimedResultSet(CachedStatement owner) {
+            this.owner = owner;
+            this.proxy = (ResultSet) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    this);
+        }
+
+        private void open(ResultSet resultSet, long executeNanos) {
+            this.resultSet = resultSet;
+            this.open = true;
+            this.elapsedNanos = executeNanos;
+            this.rows = 0;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    boolean hasRow = resultSet.next();
+                    if (open) {
+                        elapsedNanos += System.nanoTime() - start;
+                        if (hasRow) {
+                            rows++;
+                        }
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    resultSet.close();
+                    owner.finishQuery();
+                    return null;
+                }
+                case "getStatement" -> {
+                    return owner.proxy;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded user cache with an id index and a username index that always point at the
+ * same entries. Cached values are copied on the way in and out because {@link User}
+ * is mutable and callers edit the instances they get back.
+ */
+public class UserCache {
+    public enum EvictionPolicy { LRU, FIFO }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final EvictionPolicy policy;
+    private final LinkedHashMap<Long, Entry> byId;
+    private final Map<String, Long> idByUsername = new HashMap<>();
+
+    // Bumped on every invalidation so a load that raced with a write is not cached.
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public UserCache(int maxSize, long ttlMillis, EvictionPolicy policy) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.policy = policy;
+        this.byId = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LRU);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public synchronized User getById(Long id) {
+        return lookup(byId.get(id));
+    }
+
+    public synchronized User getByUsername(String username) {
+        Long id = idByUsername.get(username);
+        return lookup(id != null ? byId.get(id) : null);
+    }
+
+    private User lookup(Entry entry) {
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (ttlMillis > 0 && System.currentTimeMillis() > entry.expiresAt) {
+            remove(entry.id);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.toUser();
+    }
+
+    public synchronized long beginLoad() {
+        return generation;
+    }
+
+    public synchronized void put(User user, long loadGeneration) {
+        if (!isEnabled() || user == null || loadGeneration != generation) {
+            return;
+        }
+        remove(user.getId());
+        Entry entry = new Entry(user, System.currentTimeMillis() + ttlMillis);
+        byId.put(entry.id, entry);
+        idByUsername.put(entry.username, entry.id);
+
+        Iterator<Entry> eldest = byId.values().iterator();
+        while (byId.size() > maxSize && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            idByUsername.remove(evicted.username, evicted.id);
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(Long id) {
+        generation++;
+        if (id != null && remove(id)) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations += byId.size();
+        byId.clear();
+        idByUsername.clear();
+    }
+
+    private boolean remove(Long id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        idByUsername.remove(entry.username, entry.id);
+        return true;
+    }
+
+    public synchronized int size() { return byId.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getExpirations() { return expirations; }
+    public synchronized long getInvalidations() { return invalidations; }
+    public EvictionPolicy getPolicy() { return policy; }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "UserCache[size=" + byId.size() + "/" + maxSize +
+                ", policy=" + policy +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", invalidations=" + invalidations + "]";
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String username;
+        private final String email;
+        private final Long roleId;
+        private final String roleName;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.roleId = user.getRole() != null ? user.getRole().getId() : null;
+            this.roleName = user.getRole() != null ? user.getRole().getName() : null;
+            this.expiresAt = expiresAt;
+        }
+
+        private User toUser() {
+            return new User(id, username, email, new Role(roleId, roleName));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.usermanagement.repository;
+
+import java.util.Collections;
+
+/**
+ * Fixed SQL issued by {@link SqliteUserRepository}. Keeping the text in one place means
+ * every call site prepares the identical string and hits the statement cache.
+ */
+final class UserQueries {
+    private UserQueries() {
+    }
+
+    static final String FIND_USER_BY_USERNAME = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.username = ?
+            """;
+
+    static final String FIND_USER_BY_ID = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id = ?
+            """;
+
+    static final String FIND_ALL_USERS = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            ORDER BY u.id
+            """;
+
+    static final String FIND_USERS_PAGE = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id > ?
+            ORDER BY u.id
+            LIMIT ?
+            """;
+
+    static final String USERNAME_EXISTS = "SELECT id FROM users WHERE username = ?";
+
+    static final String EMAIL_EXISTS = "SELECT id FROM users WHERE email = ?";
+
+    static final String USERNAME_TAKEN_BY_OTHER = "SELECT id FROM users WHERE username = ? AND id != ?";
+
+    static final String EMAIL_TAKEN_BY_OTHER = "SELECT id FROM users WHERE email = ? AND id != ?";
+
+    static final String INSERT_USER_RETURNING_ID = "INSERT INTO users (username, email, role_id) VALUES (?, ?, ?) RETURNING id";
+
+    static final String INSERT_USER_RETURNING = """
+            INSERT INTO users (username, email, role_id) VALUES (?, ?, ?)
+            RETURNING id, username, email, role_id,
+                      (SELECT r.name FROM roles r WHERE r.id = role_id) as role_name
+            """;
+
+    static final String UPDATE_USER = "UPDATE users SET username = ?, email = ?, role_id = ? WHERE id = ?";
+
+    static final String DELETE_USER = "DELETE FROM users WHERE id = ?";
+
+    static final String ADMIN_COUNT = """
+            SELECT COALESCE(SUM(c.member_count), 0) as admin_count
+            FROM role_member_counts c
+            JOIN roles r ON c.role_id = r.id
+            WHERE r.name = 'ADMIN'
+            """;
+
+    static final String COUNT_USERS_BY_ROLE = """
+            SELECT r.id, r.name, COALESCE(c.member_count, 0) as member_count
+            FROM roles r
+            LEFT JOIN role_member_counts c ON c.role_id = r.id
+            ORDER BY r.id
+            """;
+
+    static final String CURRENT_USER = """
+            SELECT u.username, u.email, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id = ?
+            """;
+
+    static final String COUNT_USERS = "SELECT COALESCE(SUM(member_count), 0) FROM role_member_counts";
+
+    static final String ALL_USERNAMES_AND_EMAILS = "SELECT username, email FROM users";
+
+    static final String WAL_CHECKPOINT = "PRAGMA wal_checkpoint(PASSIVE)";
+
+    static final String WAL_CHECKPOINT_TRUNCATE = "PRAGMA wal_checkpoint(TRUNCATE)";
+
+    static final String INSERT_ROLE = "INSERT INTO roles (name) VALUES (?) RETURNING id";
+
+    static final String FIND_ALL_ROLES = "SELECT * FROM roles ORDER BY id";
+
+    static final String FIND_ROLE_BY_ID = "SELECT * FROM roles WHERE id = ?";
+
+    static final String INSERT_PERMISSION =
+            "INSERT INTO permissions (name, description) VALUES (?, ?) RETURNING id";
+
+    static final String FIND_ALL_PERMISSIONS = "SELECT * FROM permissions";
+
+    static final String FIND_PERMISSIONS_BY_ROLE = """
+            SELECT p.* FROM permissions p
+            JOIN role_permissions rp ON p.id = rp.permission_id
+            WHERE rp.role_id = ?
+            """;
+
+    static final String FIND_ALL_ROLE_PERMISSIONS = "SELECT role_id, permission_id FROM role_permissions";
+
+    static final String INSERT_ROLE_PERMISSION =
+            "INSERT OR IGNORE INTO role_permissions (role_id, permission_id) VALUES (?, ?)";
+
+    static final String DELETE_ROLE_PERMISSION =
+            "DELETE FROM role_permissions WHERE role_id = ? AND permission_id = ?";
+
+    static final String EXISTING_USERNAMES = "SELECT id, username FROM users WHERE username IN (%s)";
+
+    static final String EXISTING_EMAILS = "SELECT id, email FROM users WHERE email IN (%s)";
+
+    static final String CURRENT_USERS = """
+            SELECT u.id, u.username, u.email, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id IN (%s)
+            """;
+
+    static final String ROLE_IDS_BY_USER_IDS = "SELECT id, role_id FROM users WHERE id IN (%s)";
+
+    static final String FIND_USERS_BY_IDS = """
+            SELECT u.*, r.name as role_name
+            FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.id IN (%s)
+            """;
+
+    static final String ALL_USER_SEARCH_KEYS = "SELECT id, username, email FROM users";
+
+    static final String DATA_VERSION = "SELECT version FROM data_changes WHERE id = 1";
+
+    // Write-behind from InMemoryUserRepository: ids are assigned in memory.
+    static final String INSERT_USER_WITH_ID = "INSERT INTO users (id, username, email, role_id) VALUES (?, ?, ?, ?)";
+
+    static final String INSERT_ROLE_WITH_ID = "INSERT INTO roles (id, name) VALUES (?, ?)";
+
+    static final String INSERT_PERMISSION_WITH_ID = "INSERT INTO permissions (id, name, description) VALUES (?, ?, ?)";
+
+    static final String SEQUENCE_VALUE = "SELECT COALESCE(MAX(seq), 0) FROM sqlite_sequence WHERE name = ?";
+
+    /** Upper bound for IN-lists, well below SQLite's host parameter limit. */
+    static final int IN_LIST_CHUNK = 500;
+
+    static String withInList(String template, int size) {
+        return String.format(template, String.join(", ", Collections.nCopies(size, "?")));
+    }
+}
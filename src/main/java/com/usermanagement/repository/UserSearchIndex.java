@@ -0,0 +1,244 @@
+package com.usermanagement.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Prefix index over lowercased usernames and emails. Most entries sit in two parallel
+ * sorted arrays (key, user id) searched by binary search; changes go to a small sorted
+ * delta plus a set of removed entries, which are merged into new arrays once they
+ * outgrow a sixteenth of them, so a single write never copies the whole index.
+ *
+ * Searches do not lock: they read one immutable {@link State}, and a merge publishes a
+ * new one. Writes are synchronized. While {@link #load} runs, writes are recorded and
+ * replayed on top of the loaded rows, so changes made during the scan are not lost.
+ */
+final class UserSearchIndex {
+    private static final int MIN_DELTA = 1_024;
+
+    private record Entry(String key, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int c = key.compareTo(other.key);
+            return c != 0 ? c : Long.compare(id, other.id);
+        }
+    }
+
+    private record Change(boolean add, long id, String username, String email) {
+    }
+
+    private static final class State {
+        private final String[] keys;
+        private final long[] ids;
+        private final ConcurrentSkipListSet<Entry> added = new ConcurrentSkipListSet<>();
+        private final Set<Entry> removed = ConcurrentHashMap.newKeySet();
+
+        private State(String[] keys, long[] ids) {
+            this.keys = keys;
+            this.ids = ids;
+        }
+
+        private boolean inBase(Entry entry) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = keys[mid].compareTo(entry.key());
+                if (c == 0) {
+                    c = Long.compare(ids[mid], entry.id());
+                }
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** First base position whose key is not less than {@code key}. */
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /** Collects the rows for {@link #load}; not thread-safe. */
+    static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+
+        void add(long id, String username, String email) {
+            entries.add(new Entry(normalize(username), id));
+            entries.add(new Entry(normalize(email), id));
+        }
+    }
+
+    private volatile State state = new State(new String[0], new long[0]);
+    private volatile boolean loaded = true;
+    private List<Change> recorded;
+
+    /** An index that records writes until {@link #load} is called. */
+    static UserSearchIndex loading() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.loaded = false;
+        index.recorded = new ArrayList<>();
+        return index;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Replaces the contents with the builder's rows, then applies the writes recorded meanwhile. */
+    synchronized void load(Builder builder) {
+        Entry[] entries = builder.entries.toArray(new Entry[0]);
+        Arrays.parallelSort(entries);
+        String[] keys = new String[entries.length];
+        long[] ids = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = entries[i].key();
+            ids[i] = entries[i].id();
+        }
+        state = new State(keys, ids);
+        List<Change> changes = recorded;
+        recorded = null;
+        if (changes != null) {
+            for (Change change : changes) {
+                if (change.add()) {
+                    add(change.id(), change.username(), change.email());
+                } else {
+                    remove(change.id(), change.username(), change.email());
+                }
+            }
+        }
+        loaded = true;
+    }
+
+    synchronized void add(long id, String username, String email) {
+        if (recorded != null) {
+            recorded.add(new Change(true, id, username, email));
+            return;
+        }
+        State current = state;
+        add(current, new Entry(normalize(username), id));
+        add(current, new Entry(normalize(email), id));
+        compactIfNeeded(current);
+    }
+
+    synchronized void remove(long id, String username, String email) {
+        if (recorded != null) {
+            recorded.add(new Change(false, id, username, email));
+            return;
+        }
+        State current = state;
+        remove(current, new Entry(normalize(username), id));
+        remove(current, new Entry(normalize(email), id));
+        compactIfNeeded(current);
+    }
+
+    private static void add(State state, Entry entry) {
+        if (!state.removed.remove(entry) && !state.inBase(entry)) {
+            state.added.add(entry);
+        }
+    }
+
+    private static void remove(State state, Entry entry) {
+        if (!state.added.remove(entry) && state.inBase(entry)) {
+            state.removed.add(entry);
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} users whose username or email starts with
+     * {@code prefix} (case-insensitive), in key order; each user appears once.
+     */
+    long[] search(String prefix, int limit) {
+        String key = normalize(prefix);
+        State current = state;
+        Set<Long> found = new LinkedHashSet<>();
+        int i = current.lowerBound(key);
+        Iterator<Entry> delta = current.added.tailSet(new Entry(key, Long.MIN_VALUE)).iterator();
+        Entry next = delta.hasNext() ? delta.next() : null;
+        while (found.size() < limit) {
+            boolean baseMatches = i < current.keys.length && current.keys[i].startsWith(key);
+            boolean deltaMatches = next != null && next.key().startsWith(key);
+            if (!baseMatches && !deltaMatches) {
+                break;
+            }
+            if (deltaMatches && (!baseMatches || next.key().compareTo(current.keys[i]) <= 0)) {
+                found.add(next.id());
+                next = delta.hasNext() ? delta.next() : null;
+            } else {
+                if (current.removed.isEmpty() || !current.removed.contains(new Entry(current.keys[i], current.ids[i]))) {
+                    found.add(current.ids[i]);
+                }
+                i++;
+            }
+        }
+        long[] ids = new long[found.size()];
+        int n = 0;
+        for (Long id : found) {
+            ids[n++] = id;
+        }
+        return ids;
+    }
+
+    /** Number of indexed keys; two per user. */
+    int size() {
+        State current = state;
+        return current.keys.length + current.added.size() - current.removed.size();
+    }
+
+    private void compactIfNeeded(State current) {
+        int delta = current.added.size() + current.removed.size();
+        if (delta < Math.max(MIN_DELTA, current.keys.length >> 4)) {
+            return;
+        }
+        int size = current.keys.length + current.added.size() - current.removed.size();
+        String[] keys = new String[size];
+        long[] ids = new long[size];
+        Iterator<Entry> added = current.added.iterator();
+        Entry next = added.hasNext() ? added.next() : null;
+        int n = 0;
+        for (int i = 0; i < current.keys.length; i++) {
+            Entry base = new Entry(current.keys[i], current.ids[i]);
+            while (next != null && next.compareTo(base) < 0) {
+                keys[n] = next.key();
+                ids[n++] = next.id();
+                next = added.hasNext() ? added.next() : null;
+            }
+            if (!current.removed.contains(base)) {
+                keys[n] = base.key();
+                ids[n++] = base.id();
+            }
+        }
+        while (next != null) {
+            keys[n] = next.key();
+            ids[n++] = next.id();
+            next = added.hasNext() ? added.next() : null;
+        }
+        state = new State(keys, ids);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,517 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only, memory-mapped dump of users, roles, permissions and role_permissions,
+ * stamped with the database's change marker
+ * ({@link SqliteUserRepository#getDataVersion()}). Opening maps the file and decodes
+ * only the small tables; users are decoded on access, found by binary search over the
+ * sorted id array or through the username hash table. Opening is therefore constant
+ * time, whatever the number of users.
+ *
+ * <pre>
+ * header   magic, format, change marker, created, CRC32 of the rest, counts, last ids, offsets
+ * roles    id, name, member count
+ * perms    id, name, description
+ * grants   role id, permission id
+ * records  per user: id, role id, username, email   (strings: int length + UTF-8, -1 = null)
+ * ids      long[users], ascending
+ * offsets  int[users], file position of each record
+ * names    int[capacity], open addressing on the username hash: user index + 1, 0 = empty
+ * </pre>
+ */
+public final class UserSnapshot {
+    private static final long MAGIC = 0x554D534E41503031L; // "UMSNAP01"
+    private static final int FORMAT = 1;
+    static final int HEADER_BYTES = 128;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long changeMarker;
+    private final long createdMillis;
+    private final long checksum;
+    private final int userCount;
+    private final long lastUserId;
+    private final long lastRoleId;
+    private final long lastPermissionId;
+    private final int recordsOffset;
+    private final int idsOffset;
+    private final int offsetsOffset;
+    private final int namesOffset;
+    private final int namesMask;
+    private final List<Role> roles = new ArrayList<>();
+    private final Map<Long, String> roleNames = new HashMap<>();
+    private final Map<String, Integer> memberCounts = new LinkedHashMap<>();
+    private final List<Permission> permissions = new ArrayList<>();
+    private final Map<Long, Permission> permissionsById = new HashMap<>();
+    private final Map<Long, List<Long>> grants = new HashMap<>();
+
+    private UserSnapshot(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(8) != FORMAT) {
+            throw new IOException("Keine gültige Snapshot-Datei: " + file);
+        }
+        this.changeMarker = buffer.getLong(16);
+        this.createdMillis = buffer.getLong(24);
+        this.checksum = buffer.getLong(32);
+        int roleCount = buffer.getInt(40);
+        int permissionCount = buffer.getInt(44);
+        int grantCount = buffer.getInt(48);
+        this.userCount = buffer.getInt(52);
+        this.lastUserId = buffer.getLong(56);
+        this.lastRoleId = buffer.getLong(64);
+        this.lastPermissionId = buffer.getLong(72);
+        this.recordsOffset = buffer.getInt(80);
+        this.idsOffset = buffer.getInt(84);
+        this.offsetsOffset = buffer.getInt(88);
+        this.namesOffset = buffer.getInt(92);
+        int namesCapacity = buffer.getInt(96);
+        this.namesMask = namesCapacity - 1;
+        // The sections after the records have fixed sizes; check the layout before using it.
+        if (roleCount < 0 || permissionCount < 0 || grantCount < 0 || userCount < 0
+                || recordsOffset < HEADER_BYTES || idsOffset < recordsOffset
+                || offsetsOffset != idsOffset + 8L * userCount || namesOffset != offsetsOffset + 4L * userCount
+                || namesCapacity <= 0 || Integer.bitCount(namesCapacity) != 1
+                || namesOffset + 4L * namesCapacity != buffer.capacity()) {
+            throw new IOException("Beschädigte Snapshot-Datei: " + file);
+        }
+        try {
+            readTables(roleCount, permissionCount, grantCount);
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            throw new IOException("Beschädigte Snapshot-Datei: " + file, e);
+        }
+    }
+
+    private void readTables(int roleCount, int permissionCount, int grantCount) throws IOException {
+        int pos = HEADER_BYTES;
+        for (int i = 0; i < roleCount; i++) {
+            long id = buffer.getLong(pos);
+            String name = string(pos + 8);
+            pos += 8 + stringBytes(pos + 8);
+            int members = buffer.getInt(pos);
+            pos += 4;
+            roles.add(new Role(id, name));
+            roleNames.put(id, name);
+            memberCounts.put(name, members);
+        }
+        for (int i = 0; i < permissionCount; i++) {
+            long id = buffer.getLong(pos);
+            pos += 8;
+            String name = string(pos);
+            pos += stringBytes(pos);
+            String description = string(pos);
+            pos += stringBytes(pos);
+            Permission permission = new Permission(id, name, description);
+            permissions.add(permission);
+            permissionsById.put(id, permission);
+        }
+        for (int i = 0; i < grantCount; i++) {
+            grants.computeIfAbsent(buffer.getLong(pos), id -> new ArrayList<>()).add(buffer.getLong(pos + 8));
+            pos += 16;
+        }
+        if (pos != recordsOffset) {
+            throw new IOException("Beschädigte Snapshot-Datei: " + file);
+        }
+    }
+
+    /** Maps {@code file}; the mapping stays valid after the channel is closed. */
+    public static UserSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot-Datei ist zu groß: " + file);
+            }
+            return new UserSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getFile() { return file; }
+    public long getChangeMarker() { return changeMarker; }
+    public long getCreatedMillis() { return createdMillis; }
+    public int getUserCount() { return userCount; }
+    public long getLastUserId() { return lastUserId; }
+    public long getLastRoleId() { return lastRoleId; }
+    public long getLastPermissionId() { return lastPermissionId; }
+
+    /** Recomputes the checksum over the whole file; this also pulls every page into memory. */
+    public boolean verify() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return crc.getValue() == checksum;
+    }
+
+    public User findById(long id) {
+        int index = indexOf(id);
+        return index < 0 ? null : userAt(index);
+    }
+
+    /** Role id of the user, or null if the snapshot does not contain it. */
+    public Long findRoleId(long id) {
+        int index = indexOf(id);
+        return index < 0 ? null : buffer.getLong(recordAt(index) + 8);
+    }
+
+    public User findByUsername(String username) {
+        int index = indexOfUsername(username);
+        return index < 0 ? null : userAt(index);
+    }
+
+    public boolean existsByUsername(String username) {
+        return indexOfUsername(username) >= 0;
+    }
+
+    /** The user at position {@code index} in id order. */
+    public User userAt(int index) {
+        int record = recordAt(index);
+        long roleId = buffer.getLong(record + 8);
+        int usernameAt = record + 16;
+        int emailAt = usernameAt + stringBytes(usernameAt);
+        return new User(buffer.getLong(record), string(usernameAt), string(emailAt),
+                new Role(roleId, roleNames.get(roleId)));
+    }
+
+    /** Position of the first user with an id greater than {@code afterId}. */
+    public int indexAfter(long afterId) {
+        int low = 0;
+        int high = userCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idAt(mid) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public List<Role> getRoles() {
+        List<Role> copy = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            copy.add(new Role(role.getId(), role.getName()));
+        }
+        return copy;
+    }
+
+    public Role getRoleWithPermissions(long roleId) {
+        String name = roleNames.get(roleId);
+        if (name == null) {
+            return null;
+        }
+        Role role = new Role(roleId, name);
+        for (Long permissionId : grants.getOrDefault(roleId, List.of())) {
+            Permission permission = permissionsById.get(permissionId);
+            role.getPermissions().add(new Permission(permission.getId(), permission.getName(),
+                    permission.getDescription()));
+        }
+        return role;
+    }
+
+    public Map<String, Integer> countUsersByRole() {
+        return new LinkedHashMap<>(memberCounts);
+    }
+
+    public List<Permission> getPermissions() {
+        List<Permission> copy = new ArrayList<>(permissions.size());
+        for (Permission p : permissions) {
+            copy.add(new Permission(p.getId(), p.getName(), p.getDescription()));
+        }
+        return copy;
+    }
+
+    public Map<Long, List<Long>> getRolePermissionIds() {
+        Map<Long, List<Long>> copy = new HashMap<>();
+        grants.forEach((roleId, permissionIds) -> copy.put(roleId, new ArrayList<>(permissionIds)));
+        return copy;
+    }
+
+    private long idAt(int index) {
+        return buffer.getLong(idsOffset + index * 8);
+    }
+
+    private int recordAt(int index) {
+        return buffer.getInt(offsetsOffset + index * 4);
+    }
+
+    private int indexOf(long id) {
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = idAt(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfUsername(String username) {
+        if (username == null || userCount == 0) {
+            return -1;
+        }
+        byte[] wanted = username.getBytes(StandardCharsets.UTF_8);
+        int slot = slot(username.hashCode(), namesMask);
+        for (int probes = 0; probes <= namesMask; probes++, slot = (slot + 1) & namesMask) {
+            int entry = buffer.getInt(namesOffset + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int usernameAt = recordAt(entry - 1) + 16;
+            if (buffer.getInt(usernameAt) == wanted.length && sameBytes(usernameAt + 4, wanted)) {
+                return entry - 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameBytes(int at, byte[] wanted) {
+        for (int i = 0; i < wanted.length; i++) {
+            if (buffer.get(at + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int at) {
+        int length = buffer.getInt(at);
+        if (length < 0) {
+            return null;
+        }
+        // Checked before allocating, so a damaged length cannot ask for gigabytes.
+        if (length > buffer.capacity() - at - 4) {
+            throw new IllegalStateException("Beschädigte Snapshot-Datei: " + file);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int stringBytes(int at) {
+        return 4 + Math.max(0, buffer.getInt(at));
+    }
+
+    private static int slot(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9 >>> 1 & mask;
+    }
+
+    /**
+     * Writes a snapshot section by section: roles, permissions, grants, then users in
+     * ascending id order. The file appears atomically on commit.
+     */
+    static final class Writer implements Closeable {
+        private enum Section { ROLES, PERMISSIONS, GRANTS, USERS }
+
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(1 << 20);
+        private final CRC32 crc = new CRC32();
+        private final long changeMarker;
+        private Section section = Section.ROLES;
+        private long position = HEADER_BYTES;
+        private int roleCount;
+        private int permissionCount;
+        private int grantCount;
+        private int recordsOffset = -1;
+        private long[] ids = new long[1_024];
+        private int[] offsets = new int[1_024];
+        private int[] hashes = new int[1_024];
+        private int userCount;
+        private boolean committed;
+
+        Writer(Path target, long changeMarker) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.changeMarker = changeMarker;
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        void role(long id, String name, int memberCount) throws IOException {
+            enter(Section.ROLES);
+            putLong(id);
+            putString(name);
+            putInt(memberCount);
+            roleCount++;
+        }
+
+        void permission(long id, String name, String description) throws IOException {
+            enter(Section.PERMISSIONS);
+            putLong(id);
+            putString(name);
+            putString(description);
+            permissionCount++;
+        }
+
+        void grant(long roleId, long permissionId) throws IOException {
+            enter(Section.GRANTS);
+            putLong(roleId);
+            putLong(permissionId);
+            grantCount++;
+        }
+
+        void user(long id, String username, String email, long roleId) throws IOException {
+            enter(Section.USERS);
+            if (userCount > 0 && id <= ids[userCount - 1]) {
+                throw new IllegalStateException("Benutzer müssen nach aufsteigender ID geschrieben werden");
+            }
+            if (userCount == ids.length) {
+                ids = Arrays.copyOf(ids, userCount * 2);
+                offsets = Arrays.copyOf(offsets, userCount * 2);
+                hashes = Arrays.copyOf(hashes, userCount * 2);
+            }
+            ids[userCount] = id;
+            offsets[userCount] = checkedPosition();
+            hashes[userCount] = username.hashCode();
+            userCount++;
+            putLong(id);
+            putLong(roleId);
+            putString(username);
+            putString(email);
+        }
+
+        void commit(long lastUserId, long lastRoleId, long lastPermissionId) throws IOException {
+            enter(Section.USERS);
+            int idsOffset = checkedPosition();
+            for (int i = 0; i < userCount; i++) {
+                putLong(ids[i]);
+            }
+            int offsetsOffset = checkedPosition();
+            for (int i = 0; i < userCount; i++) {
+                putInt(offsets[i]);
+            }
+            int capacity = Integer.highestOneBit(Math.max(2, userCount) * 2 - 1) << 1;
+            int[] names = new int[capacity];
+            for (int i = 0; i < userCount; i++) {
+                int slot = slot(hashes[i], capacity - 1);
+                while (names[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                names[slot] = i + 1;
+            }
+            int namesOffset = checkedPosition();
+            for (int entry : names) {
+                putInt(entry);
+            }
+            drain();
+            checkedPosition();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(0, MAGIC).putInt(8, FORMAT)
+                    .putLong(16, changeMarker).putLong(24, System.currentTimeMillis()).putLong(32, crc.getValue())
+                    .putInt(40, roleCount).putInt(44, permissionCount).putInt(48, grantCount).putInt(52, userCount)
+                    .putLong(56, lastUserId).putLong(64, lastRoleId).putLong(72, lastPermissionId)
+                    .putInt(80, recordsOffset).putInt(84, idsOffset).putInt(88, offsetsOffset)
+                    .putInt(92, namesOffset).putInt(96, capacity);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+            if (!committed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void enter(Section next) throws IOException {
+            if (next.ordinal() < section.ordinal()) {
+                throw new IllegalStateException("Snapshot-Abschnitt " + next + " nach " + section);
+            }
+            if (next == Section.USERS && recordsOffset < 0) {
+                recordsOffset = checkedPosition();
+            }
+            section = next;
+        }
+
+        private int checkedPosition() {
+            if (position > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot ist größer als 2 GB");
+            }
+            return (int) position;
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(8);
+            out.putLong(value);
+            position += 8;
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(4);
+            out.putInt(value);
+            position += 4;
+        }
+
+        private void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            out.put(bytes);
+            position += bytes.length;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                drain();
+                if (out.capacity() < bytes) {
+                    throw new IllegalStateException("Wert ist zu groß für den Snapshot");
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            out.flip();
+            crc.update(out.duplicate());
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UserSnapshot[" + file + ", users=" + userCount + ", marker=" + changeMarker + "]";
+    }
+}
@@ -0,0 +1,279 @@
+package com.usermanagement.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Funnels writes through one thread so SQLite never sees two writers from this process.
+ * The writer takes whatever is queued, up to the batch size and waiting at most the max
+ * delay for stragglers, and runs it in a single transaction: one commit, one fsync. Each
+ * command gets its own savepoint, so a failing command is rolled back alone while the
+ * rest of the group still commits. Futures complete only after the commit.
+ */
+public class WriteQueue implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(WriteQueue.class);
+
+    interface Command<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionPool pool;
+    private final BlockingQueue<Pending<?>> queue;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutMillis;
+    private final BusyRetry busyRetry;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong commitCount = new AtomicLong();
+    private final AtomicLong commitFailures = new AtomicLong();
+    private final AtomicLong commitNanos = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    public WriteQueue(ConnectionPool pool, RepositoryConfig config) {
+        if (config.getWriteQueueCapacity() < 1 || config.getWriteBatchSize() < 1) {
+            throw new IllegalArgumentException("Kapazität und Batch-Größe müssen mindestens 1 sein");
+        }
+        this.pool = pool;
+        this.capacity = config.getWriteQueueCapacity();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = config.getWriteBatchSize();
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getWriteMaxDelayMillis());
+        this.offerTimeoutMillis = config.getWriteQueueOfferTimeoutMillis();
+        this.busyRetry = new BusyRetry(config.getBusyRetries(), config.getBusyBackoffMillis());
+
+        this.writer = new Thread(this::drain, "sqlite-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a command. Blocks while the queue is full and gives up with an
+     * IllegalStateException after the configured offer timeout, or at once if the
+     * queue is closed.
+     */
+    <T> CompletableFuture<T> submit(Command<T> command) {
+        if (closed) {
+            throw new IllegalStateException("Schreibwarteschlange ist geschlossen");
+        }
+        Pending<T> pending = new Pending<>(command);
+        try {
+            if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedCount.incrementAndGet();
+                throw new IllegalStateException("Schreibwarteschlange ist voll");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedCount.incrementAndGet();
+            throw new IllegalStateException("Warten auf die Schreibwarteschlange wurde unterbrochen", e);
+        }
+        // close() may have run between the check above and the offer. If the command is
+        // still queued, nobody will drain it any more; if it is gone, the writer or
+        // close() took it and will complete its future.
+        if (closed && queue.remove(pending)) {
+            throw new IllegalStateException("Schreibwarteschlange ist geschlossen");
+        }
+        submittedCount.incrementAndGet();
+        return pending.future;
+    }
+
+    private void drain() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    Pending<?> next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                    }
+                    batch.add(next);
+                }
+                commitGroup(batch);
+            } catch (InterruptedException e) {
+                if (!closed) {
+                    log.warn("Writer thread interrupted while still open");
+                }
+                // Interrupted while collecting stragglers: these are out of the queue
+                // already, so nobody else would ever complete them.
+                if (!batch.isEmpty()) {
+                    commitGroup(batch);
+                }
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in writer thread", e);
+                for (Pending<?> pending : batch) {
+                    pending.fail(e);
+                    pending.finish();
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<Pending<?>> batch) {
+        long start = System.nanoTime();
+        for (Pending<?> pending : batch) {
+            queueWaitNanos.addAndGet(start - pending.enqueuedAt);
+        }
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        for (int attempt = 0; ; attempt++) {
+            try (Connection conn = pool.getConnection()) {
+                conn.setAutoCommit(false);
+                for (Pending<?> pending : batch) {
+                    pending.executeIn(conn);
+                }
+                conn.commit();
+                conn.setAutoCommit(true);
+                commitCount.incrementAndGet();
+                break;
+            } catch (SQLException e) {
+                // The connection rolled the group back on close; on BUSY run it again.
+                if (busyRetry.shouldRetry(e, attempt) && busyRetry.backoff(attempt)) {
+                    batch.forEach(Pending::reset);
+                    continue;
+                }
+                // Nothing of this group is durable, including the commands that ran fine.
+                commitFailures.incrementAndGet();
+                RuntimeException failure = new RuntimeException("Database error: " + e.getMessage(), e);
+                batch.forEach(pending -> pending.fail(failure));
+                break;
+            }
+        }
+        commitNanos.addAndGet(System.nanoTime() - start);
+
+        // Count before completing, so a caller that resumes already sees its command counted.
+        for (Pending<?> pending : batch) {
+            (pending.failure == null ? completedCount : failedCount).incrementAndGet();
+        }
+        batch.forEach(Pending::finish);
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public int getCapacity() { return capacity; }
+    public int getMaxBatchSize() { return maxBatchSize; }
+    public long getSubmittedCount() { return submittedCount.get(); }
+    public long getCompletedCount() { return completedCount.get(); }
+    public long getFailedCount() { return failedCount.get(); }
+    public long getRejectedCount() { return rejectedCount.get(); }
+    public long getCommitCount() { return commitCount.get(); }
+    public long getCommitFailures() { return commitFailures.get(); }
+    public int getLargestBatch() { return largestBatch.get(); }
+    public long getTotalCommitMillis() { return TimeUnit.NANOSECONDS.toMillis(commitNanos.get()); }
+    public long getTotalQueueWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos.get()); }
+    public long getBusyRetries() { return busyRetry.getRetryCount(); }
+
+    public double getAverageBatchSize() {
+        long groups = commitCount.get() + commitFailures.get();
+        return groups == 0 ? 0.0 : (double) (completedCount.get() + failedCount.get()) / groups;
+    }
+
+    /** Stops accepting commands, lets the writer finish what is queued and waits for it. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        RuntimeException failure = new IllegalStateException("Schreibwarteschlange ist geschlossen");
+        for (Pending<?> pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.fail(failure);
+            pending.finish();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteQueue[depth=" + getQueueDepth() + "/" + capacity +
+                ", submitted=" + getSubmittedCount() +
+                ", completed=" + getCompletedCount() +
+                ", failed=" + getFailedCount() +
+                ", rejected=" + getRejectedCount() +
+                ", commits=" + getCommitCount() +
+                ", commitFailures=" + getCommitFailures() +
+                ", avgBatch=" + String.format("%.1f", getAverageBatchSize()) +
+                ", largestBatch=" + getLargestBatch() + "]";
+    }
+
+    private static final class Pending<T> {
+        private final Command<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+        private T value;
+        private Throwable failure;
+
+        private Pending(Command<T> command) {
+            this.command = command;
+        }
+
+        private void executeIn(Connection conn) throws SQLException {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                value = command.execute(conn);
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                if (BusyRetry.isBusy(e)) {
+                    throw e;
+                }
+                failure = new RuntimeException("Database error: " + e.getMessage(), e);
+                conn.rollback(savepoint);
+                conn.releaseSavepoint(savepoint);
+            } catch (RuntimeException e) {
+                failure = e;
+                conn.rollback(savepoint);
+                conn.releaseSavepoint(savepoint);
+            }
+        }
+
+        private void reset() {
+            value = null;
+            failure = null;
+        }
+
+        private void fail(Throwable e) {
+            failure = e;
+        }
+
+        private void finish() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.usermanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking repository work off the caller's thread. Each task gets its own virtual
+ * thread when the JVM has them (Java 21+), otherwise a small platform pool is used.
+ * A semaphore caps how many tasks touch the database at once, so thousands of waiting
+ * callers park cheaply instead of piling up on the connection pool.
+ *
+ * Cancelling a returned future, or letting it time out, interrupts the task if it is
+ * still waiting or running.
+ */
+public class AsyncExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long timeoutMillis;
+
+    /**
+     * @param maxConcurrency tasks allowed to run at the same time, typically the size
+     *                       of the connection pool
+     * @param timeout        deadline per task counted from submission, or zero for none
+     */
+    public AsyncExecutor(int maxConcurrency, Duration timeout) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency muss mindestens 1 sein");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.timeoutMillis = timeout == null ? 0 : timeout.toMillis();
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrency, platformThreads());
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        TaskFuture<T> result = new TaskFuture<>();
+        result.whenComplete((value, error) -> result.interruptUnlessSelf());
+        result.running = executor.submit(() -> run(task, result));
+        if (timeoutMillis > 0) {
+            result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> void run(Callable<T> task, TaskFuture<T> result) {
+        result.runner = Thread.currentThread();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return;
+        }
+
+        // The permit is returned before completing, so callers see it free once they resume.
+        T value = null;
+        Throwable failure = null;
+        try {
+            if (!result.isDone()) {
+                value = task.call();
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            permits.release();
+        }
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public int getActiveCount() { return maxConcurrency - permits.availablePermits(); }
+    public int getWaitingCount() { return permits.getQueueLength(); }
+    public boolean isVirtualThreads() { return virtualThreads; }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A virtual-thread-per-task executor, or null on JVMs without virtual threads. */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.debug("Virtual threads not available, using platform threads");
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "async-repository-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class TaskFuture<T> extends CompletableFuture<T> {
+        private volatile Future<?> running;
+        private volatile Thread runner;
+
+        // Completion by the task itself needs no interrupt; cancel and timeout do.
+        private void interruptUnlessSelf() {
+            Future<?> task = running;
+            if (task != null && Thread.currentThread() != runner) {
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.BatchResult;
+import com.usermanagement.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade over {@link UserRepository} and the three services. Every call
+ * runs on the shared {@link AsyncExecutor}; exceptions thrown by the wrapped method
+ * complete the future exceptionally with the original exception.
+ */
+public class AsyncUserManagement implements AutoCloseable {
+    private final UserRepository repository;
+    private final UserService userService;
+    private final RoleService roleService;
+    private final PermissionService permissionService;
+    private final AsyncExecutor executor;
+
+    public AsyncUserManagement(UserRepository repository, UserService userService, RoleService roleService,
+                               PermissionService permissionService, AsyncExecutor executor) {
+        this.repository = repository;
+        this.userService = userService;
+        this.roleService = roleService;
+        this.permissionService = permissionService;
+        this.executor = executor;
+    }
+
+    /** Uses the repository's concurrency as limit; more would only queue inside it. */
+    public static AsyncUserManagement create(UserRepository repository, PermissionService permissionService,
+                                             Duration timeout) {
+        AsyncExecutor executor = new AsyncExecutor(repository.getMaxConcurrency(), timeout);
+        return new AsyncUserManagement(repository, new UserService(repository), new RoleService(repository),
+                permissionService, executor);
+    }
+
+    public AsyncExecutor getExecutor() {
+        return executor;
+    }
+
+    // Users
+
+    public CompletableFuture<User> findById(Long id) {
+        return executor.submit(() -> repository.findById(id));
+    }
+
+    public CompletableFuture<User> findByUsername(String username) {
+        return executor.submit(() -> repository.findByUsername(username));
+    }
+
+    public CompletableFuture<List<User>> findUsersPage(Long afterId, int limit) {
+        return executor.submit(() -> repository.findUsersPage(afterId, limit));
+    }
+
+    public CompletableFuture<User> createUser(String username, String email, Role role) {
+        return executor.submit(() -> userService.createUser(username, email, role));
+    }
+
+    public CompletableFuture<BatchResult<User>> createUsers(Collection<User> users) {
+        return executor.submit(() -> userService.createUsers(users));
+    }
+
+    public CompletableFuture<User> updateUser(User user) {
+        return executor.submit(() -> userService.updateUser(user));
+    }
+
+    public CompletableFuture<BatchResult<User>> updateUsers(Collection<User> users) {
+        return executor.submit(() -> userService.updateUsers(users));
+    }
+
+    public CompletableFuture<Void> deleteUser(Long userId) {
+        return executor.run(() -> repository.deleteUser(userId));
+    }
+
+    public CompletableFuture<BatchResult<Long>> deleteUsers(Collection<Long> userIds) {
+        return executor.submit(() -> userService.deleteUsers(userIds));
+    }
+
+    // Roles
+
+    public CompletableFuture<Role> addRole(String name) {
+        return executor.submit(() -> roleService.addRole(name));
+    }
+
+    public CompletableFuture<Role> getRoleWithPermissions(Long roleId) {
+        return executor.submit(() -> roleService.getRoleWithPermissions(roleId));
+    }
+
+    public CompletableFuture<List<Role>> getAllRoles() {
+        return executor.submit(roleService::getAllRoles);
+    }
+
+    public CompletableFuture<Map<String, Integer>> countUsersByRole() {
+        return executor.submit(roleService::countUsersByRole);
+    }
+
+    // Permissions
+
+    public CompletableFuture<Permission> createPermission(String name, String description) {
+        return executor.submit(() -> permissionService.createPermission(name, description));
+    }
+
+    public CompletableFuture<Void> assignPermissionToRole(Long roleId, Long permissionId) {
+        return executor.run(() -> permissionService.assignPermissionToRole(roleId, permissionId));
+    }
+
+    public CompletableFuture<Void> removePermissionFromRole(Long roleId, Long permissionId) {
+        return executor.run(() -> permissionService.removePermissionFromRole(roleId, permissionId));
+    }
+
+    public CompletableFuture<Boolean> hasPermission(Long userId, String permissionName) {
+        return executor.submit(() -> permissionService.hasPermission(userId, permissionName));
+    }
+
+    public CompletableFuture<BitSet> hasPermission(Collection<Long> userIds, String permissionName) {
+        return executor.submit(() -> permissionService.hasPermission(userIds, permissionName));
+    }
+
+    public CompletableFuture<Boolean> roleHasPermission(Long roleId, String permissionName) {
+        return executor.submit(() -> permissionService.roleHasPermission(roleId, permissionName));
+    }
+
+    public CompletableFuture<List<Permission>> getAllPermissions() {
+        return executor.submit(permissionService::getAllPermissions);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,195 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles role_permissions into one bitset per role. Every permission gets a dense
+ * bit index, so a check is a map lookup for the bit plus a binary search for the role,
+ * without allocating. Snapshots are immutable and replaced copy-on-write on changes.
+ */
+public class AuthorizationEngine {
+    private final UserRepository repository;
+    private volatile Compiled compiled;
+
+    public AuthorizationEngine(UserRepository repository) {
+        this.repository = repository;
+    }
+
+    public boolean roleHasPermission(long roleId, String permissionName) {
+        Compiled snapshot = compiled();
+        Integer bit = snapshot.bitByName.get(permissionName);
+        if (bit == null) {
+            return false;
+        }
+        int slot = Arrays.binarySearch(snapshot.roleIds, roleId);
+        if (slot < 0) {
+            return false;
+        }
+        long[] bits = snapshot.roleBits[slot];
+        int word = bit >>> 6;
+        return word < bits.length && (bits[word] & (1L << bit)) != 0;
+    }
+
+    /** Sorted ids of all roles that currently hold the permission; empty if it is unknown. */
+    public long[] rolesWithPermission(String permissionName) {
+        Compiled snapshot = compiled();
+        Integer bit = snapshot.bitByName.get(permissionName);
+        if (bit == null) {
+            return new long[0];
+        }
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        long[] roles = new long[snapshot.roleIds.length];
+        int count = 0;
+        for (int slot = 0; slot < snapshot.roleIds.length; slot++) {
+            long[] bits = snapshot.roleBits[slot];
+            if (word < bits.length && (bits[word] & mask) != 0) {
+                roles[count++] = snapshot.roleIds[slot];
+            }
+        }
+        return Arrays.copyOf(roles, count);
+    }
+
+    public synchronized void registerPermission(Permission permission) {
+        Compiled current = compiled;
+        if (current == null || current.bitById.containsKey(permission.getId())) {
+            return;
+        }
+        compiled = current.withPermission(permission.getId(), permission.getName());
+    }
+
+    public synchronized void grant(Long roleId, Long permissionId) {
+        Compiled current = compiled;
+        if (current == null) {
+            return;
+        }
+        Integer bit = current.bitById.get(permissionId);
+        if (bit == null) {
+            // Permission created outside this engine: fall back to a full compile.
+            compiled = null;
+            return;
+        }
+        compiled = current.withBit(roleId, bit, true);
+    }
+
+    public synchronized void revoke(Long roleId, Long permissionId) {
+        Compiled current = compiled;
+        if (current == null) {
+            return;
+        }
+        Integer bit = current.bitById.get(permissionId);
+        if (bit != null) {
+            compiled = current.withBit(roleId, bit, false);
+        }
+    }
+
+    public synchronized void invalidate() {
+        compiled = null;
+    }
+
+    private Compiled compiled() {
+        Compiled snapshot = compiled;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = compiled;
+                if (snapshot == null) {
+                    snapshot = compile();
+                    compiled = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private Compiled compile() {
+        Map<String, Integer> bitByName = new HashMap<>();
+        Map<Long, Integer> bitById = new HashMap<>();
+        for (Permission permission : repository.getAllPermissions()) {
+            int bit = bitById.size();
+            bitById.put(permission.getId(), bit);
+            bitByName.put(permission.getName(), bit);
+        }
+
+        Map<Long, List<Long>> rolePermissions = repository.getRolePermissionIds();
+        long[] roleIds = rolePermissions.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[][] roleBits = new long[roleIds.length][];
+        int words = wordsFor(bitById.size());
+        for (int i = 0; i < roleIds.length; i++) {
+            long[] bits = new long[words];
+            for (Long permissionId : rolePermissions.get(roleIds[i])) {
+                Integer bit = bitById.get(permissionId);
+                if (bit != null) {
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+            roleBits[i] = bits;
+        }
+        return new Compiled(bitByName, bitById, roleIds, roleBits);
+    }
+
+    private static int wordsFor(int bitCount) {
+        return Math.max(1, (bitCount + 63) >>> 6);
+    }
+
+    private static final class Compiled {
+        private final Map<String, Integer> bitByName;
+        private final Map<Long, Integer> bitById;
+        private final long[] roleIds;
+        private final long[][] roleBits;
+
+        private Compiled(Map<String, Integer> bitByName, Map<Long, Integer> bitById,
+                         long[] roleIds, long[][] roleBits) {
+            this.bitByName = bitByName;
+            this.bitById = bitById;
+            this.roleIds = roleIds;
+            this.roleBits = roleBits;
+        }
+
+        private Compiled withPermission(Long permissionId, String name) {
+            Map<String, Integer> names = new HashMap<>(bitByName);
+            Map<Long, Integer> ids = new HashMap<>(bitById);
+            int bit = ids.size();
+            ids.put(permissionId, bit);
+            names.put(name, bit);
+            return new Compiled(names, ids, roleIds, roleBits);
+        }
+
+        private Compiled withBit(long roleId, int bit, boolean set) {
+            long[] ids = roleIds;
+            long[][] bits = roleBits;
+            int slot = Arrays.binarySearch(ids, roleId);
+            if (slot < 0) {
+                if (!set) {
+                    return this;
+                }
+                int insertAt = -slot - 1;
+                ids = new long[roleIds.length + 1];
+                bits = new long[roleBits.length + 1][];
+                System.arraycopy(roleIds, 0, ids, 0, insertAt);
+                System.arraycopy(roleIds, insertAt, ids, insertAt + 1, roleIds.length - insertAt);
+                System.arraycopy(roleBits, 0, bits, 0, insertAt);
+                System.arraycopy(roleBits, insertAt, bits, insertAt + 1, roleBits.length - insertAt);
+                ids[insertAt] = roleId;
+                bits[insertAt] = new long[0];
+                slot = insertAt;
+            } else {
+                bits = roleBits.clone();
+            }
+
+            long[] roleWords = Arrays.copyOf(bits[slot], Math.max(bits[slot].length, wordsFor(bit + 1)));
+            if (set) {
+                roleWords[bit >>> 6] |= 1L << bit;
+            } else {
+                roleWords[bit >>> 6] &= ~(1L << bit);
+            }
+            bits[slot] = roleWords;
+            return new Compiled(bitByName, bitById, ids, bits);
+        }
+    }
+}
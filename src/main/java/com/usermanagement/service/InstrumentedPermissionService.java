@@ -0,0 +1,121 @@
+package com.usermanagement.service;
+
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
+import com.usermanagement.model.Permission;
+import com.usermanagement.repository.UserRepository;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/** PermissionService that records every operation under "permissionService.&lt;method&gt;". */
+public class InstrumentedPermissionService extends PermissionService {
+    private final OperationStats createPermission;
+    private final OperationStats assignPermissionToRole;
+    private final OperationStats removePermissionFromRole;
+    private final OperationStats hasPermission;
+    private final OperationStats hasPermissionBulk;
+    private final OperationStats roleHasPermission;
+    private final OperationStats getAllPermissions;
+
+    public InstrumentedPermissionService(UserRepository repository, Metrics metrics) {
+        super(repository);
+        this.createPermission = metrics.operation("permissionService.createPermission");
+        this.assignPermissionToRole = metrics.operation("permissionService.assignPermissionToRole");
+        this.removePermissionFromRole = metrics.operation("permissionService.removePermissionFromRole");
+        this.hasPermission = metrics.operation("permissionService.hasPermission");
+        this.hasPermissionBulk = metrics.operation("permissionService.hasPermissionBulk");
+        this.roleHasPermission = metrics.operation("permissionService.roleHasPermission");
+        this.getAllPermissions = metrics.operation("permissionService.getAllPermissions");
+    }
+
+    @Override
+    public Permission createPermission(String name, String description) {
+        long start = createPermission.start();
+        try {
+            Permission permission = super.createPermission(name, description);
+            createPermission.success(start, permission == null ? 0 : 1);
+            return permission;
+        } catch (RuntimeException e) {
+            createPermission.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void assignPermissionToRole(Long roleId, Long permissionId) {
+        long start = assignPermissionToRole.start();
+        try {
+            super.assignPermissionToRole(roleId, permissionId);
+            assignPermissionToRole.success(start, 1);
+        } catch (RuntimeException e) {
+            assignPermissionToRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removePermissionFromRole(Long roleId, Long permissionId) {
+        long start = removePermissionFromRole.start();
+        try {
+            super.removePermissionFromRole(roleId, permissionId);
+            removePermissionFromRole.success(start, 1);
+        } catch (RuntimeException e) {
+            removePermissionFromRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasPermission(Long userId, String permissionName) {
+        long start = hasPermission.start();
+        try {
+            boolean granted = super.hasPermission(userId, permissionName);
+            hasPermission.success(start, granted ? 1 : 0);
+            return granted;
+        } catch (RuntimeException e) {
+            hasPermission.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BitSet hasPermission(Collection<Long> userIds, String permissionName) {
+        long start = hasPermissionBulk.start();
+        try {
+            BitSet allowed = super.hasPermission(userIds, permissionName);
+            hasPermissionBulk.success(start, userIds.size());
+            return allowed;
+        } catch (RuntimeException e) {
+            hasPermissionBulk.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean roleHasPermission(Long roleId, String permissionName) {
+        long start = roleHasPermission.start();
+        try {
+            boolean granted = super.roleHasPermission(roleId, permissionName);
+            roleHasPermission.success(start, granted ? 1 : 0);
+            return granted;
+        } catch (RuntimeException e) {
+            roleHasPermission.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Permission> getAllPermissions() {
+        long start = getAllPermissions.start();
+        try {
+            List<Permission> permissions = super.getAllPermissions();
+            getAllPermissions.success(start, permissions.size());
+            return permissions;
+        } catch (RuntimeException e) {
+            getAllPermissions.failure(start);
+            throw e;
+        }
+    }
+}
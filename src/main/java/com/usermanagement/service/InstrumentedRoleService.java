@@ -0,0 +1,77 @@
+package com.usermanagement.service;
+
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
+import com.usermanagement.model.Role;
+import com.usermanagement.repository.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/** RoleService that records every operation under "roleService.&lt;method&gt;". */
+public class InstrumentedRoleService extends RoleService {
+    private final OperationStats addRole;
+    private final OperationStats getRoleWithPermissions;
+    private final OperationStats getAllRoles;
+    private final OperationStats countUsersByRole;
+
+    public InstrumentedRoleService(UserRepository repository, Metrics metrics) {
+        super(repository);
+        this.addRole = metrics.operation("roleService.addRole");
+        this.getRoleWithPermissions = metrics.operation("roleService.getRoleWithPermissions");
+        this.getAllRoles = metrics.operation("roleService.getAllRoles");
+        this.countUsersByRole = metrics.operation("roleService.countUsersByRole");
+    }
+
+    @Override
+    public Role addRole(String name) {
+        long start = addRole.start();
+        try {
+            Role role = super.addRole(name);
+            addRole.success(start, 1);
+            return role;
+        } catch (RuntimeException e) {
+            addRole.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Role getRoleWithPermissions(Long roleId) {
+        long start = getRoleWithPermissions.start();
+        try {
+            Role role = super.getRoleWithPermissions(roleId);
+            getRoleWithPermissions.success(start, 1 + role.getPermissions().size());
+            return role;
+        } catch (RuntimeException e) {
+            getRoleWithPermissions.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Role> getAllRoles() {
+        long start = getAllRoles.start();
+        try {
+            List<Role> roles = super.getAllRoles();
+            getAllRoles.success(start, roles.size());
+            return roles;
+        } catch (RuntimeException e) {
+            getAllRoles.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> countUsersByRole() {
+        long start = countUsersByRole.start();
+        try {
+            Map<String, Integer> counts = super.countUsersByRole();
+            countUsersByRole.success(start, counts.size());
+            return counts;
+        } catch (RuntimeException e) {
+            countUsersByRole.failure(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.usermanagement.service;
+
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.BatchResult;
+import com.usermanagement.repository.UserRepository;
+
+import java.util.Collection;
+
+/** UserService that records every operation under "userService.&lt;method&gt;". */
+public class InstrumentedUserService extends UserService {
+    private final OperationStats createUser;
+    private final OperationStats updateUser;
+    private final OperationStats createUsers;
+    private final OperationStats updateUsers;
+    private final OperationStats deleteUsers;
+
+    public InstrumentedUserService(UserRepository repository, Metrics metrics) {
+        super(repository);
+        this.createUser = metrics.operation("userService.createUser");
+        this.updateUser = metrics.operation("userService.updateUser");
+        this.createUsers = metrics.operation("userService.createUsers");
+        this.updateUsers = metrics.operation("userService.updateUsers");
+        this.deleteUsers = metrics.operation("userService.deleteUsers");
+    }
+
+    @Override
+    public User createUser(String username, String email, Role role) {
+        long start = createUser.start();
+        try {
+            User user = super.createUser(username, email, role);
+            createUser.success(start, 1);
+            return user;
+        } catch (RuntimeException e) {
+            createUser.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User updateUser(User user) {
+        long start = updateUser.start();
+        try {
+            User updated = super.updateUser(user);
+            updateUser.success(start, 1);
+            return updated;
+        } catch (RuntimeException e) {
+            updateUser.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users) {
+        long start = createUsers.start();
+        try {
+            BatchResult<User> result = super.createUsers(users);
+            createUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            createUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<User> updateUsers(Collection<User> users) {
+        long start = updateUsers.start();
+        try {
+            BatchResult<User> result = super.updateUsers(users);
+            updateUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            updateUsers.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult<Long> deleteUsers(Collection<Long> userIds) {
+        long start = deleteUsers.start();
+        try {
+            BatchResult<Long> result = super.deleteUsers(userIds);
+            deleteUsers.success(start, result.getSuccessCount());
+            return result;
+        } catch (RuntimeException e) {
+            deleteUsers.failure(start);
+            throw e;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.usermanagement.service;
 
 import com.usermanagement.model.Permission;
+import com.usermanagement.model.User;
 import com.usermanagement.repository.UserRepository;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class PermissionService {
     private final UserRepository repository;
+    private final AuthorizationEngine authorization;
 
     public PermissionService(UserRepository repository) {
         this.repository = repository;
+        this.authorization = new AuthorizationEngine(repository);
     }
 
     public Permission createPermission(String name, String description) {
@@ -16,7 +23,11 @@ public class PermissionService {
             throw new IllegalArgumentException("Berechtigungsname darf nicht leer sein");
         }
 
-        return repository.createPermission(name, description);
+        Permission permission = repository.createPermission(name, description);
+        if (permission != null) {
+            authorization.registerPermission(permission);
+        }
+        return permission;
     }
 
     public void assignPermissionToRole(Long roleId, Long permissionId) {
@@ -25,6 +36,63 @@ public class PermissionService {
         }
 
         repository.addPermissionToRole(roleId, permissionId);
+        authorization.grant(roleId, permissionId);
+    }
+
+    public void removePermissionFromRole(Long roleId, Long permissionId) {
+        if (roleId == null || permissionId == null) {
+            throw new IllegalArgumentException("Role ID und Permission ID dürfen nicht null sein");
+        }
+
+        repository.removePermissionFromRole(roleId, permissionId);
+        authorization.revoke(roleId, permissionId);
+    }
+
+    public boolean hasPermission(Long userId, String permissionName) {
+        if (userId == null || permissionName == null) {
+            throw new IllegalArgumentException("User ID und Berechtigungsname dürfen nicht null sein");
+        }
+
+        User user = repository.findById(userId);
+        if (user == null || user.getRole() == null || user.getRole().getId() == null) {
+            return false;
+        }
+        return authorization.roleHasPermission(user.getRole().getId(), permissionName);
+    }
+
+    /**
+     * Checks one permission for many users at once. Bit i is set if the i-th id of
+     * {@code userIds} (in iteration order) has the permission; null and unknown ids are
+     * denied. The users' roles are loaded with one set-based lookup, not one per user.
+     */
+    public BitSet hasPermission(Collection<Long> userIds, String permissionName) {
+        if (userIds == null || permissionName == null) {
+            throw new IllegalArgumentException("User IDs und Berechtigungsname dürfen nicht null sein");
+        }
+
+        BitSet allowed = new BitSet(userIds.size());
+        long[] roles = authorization.rolesWithPermission(permissionName);
+        if (userIds.isEmpty() || roles.length == 0) {
+            return allowed;
+        }
+
+        Map<Long, Long> roleIds = repository.findRoleIdsByUserIds(userIds);
+        int index = 0;
+        for (Long userId : userIds) {
+            Long roleId = userId == null ? null : roleIds.get(userId);
+            if (roleId != null && Arrays.binarySearch(roles, roleId) >= 0) {
+                allowed.set(index);
+            }
+            index++;
+        }
+        return allowed;
+    }
+
+    public boolean roleHasPermission(Long roleId, String permissionName) {
+        if (roleId == null || permissionName == null) {
+            throw new IllegalArgumentException("Role ID und Berechtigungsname dürfen nicht null sein");
+        }
+        return authorization.roleHasPermission(roleId, permissionName);
     }
 
     public List<Permission> getAllPermissions() {
@@ -3,6 +3,7 @@ package com.usermanagement.service;
 import com.usermanagement.model.Role;
 import com.usermanagement.repository.UserRepository;
 import java.util.List;
+import java.util.Map;
 
 public class RoleService {
     private final UserRepository repository;
@@ -35,4 +36,8 @@ public class RoleService {
     public List<Role> getAllRoles() {
         return repository.getAllRoles();
     }
+
+    public Map<String, Integer> countUsersByRole() {
+        return repository.countUsersByRole();
+    }
 }
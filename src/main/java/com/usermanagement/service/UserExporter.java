@@ -0,0 +1,296 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes all users with their role, and optionally the permissions of that role, as
+ * CSV or JSON Lines. Users come from {@link UserRepository#streamAllUsers()}, a
+ * forward-only cursor, and are encoded straight into one fixed buffer that is drained
+ * to the channel whenever it fills, so memory use does not grow with the row count.
+ */
+public class UserExporter {
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    public enum Format {
+        CSV("text/csv; charset=utf-8"),
+        JSONL("application/x-ndjson; charset=utf-8");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() { return contentType; }
+
+        /** "csv" or "jsonl", case-insensitive. */
+        public static Format of(String name) {
+            if (name != null) {
+                for (Format format : values()) {
+                    if (format.name().equalsIgnoreCase(name)) {
+                        return format;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Unbekanntes Exportformat: " + name);
+        }
+    }
+
+    private final UserRepository repository;
+
+    public UserExporter(UserRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Writes the export to {@code target}, replacing it, and returns the number of users. */
+    public long export(Path target, Format format, boolean withPermissions) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(channel, format, withPermissions);
+        }
+    }
+
+    /** Writes the export to {@code channel}, which stays open, and returns the number of users. */
+    public long export(WritableByteChannel channel, Format format, boolean withPermissions) throws IOException {
+        if (channel == null || format == null) {
+            throw new IllegalArgumentException("Ziel und Format dürfen nicht null sein");
+        }
+        Map<Long, List<String>> permissionNames = withPermissions ? permissionNamesByRole() : null;
+        // The permission column is the same for every user of a role; encode it once.
+        Map<Long, byte[]> encodedPermissions = new HashMap<>();
+        Output out = new Output(channel, BUFFER_BYTES);
+        if (format == Format.CSV) {
+            out.ascii(withPermissions ? "id,username,email,role_id,role,permissions\n" : "id,username,email,role_id,role\n");
+        }
+
+        long count = 0;
+        try (Stream<User> users = repository.streamAllUsers()) {
+            for (User user : (Iterable<User>) users::iterator) {
+                Role role = user.getRole();
+                Long roleId = role == null ? null : role.getId();
+                byte[] permissions = null;
+                if (withPermissions) {
+                    permissions = encodedPermissions.computeIfAbsent(roleId == null ? -1L : roleId,
+                            id -> encodePermissions(permissionNames.getOrDefault(id, List.of()), format));
+                }
+                if (format == Format.CSV) {
+                    writeCsv(out, user, roleId, role == null ? null : role.getName(), permissions);
+                } else {
+                    writeJson(out, user, roleId, role == null ? null : role.getName(), permissions);
+                }
+                count++;
+            }
+        }
+        out.drain();
+        return count;
+    }
+
+    private Map<Long, List<String>> permissionNamesByRole() {
+        Map<Long, String> names = new HashMap<>();
+        for (Permission permission : repository.getAllPermissions()) {
+            names.put(permission.getId(), permission.getName());
+        }
+        Map<Long, List<String>> byRole = new HashMap<>();
+        repository.getRolePermissionIds().forEach((roleId, permissionIds) -> byRole.put(roleId,
+                permissionIds.stream().map(names::get).filter(name -> name != null).sorted().toList()));
+        return byRole;
+    }
+
+    private static byte[] encodePermissions(List<String> names, Format format) {
+        Output out = new Output(null, 64);
+        if (format == Format.CSV) {
+            out.csv(String.join(";", names));
+        } else {
+            out.ascii("[");
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    out.ascii(",");
+                }
+                out.json(names.get(i));
+            }
+            out.ascii("]");
+        }
+        return out.toBytes();
+    }
+
+    private static void writeCsv(Output out, User user, Long roleId, String roleName, byte[] permissions)
+            throws IOException {
+        out.number(user.getId()).ascii(",");
+        out.csv(user.getUsername()).ascii(",");
+        out.csv(user.getEmail()).ascii(",");
+        out.number(roleId).ascii(",");
+        out.csv(roleName);
+        if (permissions != null) {
+            out.ascii(",").bytes(permissions);
+        }
+        out.ascii("\n");
+        out.drainIfFull();
+    }
+
+    private static void writeJson(Output out, User user, Long roleId, String roleName, byte[] permissions)
+            throws IOException {
+        out.ascii("{\"id\":").number(user.getId());
+        out.ascii(",\"username\":").json(user.getUsername());
+        out.ascii(",\"email\":").json(user.getEmail());
+        out.ascii(",\"role\":");
+        if (roleId == null) {
+            out.ascii("null");
+        } else {
+            out.ascii("{\"id\":").number(roleId).ascii(",\"name\":").json(roleName).ascii("}");
+        }
+        if (permissions != null) {
+            out.ascii(",\"permissions\":").bytes(permissions);
+        }
+        out.ascii("}\n");
+        out.drainIfFull();
+    }
+
+    /**
+     * UTF-8 encoder over a byte array that grows only while a row does not fit; the
+     * caller drains it after every row once half of it is used.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private byte[] buffer;
+        private int length;
+
+        private Output(WritableByteChannel channel, int capacity) {
+            this.channel = channel;
+            this.buffer = new byte[capacity];
+        }
+
+        Output ascii(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer[length++] = (byte) value.charAt(i);
+            }
+            return this;
+        }
+
+        Output number(Long value) {
+            return value == null ? this : ascii(Long.toString(value));
+        }
+
+        Output bytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, length, value.length);
+            length += value.length;
+            return this;
+        }
+
+        /** RFC 4180 field: quoted only if it contains a separator, quote or line break. */
+        Output csv(String value) {
+            if (value == null) {
+                return this;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                return text(value);
+            }
+            ascii("\"");
+            int start = 0;
+            int at;
+            while ((at = value.indexOf('"', start)) >= 0) {
+                text(value.substring(start, at + 1)).ascii("\"");
+                start = at + 1;
+            }
+            return text(value.substring(start)).ascii("\"");
+        }
+
+        Output json(String value) {
+            if (value == null) {
+                return ascii("null");
+            }
+            ascii("\"");
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != '"' && c != '\\' && c >= 0x20) {
+                    continue;
+                }
+                text(value.substring(start, i));
+                switch (c) {
+                    case '"' -> ascii("\\\"");
+                    case '\\' -> ascii("\\\\");
+                    case '\n' -> ascii("\\n");
+                    case '\r' -> ascii("\\r");
+                    case '\t' -> ascii("\\t");
+                    default -> ascii(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                }
+                start = i + 1;
+            }
+            return text(value.substring(start)).ascii("\"");
+        }
+
+        private Output text(String value) {
+            ensure(value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xC0 | c >> 6);
+                    buffer[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | cp >> 18);
+                    buffer[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    buffer[length++] = '?';
+                } else {
+                    buffer[length++] = (byte) (0xE0 | c >> 12);
+                    buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            return this;
+        }
+
+        private void ensure(int bytes) {
+            if (length + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+            }
+        }
+
+        void drainIfFull() throws IOException {
+            if (length >= BUFFER_BYTES / 2) {
+                drain();
+            }
+        }
+
+        void drain() throws IOException {
+            ByteBuffer pending = ByteBuffer.wrap(buffer, 0, length);
+            while (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+            length = 0;
+        }
+
+        byte[] toBytes() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+}
@@ -0,0 +1,667 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.BatchResult;
+import com.usermanagement.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Imports users from CSV or JSON Lines, in the layout {@link UserExporter} writes.
+ * The calling thread reads the file in chunks of records; a pool parses and validates
+ * the chunks in parallel; the calling thread then takes the chunks back in file order,
+ * drops rows that repeat a username or email seen earlier in the file, and hands each
+ * chunk to {@link UserRepository#saveUsers} as one transaction. Duplicates against the
+ * database are found there, with one lookup per batch.
+ *
+ * CSV needs a header with username, email and role (name) or role_id; other columns,
+ * such as id and permissions, are ignored. JSON Lines objects need username, email and
+ * role as name or as {"id":..,"name":..}, or role_id. Ids are always assigned anew.
+ *
+ * Rejected rows go to the error file as CSV: line number, reason and the record.
+ */
+public class UserImporter {
+    public static final int DEFAULT_CHUNK_ROWS = 2_000;
+
+    private final UserRepository repository;
+    private final UserValidator validator = new UserValidator();
+    private final int parserThreads;
+    private final int chunkRows;
+
+    /** Counts so far, handed to the progress callback after every chunk and returned at the end. */
+    public static final class Summary {
+        private final long rows;
+        private final long imported;
+        private final long failed;
+        private final long elapsedNanos;
+
+        Summary(long rows, long imported, long failed, long elapsedNanos) {
+            this.rows = rows;
+            this.imported = imported;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() { return rows; }
+        public long getImported() { return imported; }
+        public long getFailed() { return failed; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+    }
+
+    private record Record(long line, String text) {
+    }
+
+    private record Failure(long line, String error, String text) {
+    }
+
+    private static final class ParsedChunk {
+        private final List<User> users = new ArrayList<>();
+        private final List<Record> sources = new ArrayList<>();
+        private final List<Failure> failures = new ArrayList<>();
+        private int rows;
+    }
+
+    public UserImporter(UserRepository repository) {
+        this(repository, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_ROWS);
+    }
+
+    public UserImporter(UserRepository repository, int parserThreads, int chunkRows) {
+        if (parserThreads < 1 || chunkRows < 1) {
+            throw new IllegalArgumentException("Threads und Chunk-Größe müssen mindestens 1 sein");
+        }
+        this.repository = repository;
+        this.parserThreads = parserThreads;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Imports {@code source}. Rejected rows are written to {@code errorFile} (created
+     * only if there are any; null to skip). {@code progress} may be null.
+     */
+    public Summary importFile(Path source, UserExporter.Format format, Path errorFile,
+                              Consumer<Summary> progress) throws IOException {
+        if (source == null || format == null) {
+            throw new IllegalArgumentException("Quelle und Format dürfen nicht null sein");
+        }
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format, errorFile, progress);
+        }
+    }
+
+    /** Like {@link #importFile} but reads from {@code in}, which stays open. */
+    public Summary importFrom(Reader in, UserExporter.Format format, Path errorFile,
+                              Consumer<Summary> progress) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Role> rolesByName = new HashMap<>();
+        Map<Long, Role> rolesById = new HashMap<>();
+        for (Role role : repository.getAllRoles()) {
+            rolesByName.put(role.getName().toUpperCase(Locale.ROOT), role);
+            rolesById.put(role.getId(), role);
+        }
+
+        BufferedReader reader = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in, 1 << 16);
+        RecordReader records = new RecordReader(reader, format == UserExporter.Format.CSV);
+        RowParser parser;
+        if (format == UserExporter.Format.CSV) {
+            Record header = records.next();
+            parser = header == null ? null : new CsvRowParser(header.text(), rolesByName, rolesById);
+        } else {
+            parser = new JsonRowParser(rolesByName, rolesById);
+        }
+
+        BatchWriter writer = new BatchWriter(errorFile, start, progress);
+        if (parser == null) {
+            return writer.summary();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(parserThreads, parserThreadFactory());
+        try (writer) {
+            // Bounded so a slow database holds back the reader instead of filling the heap.
+            Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+            List<Record> chunk = new ArrayList<>(chunkRows);
+            Record record;
+            while ((record = records.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == chunkRows) {
+                    List<Record> full = chunk;
+                    inFlight.add(pool.submit(() -> parse(full, parser)));
+                    chunk = new ArrayList<>(chunkRows);
+                    if (inFlight.size() > parserThreads * 2) {
+                        writer.write(await(inFlight.poll()));
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<Record> last = chunk;
+                inFlight.add(pool.submit(() -> parse(last, parser)));
+            }
+            while (!inFlight.isEmpty()) {
+                writer.write(await(inFlight.poll()));
+            }
+            return writer.summary();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ParsedChunk parse(List<Record> records, RowParser parser) {
+        ParsedChunk chunk = new ParsedChunk();
+        chunk.rows = records.size();
+        for (Record record : records) {
+            try {
+                User user = parser.parse(record.text());
+                UserValidator.Reason reason = validator.check(user.getUsername(), user.getEmail(), user.getRole());
+                if (reason != null) {
+                    chunk.failures.add(new Failure(record.line(), reason.getMessage(), record.text()));
+                } else {
+                    chunk.users.add(user);
+                    chunk.sources.add(record);
+                }
+            } catch (IllegalArgumentException e) {
+                chunk.failures.add(new Failure(record.line(), e.getMessage(), record.text()));
+            }
+        }
+        return chunk;
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import wurde unterbrochen", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory parserThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "import-parser-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Single consumer: file-level duplicate check, batch insert, error file, counters. */
+    private final class BatchWriter implements AutoCloseable {
+        private final Path errorFile;
+        private final long start;
+        private final Consumer<Summary> progress;
+        private final Map<String, Long> usernameLines = new HashMap<>();
+        private final Map<String, Long> emailLines = new HashMap<>();
+        private BufferedWriter errors;
+        private long rows;
+        private long imported;
+        private long failed;
+
+        private BatchWriter(Path errorFile, long start, Consumer<Summary> progress) {
+            this.errorFile = errorFile;
+            this.start = start;
+            this.progress = progress;
+        }
+
+        void write(ParsedChunk chunk) throws IOException {
+            List<Failure> failures = new ArrayList<>(chunk.failures);
+            List<User> batch = new ArrayList<>(chunk.users.size());
+            List<Record> batchSources = new ArrayList<>(chunk.users.size());
+            for (int i = 0; i < chunk.users.size(); i++) {
+                User user = chunk.users.get(i);
+                Record source = chunk.sources.get(i);
+                Long firstUsername = usernameLines.putIfAbsent(user.getUsername(), source.line());
+                Long firstEmail = firstUsername != null ? null : emailLines.putIfAbsent(user.getEmail(), source.line());
+                if (firstUsername != null) {
+                    failures.add(new Failure(source.line(), "Username doppelt in der Datei (Zeile " + firstUsername + ")", source.text()));
+                } else if (firstEmail != null) {
+                    usernameLines.remove(user.getUsername());
+                    failures.add(new Failure(source.line(), "Email doppelt in der Datei (Zeile " + firstEmail + ")", source.text()));
+                } else {
+                    batch.add(user);
+                    batchSources.add(source);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                for (BatchResult.Row<User> row : repository.saveUsers(batch).getRows()) {
+                    if (row.isSuccess()) {
+                        imported++;
+                    } else {
+                        Record source = batchSources.get(row.getIndex());
+                        failures.add(new Failure(source.line(), row.getError(), source.text()));
+                    }
+                }
+            }
+
+            failures.sort((a, b) -> Long.compare(a.line(), b.line()));
+            for (Failure failure : failures) {
+                recordFailure(failure);
+            }
+            rows += chunk.rows;
+            if (progress != null) {
+                progress.accept(summary());
+            }
+        }
+
+        private void recordFailure(Failure failure) throws IOException {
+            failed++;
+            if (errorFile == null) {
+                return;
+            }
+            if (errors == null) {
+                errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8);
+                errors.write("zeile,fehler,datensatz\n");
+            }
+            errors.write(Long.toString(failure.line()));
+            errors.write(',');
+            errors.write(csvField(failure.error()));
+            errors.write(',');
+            errors.write(csvField(failure.text()));
+            errors.write('\n');
+        }
+
+        Summary summary() {
+            return new Summary(rows, imported, failed, System.nanoTime() - start);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (errors != null) {
+                errors.close();
+            }
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Splits the input into records with their first line number. A CSV record goes on
+     * while a quoted field is open, so values with line breaks stay whole.
+     */
+    private static final class RecordReader {
+        private final BufferedReader reader;
+        private final boolean csv;
+        private long line;
+
+        private RecordReader(BufferedReader reader, boolean csv) {
+            this.reader = reader;
+            this.csv = csv;
+        }
+
+        Record next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            long first = line;
+            if (csv && !quotesBalanced(text)) {
+                StringBuilder record = new StringBuilder(text);
+                String more;
+                while ((more = reader.readLine()) != null) {
+                    line++;
+                    record.append('\n').append(more);
+                    if (quotesBalanced(record)) {
+                        break;
+                    }
+                }
+                text = record.toString();
+            }
+            return new Record(first, text);
+        }
+
+        private static boolean quotesBalanced(CharSequence text) {
+            int quotes = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '"') {
+                    quotes++;
+                }
+            }
+            return quotes % 2 == 0;
+        }
+    }
+
+    private interface RowParser {
+        /** The user in {@code text}, with its role resolved; IllegalArgumentException if malformed. */
+        User parse(String text);
+    }
+
+    private abstract static class RoleResolver implements RowParser {
+        private final Map<String, Role> rolesByName;
+        private final Map<Long, Role> rolesById;
+
+        RoleResolver(Map<String, Role> rolesByName, Map<Long, Role> rolesById) {
+            this.rolesByName = rolesByName;
+            this.rolesById = rolesById;
+        }
+
+        Role resolve(String name, Long id) {
+            if (name != null && !name.isEmpty()) {
+                Role role = rolesByName.get(name.toUpperCase(Locale.ROOT));
+                if (role == null) {
+                    throw new IllegalArgumentException("Rolle nicht gefunden: " + name);
+                }
+                return role;
+            }
+            if (id != null) {
+                Role role = rolesById.get(id);
+                if (role == null) {
+                    throw new IllegalArgumentException("Rolle nicht gefunden: " + id);
+                }
+                return role;
+            }
+            return null;
+        }
+
+        static Long parseId(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ungültige Rollen-ID: " + value);
+            }
+        }
+    }
+
+    private static final class CsvRowParser extends RoleResolver {
+        private final int username;
+        private final int email;
+        private final int role;
+        private final int roleId;
+        private final int columns;
+
+        CsvRowParser(String header, Map<String, Role> rolesByName, Map<Long, Role> rolesById) {
+            super(rolesByName, rolesById);
+            List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            List<String> normalized = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            this.username = normalized.indexOf("username");
+            this.email = normalized.indexOf("email");
+            this.role = normalized.indexOf("role");
+            this.roleId = normalized.indexOf("role_id");
+            this.columns = names.size();
+            if (username < 0 || email < 0 || (role < 0 && roleId < 0)) {
+                throw new IllegalArgumentException("CSV-Kopfzeile braucht die Spalten username, email und role oder role_id");
+            }
+        }
+
+        @Override
+        public User parse(String text) {
+            List<String> fields = splitCsv(text);
+            if (fields.size() != columns) {
+                throw new IllegalArgumentException("Erwartet " + columns + " Spalten, gefunden " + fields.size());
+            }
+            Role resolved = resolve(role < 0 ? null : fields.get(role), roleId < 0 ? null : parseId(fields.get(roleId)));
+            return new User(null, fields.get(username), fields.get(email), resolved);
+        }
+
+        static List<String> splitCsv(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * Reads one JSON object per line. Only the fields needed are kept; nested values
+     * other than the role object are skipped.
+     */
+    private static final class JsonRowParser extends RoleResolver {
+        JsonRowParser(Map<String, Role> rolesByName, Map<Long, Role> rolesById) {
+            super(rolesByName, rolesById);
+        }
+
+        @Override
+        public User parse(String text) {
+            JsonCursor cursor = new JsonCursor(text);
+            String username = null;
+            String email = null;
+            String roleName = null;
+            Long roleId = null;
+            cursor.expect('{');
+            if (!cursor.consume('}')) {
+                do {
+                    String key = cursor.string();
+                    cursor.expect(':');
+                    switch (key) {
+                        case "username" -> username = cursor.nullableString();
+                        case "email" -> email = cursor.nullableString();
+                        case "role_id", "roleId" -> roleId = cursor.nullableLong();
+                        case "role" -> {
+                            if (cursor.peek() == '{') {
+                                cursor.expect('{');
+                                if (!cursor.consume('}')) {
+                                    do {
+                                        String roleKey = cursor.string();
+                                        cursor.expect(':');
+                                        switch (roleKey) {
+                                            case "id" -> roleId = cursor.nullableLong();
+                                            case "name" -> roleName = cursor.nullableString();
+                                            default -> cursor.skipValue();
+                                        }
+                                    } while (cursor.consume(','));
+                                    cursor.expect('}');
+                                }
+                            } else {
+                                roleName = cursor.nullableString();
+                            }
+                        }
+                        default -> cursor.skipValue();
+                    }
+                } while (cursor.consume(','));
+                cursor.expect('}');
+            }
+            cursor.end();
+            return new User(null, username, email, resolve(roleName, roleId));
+        }
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int pos;
+
+        private JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error();
+            }
+            return text.charAt(pos);
+        }
+
+        boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error();
+            }
+        }
+
+        void end() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error();
+            }
+        }
+
+        String nullableString() {
+            return literal("null") ? null : string();
+        }
+
+        Long nullableLong() {
+            if (literal("null")) {
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && (text.charAt(pos) == '-' || Character.isDigit(text.charAt(pos)))) {
+                pos++;
+            }
+            try {
+                return Long.parseLong(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error();
+            }
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder out = null;
+            int start = pos;
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error();
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out == null ? text.substring(start, pos - 1) : out.toString();
+                }
+                if (c != '\\') {
+                    if (out != null) {
+                        out.append(c);
+                    }
+                    continue;
+                }
+                if (out == null) {
+                    out = new StringBuilder(text.substring(start, pos - 1));
+                }
+                if (pos >= text.length()) {
+                    throw error();
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> out.append(escaped);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error();
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+        }
+
+        void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                string();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                pos++;
+                if (consume(close)) {
+                    return;
+                }
+                do {
+                    if (c == '{') {
+                        string();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (consume(','));
+                expect(close);
+            } else if (!literal("true") && !literal("false") && !literal("null")) {
+                int start = pos;
+                while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw error();
+                }
+            }
+        }
+
+        private boolean literal(String word) {
+            skipWhitespace();
+            if (text.startsWith(word, pos)) {
+                pos += word.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("Ungültiges JSON an Position " + pos);
+        }
+    }
+}
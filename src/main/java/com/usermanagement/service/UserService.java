@@ -2,31 +2,33 @@ package com.usermanagement.service;
 
 import com.usermanagement.model.User;
 import com.usermanagement.model.Role;
+import com.usermanagement.repository.BatchResult;
 import com.usermanagement.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
 public class UserService {
     private final UserRepository repository;
+    private final UserValidator validator = new UserValidator();
 
     public UserService(UserRepository repository) {
         this.repository = repository;
     }
 
     private void validateUserData(String username, String email, Role role) {
-        if (username == null || username.trim().isEmpty()) {
-            throw new IllegalArgumentException("Username darf nicht leer sein");
-        }
-        if (email == null || !isValidEmail(email)) {
-            throw new IllegalArgumentException("Ungültiges Email-Format");
-        }
-        if (role == null) {
-            throw new IllegalArgumentException("Rolle darf nicht null sein");
+        UserValidator.Reason reason = validator.check(username, email, role);
+        if (reason != null) {
+            throw new IllegalArgumentException(reason.getMessage());
         }
     }
 
     public User createUser(String username, String email, Role role) {
         validateUserData(username, email, role);
 
-        if (repository.findByUsername(username) != null) {
+        if (repository.existsByUsername(username)) {
             throw new IllegalArgumentException("Username existiert bereits");
         }
 
@@ -34,8 +36,75 @@ public class UserService {
         return repository.saveUser(user);
     }
 
+    public User updateUser(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("Benutzer darf nicht null sein");
+        }
+        validateUserData(user.getUsername(), user.getEmail(), user.getRole());
+        return repository.updateUser(user);
+    }
+
+    public BatchResult<User> createUsers(Collection<User> users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Benutzerliste darf nicht null sein");
+        }
+        return validated(users, true, repository::saveUsers);
+    }
+
+    public BatchResult<User> updateUsers(Collection<User> users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Benutzerliste darf nicht null sein");
+        }
+        return validated(users, false, repository::updateUsers);
+    }
+
+    // Reports invalid rows itself and hands only the valid ones to the repository,
+    // mapping its row indexes back to positions in the original collection.
+    private BatchResult<User> validated(Collection<User> users, boolean newUsers,
+                                        Function<List<User>, BatchResult<User>> write) {
+        List<User> rows = new ArrayList<>(users);
+        UserValidator.Reason[] reasons = new UserValidator.Reason[rows.size()];
+        validator.checkAll(rows, reasons);
+
+        BatchResult<User> result = new BatchResult<>();
+        List<User> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int index = 0; index < rows.size(); index++) {
+            User user = rows.get(index);
+            if (reasons[index] != null) {
+                result.addFailure(index, user, reasons[index].getMessage());
+            } else {
+                valid.add(newUsers ? new User(null, user.getUsername(), user.getEmail(), user.getRole()) : user);
+                validIndexes.add(index);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            for (BatchResult.Row<User> row : write.apply(valid).getRows()) {
+                int original = validIndexes.get(row.getIndex());
+                if (row.isSuccess()) {
+                    result.addSuccess(original, row.getValue());
+                } else {
+                    result.addFailure(original, row.getValue(), row.getError());
+                }
+            }
+        }
+        return result;
+    }
+
+    public BatchResult<Long> deleteUsers(Collection<Long> userIds) {
+        if (userIds == null) {
+            throw new IllegalArgumentException("ID-Liste darf nicht null sein");
+        }
+        return repository.deleteUsers(userIds);
+    }
+
     public boolean isValidEmail(String email) {
-        return email != null && email.matches("^[A-Za-z0-9+_.-]+@(.+)$");
+        return validator.isValidEmail(email);
+    }
+
+    public UserValidator getValidator() {
+        return validator;
     }
 
 }
\ No newline at end of file
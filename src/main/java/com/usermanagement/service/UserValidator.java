@@ -0,0 +1,108 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+
+import java.util.List;
+
+/**
+ * Single-pass checks for user input that allocate nothing. The email check accepts
+ * exactly what {@code ^[A-Za-z0-9+_.-]+@(.+)$} accepted before: a non-empty local
+ * part from that character class, an '@', and a non-empty rest without line breaks.
+ * A username is valid if it is not blank in the sense of {@link String#trim()}.
+ */
+public class UserValidator {
+
+    /** Why a user was rejected; the message is what the service reports. */
+    public enum Reason {
+        USERNAME_BLANK("Username darf nicht leer sein"),
+        EMAIL_INVALID("Ungültiges Email-Format"),
+        ROLE_MISSING("Rolle darf nicht null sein");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /** Returns null for valid data, otherwise the first failing check. */
+    public Reason check(String username, String email, Role role) {
+        if (!isValidUsername(username)) {
+            return Reason.USERNAME_BLANK;
+        }
+        if (!isValidEmail(email)) {
+            return Reason.EMAIL_INVALID;
+        }
+        if (role == null) {
+            return Reason.ROLE_MISSING;
+        }
+        return null;
+    }
+
+    /**
+     * Checks every user and writes the result to {@code results} at the same index
+     * (null for valid users). Returns the number of invalid users.
+     */
+    public int checkAll(List<? extends User> users, Reason[] results) {
+        if (results.length < users.size()) {
+            throw new IllegalArgumentException("Ergebnis-Array ist zu klein");
+        }
+        int failures = 0;
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            Reason reason = check(user.getUsername(), user.getEmail(), user.getRole());
+            results[i] = reason;
+            if (reason != null) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    public boolean isValidUsername(CharSequence username) {
+        if (username == null) {
+            return false;
+        }
+        for (int i = 0; i < username.length(); i++) {
+            if (username.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isValidEmail(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+        int i = 0;
+        while (i < length && isLocalChar(email.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == length || email.charAt(i) != '@' || i + 1 == length) {
+            return false;
+        }
+        for (i++; i < length; i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    // Characters that '.' does not match without DOTALL.
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
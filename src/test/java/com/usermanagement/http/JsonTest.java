@@ -0,0 +1,41 @@
+package com.usermanagement.http;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void parseObject_shouldReadFlatValues() {
+        Map<String, Object> body = Json.parseObject(
+                " {\"name\" : \"A\\\"b\\u00e4\", \"roleId\": 2, \"rate\": 0.5, \"active\": true, \"note\": null} ");
+
+        assertEquals("A\"bä", body.get("name"));
+        assertEquals(2L, body.get("roleId"));
+        assertEquals(0.5, body.get("rate"));
+        assertEquals(Boolean.TRUE, body.get("active"));
+        assertTrue(body.containsKey("note"));
+        assertNull(body.get("note"));
+    }
+
+    @Test
+    void parseObject_shouldRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject(""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\":1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\":{\"b\":1}}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\":1} x"));
+    }
+
+    @Test
+    void user_shouldEscapeStrings() {
+        User user = new User(1L, "an\"na", "anna@example.com", new Role(2L, "USER"));
+
+        assertEquals("{\"id\":1,\"username\":\"an\\\"na\",\"email\":\"anna@example.com\","
+                + "\"role\":{\"id\":2,\"name\":\"USER\"}}", Json.user(user));
+    }
+}
@@ -0,0 +1,178 @@
+package com.usermanagement.http;
+
+import com.usermanagement.repository.RepositoryConfig;
+import com.usermanagement.repository.SqliteUserRepository;
+import com.usermanagement.repository.UserRepository;
+import com.usermanagement.service.PermissionService;
+import com.usermanagement.service.RoleService;
+import com.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserManagementServerTest {
+    @TempDir
+    Path tempDir;
+
+    private UserRepository repository;
+    private UserManagementServer server;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("http.db"));
+        config.setUniquenessFilterEnabled(false);
+        repository = new SqliteUserRepository(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.shutdown(Duration.ZERO);
+        }
+        repository.closeConnections();
+    }
+
+    private void start(PermissionService permissionService) throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        server = new UserManagementServer(config, repository, new UserService(repository),
+                new RoleService(repository), permissionService);
+        server.start();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void userLifecycle_shouldWorkOverHttp() throws Exception {
+        start(new PermissionService(repository));
+
+        HttpResponse<String> created = send("POST", "/api/users",
+                "{\"username\":\"anna\",\"email\":\"anna@example.com\",\"roleId\":2}");
+        assertEquals(201, created.statusCode(), created.body());
+        assertTrue(created.body().contains("\"username\":\"anna\""));
+        assertTrue(created.body().contains("\"role\":{\"id\":2,\"name\":\"USER\"}"));
+        long id = (Long) Json.parseObject(created.body().replaceAll(",\"role\":\\{[^}]*}", "")).get("id");
+
+        assertEquals(200, send("GET", "/api/users/" + id, null).statusCode());
+        assertTrue(send("GET", "/api/users?limit=10", null).body().contains("anna@example.com"));
+        assertTrue(send("GET", "/api/users?search=AN&limit=10", null).body().contains("anna@example.com"));
+        assertEquals("[]", send("GET", "/api/users?search=xyz", null).body());
+
+        HttpResponse<String> updated = send("PUT", "/api/users/" + id,
+                "{\"username\":\"anna\",\"email\":\"anna@firma.de\",\"roleId\":2}");
+        assertEquals(200, updated.statusCode(), updated.body());
+        assertEquals("anna@firma.de", repository.findById(id).getEmail());
+
+        assertEquals(204, send("DELETE", "/api/users/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/api/users/" + id, null).statusCode());
+    }
+
+    @Test
+    void invalidInput_shouldMapToClientErrors() throws Exception {
+        start(new PermissionService(repository));
+
+        HttpResponse<String> invalid = send("POST", "/api/users", "{\"username\":\"anna\",\"email\":\"kaputt\",\"roleId\":2}");
+        assertEquals(400, invalid.statusCode());
+        assertEquals("{\"error\":\"Ungültiges Email-Format\"}", invalid.body());
+
+        assertEquals(400, send("POST", "/api/users", "{kein json").statusCode());
+        assertEquals(400, send("GET", "/api/users/abc", null).statusCode());
+        assertEquals(404, send("GET", "/api/unbekannt", null).statusCode());
+        HttpResponse<String> notAllowed = send("PATCH", "/api/roles", null);
+        assertEquals(405, notAllowed.statusCode());
+        assertEquals("GET, POST", notAllowed.headers().firstValue("Allow").orElse(null));
+    }
+
+    @Test
+    void permissionCheck_shouldUseCompiledPermissions() throws Exception {
+        start(new PermissionService(repository));
+        HttpResponse<String> read = send("POST", "/api/permissions", "{\"name\":\"READ\",\"description\":\"Daten lesen\"}");
+        assertEquals(201, read.statusCode(), read.body());
+        long permissionId = (Long) Json.parseObject(read.body()).get("id");
+        send("POST", "/api/users", "{\"username\":\"ben\",\"email\":\"ben@example.com\",\"roleId\":2}");
+        long userId = repository.findByUsername("ben").getId();
+
+        assertEquals("{\"allowed\":false}", send("GET", "/api/check?userId=" + userId + "&permission=READ", null).body());
+        assertEquals(204, send("PUT", "/api/roles/2/permissions/" + permissionId, null).statusCode());
+        assertEquals("{\"allowed\":true}", send("GET", "/api/check?userId=" + userId + "&permission=READ", null).body());
+        assertEquals("{\"allowed\":true}", send("GET", "/api/check?roleId=2&permission=READ", null).body());
+        assertEquals(400, send("GET", "/api/check?permission=READ", null).statusCode());
+        assertEquals("{\"allowed\":[true,false,true]}",
+                send("GET", "/api/check?userIds=" + userId + ",999999," + userId + "&permission=READ", null).body());
+        assertEquals(400, send("GET", "/api/check?userIds=1,x&permission=READ", null).statusCode());
+
+        HttpResponse<String> export = send("GET", "/api/users/export?format=jsonl&permissions=true", null);
+        assertEquals(200, export.statusCode());
+        assertEquals("{\"id\":" + userId + ",\"username\":\"ben\",\"email\":\"ben@example.com\","
+                + "\"role\":{\"id\":2,\"name\":\"USER\"},\"permissions\":[\"READ\"]}\n", export.body());
+        assertEquals(400, send("GET", "/api/users/export?format=xml", null).statusCode());
+    }
+
+    @Test
+    void shutdown_shouldFinishRunningRequestsAndRejectNewOnes() throws Exception {
+        PermissionService permissions = mock(PermissionService.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(permissions.roleHasPermission(anyLong(), anyString())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return true;
+        });
+        start(permissions);
+
+        CompletableFuture<HttpResponse<String>> running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return send("GET", "/api/check?roleId=1&permission=READ", null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(() -> server.shutdown(Duration.ofSeconds(5)));
+        while (!server.isDraining()) {
+            Thread.onSpinWait();
+        }
+        HttpResponse<String> rejected = send("GET", "/health", null);
+        assertEquals(503, rejected.statusCode());
+        assertFalse(drained.isDone());
+
+        release.countDown();
+        assertEquals(200, running.get(5, TimeUnit.SECONDS).statusCode());
+        assertTrue(drained.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRejectedCount());
+    }
+
+    @Test
+    void queryParam_shouldDecodeOnlyWhenNeeded() {
+        assertEquals("READ", UserManagementServer.queryParam("userId=1&permission=READ", "permission"));
+        assertEquals("Daten lesen", UserManagementServer.queryParam("permission=Daten%20lesen", "permission"));
+        assertNull(UserManagementServer.queryParam("permissionX=1", "permission"));
+        assertNull(UserManagementServer.queryParam(null, "permission"));
+    }
+}
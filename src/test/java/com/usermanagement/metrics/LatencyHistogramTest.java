@@ -0,0 +1,99 @@
+package com.usermanagement.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void buckets_shouldCoverEveryValueWithinOneSixteenth() {
+        Random random = new Random(7);
+        for (int n = 0; n < 100_000; n++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(upper >= value, "Obergrenze zu klein für " + value);
+            assertTrue(upper - value <= value / 16, "Bucket zu breit für " + value);
+        }
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentiles_shouldMatchRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_500_000L, histogram.getSumNanos());
+        assertWithin(500_000, histogram.getPercentileNanos(0.5));
+        assertWithin(990_000, histogram.getPercentileNanos(0.99));
+        assertWithin(999_000, histogram.getPercentileNanos(0.999));
+        assertEquals(1_000_000, histogram.getPercentileNanos(1.0));
+    }
+
+    @Test
+    void emptyHistogram_shouldReportZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    void concurrentRecording_shouldNotLoseSamples() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i + offset);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(49_999 + 7, histogram.getMaxNanos());
+    }
+
+    @Test
+    void record_shouldNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        OperationStats stats = new OperationStats("test");
+        for (int i = 0; i < 100_000; i++) {
+            stats.success(stats.start(), 1);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            stats.success(stats.start(), 1);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A few hundred bytes of slack for the measurement itself.
+        assertTrue(allocated < 1024, "Allokiert: " + allocated + " Bytes");
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "erwartet ~" + expected + ", war " + actual);
+    }
+}
@@ -0,0 +1,56 @@
+package com.usermanagement.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void operation_shouldReturnSameStatsForSameName() {
+        Metrics metrics = new Metrics();
+        assertSame(metrics.operation("repository.findById"), metrics.operation("repository.findById"));
+    }
+
+    @Test
+    void stats_shouldCountCallsErrorsAndRows() {
+        OperationStats stats = new Metrics().operation("repository.findAllUsers");
+
+        stats.success(stats.start(), 20);
+        stats.success(stats.start(), 5);
+        stats.failure(stats.start());
+
+        assertEquals(3, stats.getCalls());
+        assertEquals(1, stats.getErrors());
+        assertEquals(25, stats.getRows());
+        assertEquals(3, stats.getLatency().getCount());
+    }
+
+    @Test
+    void exportPrometheus_shouldWriteTextFormat(@TempDir Path dir) throws Exception {
+        Metrics metrics = new Metrics();
+        OperationStats stats = metrics.operation("repository.saveUser");
+        stats.success(stats.start(), 1);
+        stats.failure(stats.start());
+        metrics.operation("repository.findById").success(0, 0);
+
+        Path file = dir.resolve("metrics.prom");
+        metrics.exportPrometheus(file);
+        String text = Files.readString(file);
+
+        assertTrue(text.contains("# TYPE usermanagement_operation_duration_seconds summary"));
+        assertTrue(text.contains("usermanagement_operation_duration_seconds{operation=\"repository.saveUser\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("usermanagement_operation_duration_seconds_count{operation=\"repository.saveUser\"} 2\n"));
+        assertTrue(text.contains("usermanagement_operation_calls_total{operation=\"repository.saveUser\"} 2\n"));
+        assertTrue(text.contains("usermanagement_operation_errors_total{operation=\"repository.saveUser\"} 1\n"));
+        assertTrue(text.contains("usermanagement_operation_rows_total{operation=\"repository.saveUser\"} 1\n"));
+        assertTrue(text.indexOf("repository.findById") < text.indexOf("repository.saveUser"));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "Temporäre Datei wurde nicht aufgeräumt");
+        }
+    }
+}
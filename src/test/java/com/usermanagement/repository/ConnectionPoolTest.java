@@ -0,0 +1,172 @@
+package com.usermanagement.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+
+    private ConnectionPool create(int size, RepositoryConfig config) {
+        pool = new ConnectionPool(config, size, false);
+        return pool;
+    }
+
+    private RepositoryConfig config() {
+        return new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("pool.db"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static int selectOne(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1")) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void returnedConnection_shouldBeReusedAndNoLongerUsable() throws SQLException {
+        ConnectionPool pool = create(2, config());
+
+        Connection first = pool.getConnection();
+        assertEquals(1, selectOne(first));
+        assertEquals(1, pool.getActiveConnections());
+        first.close();
+        first.close();
+
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+
+        try (Connection second = pool.getConnection()) {
+            assertEquals(1, selectOne(second));
+        }
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getBorrowCount());
+        assertEquals(1, pool.getTotalConnections());
+    }
+
+    @Test
+    void returnedConnection_shouldRollBackOpenTransaction() throws SQLException {
+        ConnectionPool pool = create(1, config());
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+        }
+
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.executeUpdate("INSERT INTO t VALUES (1)");
+        }
+
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(conn.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void exhaustedPool_shouldTimeOutAndRecoverAfterReturn() throws SQLException {
+        RepositoryConfig config = config();
+        config.setConnectionTimeoutMillis(100);
+        ConnectionPool pool = create(1, config);
+
+        Connection held = pool.getConnection();
+        long start = System.nanoTime();
+        assertThrows(SQLException.class, pool::getConnection);
+        assertTrue(System.nanoTime() - start >= 90_000_000L, "Sollte bis zum Timeout warten");
+        assertEquals(1, pool.getTimeoutCount());
+
+        held.close();
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(1, selectOne(conn));
+        }
+    }
+
+    @Test
+    void idleConnections_shouldBeEvictedDownToMinIdle() throws Exception {
+        RepositoryConfig config = config();
+        config.setMinIdle(1);
+        config.setIdleTimeoutMillis(10);
+        ConnectionPool pool = create(3, config);
+
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.getIdleConnections());
+
+        // The evictor runs at most once a second.
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getIdleConnections() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(2, pool.getEvictedCount());
+        assertEquals(1, pool.getTotalConnections());
+    }
+
+    @Test
+    void staleIdleConnection_shouldBeReplacedOnBorrow() throws SQLException {
+        RepositoryConfig config = config();
+        config.setValidationIntervalMillis(0);
+        ConnectionPool pool = create(1, config);
+
+        Connection lease = pool.getConnection();
+        Connection physical = lease.unwrap(Connection.class);
+        lease.close();
+        physical.close();
+
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(1, selectOne(conn));
+        }
+        assertEquals(1, pool.getValidationFailures());
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getTotalConnections());
+    }
+
+    @Test
+    void close_shouldDestroyIdleNowAndLeasedConnectionsOnReturn() throws SQLException {
+        ConnectionPool pool = create(2, config());
+        Connection idle = pool.getConnection();
+        Connection leased = pool.getConnection();
+        Connection idlePhysical = idle.unwrap(Connection.class);
+        Connection leasedPhysical = leased.unwrap(Connection.class);
+        idle.close();
+
+        pool.close();
+
+        assertTrue(pool.isClosed());
+        assertTrue(idlePhysical.isClosed());
+        assertThrows(SQLException.class, pool::getConnection);
+        assertEquals(1, selectOne(leased), "Ausgeliehene Verbindung bleibt bis zur Rückgabe nutzbar");
+
+        leased.close();
+        assertTrue(leasedPhysical.isClosed());
+        assertEquals(0, pool.getTotalConnections());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, pool.getIdleConnections());
+    }
+}
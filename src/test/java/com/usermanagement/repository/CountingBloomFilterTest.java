@@ -0,0 +1,61 @@
+package com.usermanagement.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void addedValues_shouldNeverBeReportedMissing() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("user" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayNearConfiguredRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@test.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@test.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "Zu viele false positives: " + falsePositives);
+    }
+
+    @Test
+    void remove_shouldForgetValueButKeepOthers() {
+        CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("alice");
+        filter.add("bob");
+
+        filter.remove("alice");
+
+        assertFalse(filter.mightContain("alice"));
+        assertTrue(filter.mightContain("bob"));
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    void isOverCapacity_shouldTripAfterTwiceTheExpectedInsertions() {
+        CountingBloomFilter filter = new CountingBloomFilter(10, 0.01);
+        for (int i = 0; i < 20; i++) {
+            filter.add("user" + i);
+        }
+        assertFalse(filter.isOverCapacity());
+
+        filter.add("one-more");
+        assertTrue(filter.isOverCapacity());
+    }
+}
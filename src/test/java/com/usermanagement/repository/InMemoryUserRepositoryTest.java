@@ -0,0 +1,312 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.metrics.Metrics;
+import com.usermanagement.metrics.OperationStats;
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserRepositoryTest {
+    private static final Role ADMIN_ROLE = new Role(1L, "ADMIN");
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryUserRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.closeConnections();
+        }
+    }
+
+    private RepositoryConfig config(long flushIntervalMillis) {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("memory.db"));
+        config.setWriteBehindFlushIntervalMillis(flushIntervalMillis);
+        return config;
+    }
+
+    private RepositoryConfig snapshotConfig() {
+        RepositoryConfig config = config(60_000);
+        config.setSnapshotPath(tempDir.resolve("users.snapshot").toString());
+        return config;
+    }
+
+    private void awaitLoaded() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!repository.isLoaded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(repository.isLoaded());
+    }
+
+    private SqliteUserRepository openStore() {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("memory.db"));
+        config.setUniquenessFilterEnabled(false);
+        return new SqliteUserRepository(config);
+    }
+
+    @Test
+    void crudOperations_shouldMaintainIndexes() {
+        repository = new InMemoryUserRepository();
+
+        User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        assertEquals(1L, anna.getId());
+        assertEquals("USER", repository.findByUsername("anna").getRole().getName());
+        assertTrue(repository.existsByUsername("anna"));
+
+        repository.updateUser(new User(anna.getId(), "anna2", "anna@example.com", USER_ROLE));
+        assertNull(repository.findByUsername("anna"));
+        assertEquals(anna.getId(), repository.findByUsername("anna2").getId());
+
+        User ben = repository.saveUser(new User(null, "ben", "ben@example.com", ADMIN_ROLE));
+        assertEquals(List.of("anna2", "ben"), repository.findAllUsers().stream().map(User::getUsername).toList());
+        assertEquals(List.of(ben.getId()), repository.findUsersPage(anna.getId(), 10).stream().map(User::getId).toList());
+        assertEquals(Map.of(anna.getId(), 2L, ben.getId(), 1L),
+                repository.findRoleIdsByUserIds(List.of(anna.getId(), ben.getId(), 99L)));
+        assertEquals(Map.of("ADMIN", 1, "USER", 1), repository.countUsersByRole());
+
+        repository.deleteUser(anna.getId());
+        assertNull(repository.findById(anna.getId()));
+        assertFalse(repository.existsByUsername("anna2"));
+        assertEquals(0, repository.countUsersByRole().get("USER"));
+    }
+
+    @Test
+    void searchUsers_shouldFollowWrites() {
+        repository = new InMemoryUserRepository();
+        User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        repository.saveUser(new User(null, "bernd", "b.anna@example.com", USER_ROLE));
+        assertEquals(List.of("anna"), repository.searchUsers("ANN", 10).stream().map(User::getUsername).toList());
+
+        repository.updateUser(new User(anna.getId(), "hanna", "hanna@example.com", USER_ROLE));
+        repository.saveUser(new User(null, "annika", "annika@example.com", USER_ROLE));
+
+        assertEquals(List.of("annika"), repository.searchUsers("ann", 10).stream().map(User::getUsername).toList());
+        assertEquals(List.of("bernd"), repository.searchUsers("b.", 10).stream().map(User::getUsername).toList());
+        repository.deleteUser(anna.getId());
+        assertTrue(repository.searchUsers("hanna", 10).isEmpty());
+    }
+
+    @Test
+    void instrumentedWrapper_shouldRecordInMemoryOperations() {
+        repository = new InMemoryUserRepository();
+        Metrics metrics = new Metrics();
+        UserRepository instrumented = new InstrumentedUserRepository(repository, metrics);
+
+        User anna = instrumented.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        instrumented.findById(anna.getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> instrumented.saveUser(new User(null, "anna", "anna2@example.com", USER_ROLE)));
+
+        OperationStats saveUser = metrics.operation("repository.saveUser");
+        assertEquals(2, saveUser.getCalls());
+        assertEquals(1, saveUser.getErrors());
+        assertEquals(1, metrics.operation("repository.findById").getRows());
+    }
+
+    @Test
+    void returnedUsers_shouldNotAliasStoredState() {
+        repository = new InMemoryUserRepository();
+        User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+
+        repository.findById(anna.getId()).setUsername("manipuliert");
+
+        assertEquals("anna", repository.findById(anna.getId()).getUsername());
+    }
+
+    @Test
+    void constraints_shouldMatchSqliteRepository() {
+        repository = new InMemoryUserRepository();
+        User admin = repository.saveUser(new User(null, "admin", "admin@example.com", ADMIN_ROLE));
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+                () -> repository.saveUser(new User(null, "anna", "andere@example.com", USER_ROLE)));
+        assertEquals("Username existiert bereits", duplicate.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.updateUser(new User(admin.getId(), "admin", "anna@example.com", ADMIN_ROLE)));
+        assertThrows(IllegalStateException.class, () -> repository.deleteUser(admin.getId()));
+        assertThrows(IllegalStateException.class,
+                () -> repository.updateUser(new User(admin.getId(), "admin", "admin@example.com", USER_ROLE)));
+        assertThrows(IllegalArgumentException.class, () -> repository.deleteUser(99L));
+
+        BatchResult<User> batch = repository.saveUsers(List.of(
+                new User(null, "ben", "ben@example.com", USER_ROLE),
+                new User(null, "ben", "ben2@example.com", USER_ROLE),
+                new User(null, "cara", "cara@example.com", new Role(9L, "GAST"))));
+        assertEquals(1, batch.getSuccessCount());
+        assertEquals(List.of("Username existiert bereits", "Rolle nicht gefunden"),
+                batch.getFailures().stream().map(BatchResult.Row::getError).toList());
+    }
+
+    @Test
+    void changes_shouldReachSqliteOnlyOnFlushOrClose() {
+        RepositoryConfig config = config(60_000);
+        repository = new InMemoryUserRepository(config);
+        assertTrue(config.isUniquenessFilterEnabled());
+        User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        User ben = repository.saveUser(new User(null, "ben", "ben@example.com", USER_ROLE));
+        Permission read = repository.createPermission("READ", "Daten lesen");
+        repository.addPermissionToRole(2L, read.getId());
+        repository.updateUser(new User(anna.getId(), "anna", "anna@firma.de", ADMIN_ROLE));
+        repository.deleteUser(ben.getId());
+        assertEquals(6, repository.getPendingWrites());
+
+        SqliteUserRepository store = openStore();
+        try {
+            assertTrue(store.findAllUsers().isEmpty());
+        } finally {
+            store.closeConnections();
+        }
+
+        repository.closeConnections();
+        repository = null;
+
+        store = openStore();
+        try {
+            List<User> users = store.findAllUsers();
+            assertEquals(1, users.size());
+            assertEquals(anna.getId(), users.get(0).getId());
+            assertEquals("anna@firma.de", users.get(0).getEmail());
+            assertEquals("ADMIN", users.get(0).getRole().getName());
+            assertEquals(Map.of(2L, List.of(read.getId())), store.getRolePermissionIds());
+            assertEquals(Map.of("ADMIN", 1, "USER", 0), store.countUsersByRole());
+        } finally {
+            store.closeConnections();
+        }
+    }
+
+    @Test
+    void reopening_shouldLoadStateAndNotReuseDeletedIds() {
+        repository = new InMemoryUserRepository(config(60_000));
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        User ben = repository.saveUser(new User(null, "ben", "ben@example.com", USER_ROLE));
+        repository.deleteUser(ben.getId());
+        repository.closeConnections();
+
+        repository = new InMemoryUserRepository(config(60_000));
+
+        assertEquals("anna@example.com", repository.findByUsername("anna").getEmail());
+        User cara = repository.saveUser(new User(null, "cara", "cara@example.com", USER_ROLE));
+        assertTrue(cara.getId() > ben.getId(), "ID " + cara.getId() + " wurde wiederverwendet");
+    }
+
+    @Test
+    void flusher_shouldWriteChangesInBackground() throws InterruptedException {
+        repository = new InMemoryUserRepository(config(20));
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (repository.getPendingWrites() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, repository.getPendingWrites());
+        assertEquals(1, repository.getFlushedChanges());
+        SqliteUserRepository store = openStore();
+        try {
+            assertNotNull(store.findByUsername("anna"));
+        } finally {
+            store.closeConnections();
+        }
+    }
+
+    @Test
+    void rejectedChange_shouldNotBlockLaterFlushesOrClose() {
+        repository = new InMemoryUserRepository(snapshotConfig());
+        SqliteUserRepository store = openStore();
+        try {
+            // Another process takes the email first; the in-memory repository cannot know.
+            store.saveUser(new User(null, "fremd", "anna@example.com", USER_ROLE));
+        } finally {
+            store.closeConnections();
+        }
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        repository.saveUser(new User(null, "ben", "ben@example.com", USER_ROLE));
+
+        assertEquals(1, repository.flush());
+        assertEquals(0, repository.getPendingWrites());
+        assertEquals(1, repository.getRejectedChanges().size());
+        assertTrue(repository.getRejectedChanges().get(0).change().contains("anna"));
+
+        repository.saveUser(new User(null, "cara", "cara@example.com", USER_ROLE));
+        repository.closeConnections();
+        repository = null;
+        assertFalse(Files.exists(tempDir.resolve("users.snapshot")));
+
+        store = openStore();
+        try {
+            assertEquals(List.of("ben", "cara", "fremd"),
+                    store.findAllUsers().stream().map(User::getUsername).sorted().toList());
+        } finally {
+            store.closeConnections();
+        }
+    }
+
+    @Test
+    void resetDatabase_shouldDropPendingChangesAndKeepDefaultRoles() {
+        repository = new InMemoryUserRepository(config(60_000));
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+
+        repository.resetDatabase();
+
+        assertEquals(0, repository.getPendingWrites());
+        assertTrue(repository.findAllUsers().isEmpty());
+        assertEquals(List.of("ADMIN", "USER"), repository.getAllRoles().stream().map(Role::getName).toList());
+    }
+
+    @Test
+    void close_shouldWriteSnapshotThatServesNextStart() throws InterruptedException {
+        repository = new InMemoryUserRepository(snapshotConfig());
+        User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        User ben = repository.saveUser(new User(null, "ben", "ben@example.com", USER_ROLE));
+        Permission read = repository.createPermission("READ", "Daten lesen");
+        repository.addPermissionToRole(2L, read.getId());
+        repository.deleteUser(ben.getId());
+        repository.closeConnections();
+        assertTrue(Files.exists(tempDir.resolve("users.snapshot")));
+
+        repository = new InMemoryUserRepository(snapshotConfig());
+
+        assertEquals(anna.getId(), repository.findByUsername("anna").getId());
+        assertNull(repository.findById(ben.getId()));
+        assertEquals(List.of(anna.getId()), repository.findUsersPage(0L, 10).stream().map(User::getId).toList());
+        assertEquals(Map.of(2L, List.of(read.getId())), repository.getRolePermissionIds());
+        User cara = repository.saveUser(new User(null, "cara", "cara@example.com", USER_ROLE));
+        assertTrue(repository.isLoaded());
+        assertTrue(cara.getId() > ben.getId(), "ID " + cara.getId() + " wurde wiederverwendet");
+        assertEquals(Map.of("ADMIN", 0, "USER", 2), repository.countUsersByRole());
+    }
+
+    @Test
+    void outdatedSnapshot_shouldBeIgnored() throws InterruptedException {
+        repository = new InMemoryUserRepository(snapshotConfig());
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        repository.closeConnections();
+
+        SqliteUserRepository store = openStore();
+        try {
+            store.saveUser(new User(null, "ben", "ben@example.com", USER_ROLE));
+        } finally {
+            store.closeConnections();
+        }
+
+        repository = new InMemoryUserRepository(snapshotConfig());
+        awaitLoaded();
+
+        assertEquals(List.of("anna", "ben"), repository.findAllUsers().stream().map(User::getUsername).toList());
+    }
+}
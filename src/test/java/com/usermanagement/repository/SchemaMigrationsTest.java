@@ -0,0 +1,122 @@
+package com.usermanagement.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigrationsTest {
+    private static final int LATEST = SchemaMigrations.MIGRATIONS.get(SchemaMigrations.MIGRATIONS.size() - 1).version();
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(i > 1 ? "|" : "").append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private List<String> schemaObjects() throws SQLException {
+        return query("SELECT type, name FROM sqlite_master WHERE name NOT LIKE 'sqlite_%' ORDER BY type, name");
+    }
+
+    @Test
+    void freshDatabase_shouldReachLatestVersion() throws SQLException {
+        SchemaMigrations.migrate(conn);
+
+        assertEquals(LATEST, SchemaMigrations.currentVersion(conn));
+        assertEquals(SchemaMigrations.MIGRATIONS.stream().map(m -> m.version() + "|" + m.description()).toList(),
+                query("SELECT version, description FROM schema_version ORDER BY version"));
+        assertEquals(List.of("ADMIN|0", "USER|0"), query("""
+                SELECT r.name, c.member_count FROM roles r JOIN role_member_counts c ON c.role_id = r.id
+                ORDER BY r.id
+                """));
+        assertTrue(schemaObjects().containsAll(List.of("index|idx_users_role_id", "table|data_changes",
+                "trigger|trg_users_insert_member_count", "trigger|trg_users_insert_data_version")));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void baselineDatabase_shouldUpgradeWithoutDataLoss() throws SQLException {
+        // The schema as it was created before schema_version existed.
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : SchemaMigrations.MIGRATIONS.get(0).statements()) {
+                stmt.execute(sql);
+            }
+            stmt.execute("INSERT INTO roles (name) VALUES ('GAST')");
+            stmt.execute("INSERT INTO permissions (name, description) VALUES ('READ', 'Daten lesen')");
+            stmt.execute("INSERT INTO role_permissions (role_id, permission_id) VALUES (1, 1)");
+            stmt.execute("""
+                    INSERT INTO users (username, email, role_id) VALUES
+                        ('admin', 'admin@example.com', 1),
+                        ('anna', 'anna@example.com', 2),
+                        ('ben', 'ben@example.com', 2),
+                        ('gast', 'gast@example.com', 3)
+                    """);
+        }
+        List<String> users = query("SELECT id, username, email, role_id FROM users ORDER BY id");
+        assertEquals(0, SchemaMigrations.currentVersion(conn));
+
+        SchemaMigrations.migrate(conn);
+
+        assertEquals(LATEST, SchemaMigrations.currentVersion(conn));
+        assertEquals(users, query("SELECT id, username, email, role_id FROM users ORDER BY id"));
+        assertEquals(List.of("1|ADMIN", "2|USER", "3|GAST"), query("SELECT id, name FROM roles ORDER BY id"));
+        assertEquals(List.of("READ|Daten lesen"), query("SELECT name, description FROM permissions"));
+        assertEquals(List.of("1|1"), query("SELECT role_id, permission_id FROM role_permissions"));
+        assertEquals(List.of("1|1", "2|2", "3|1"),
+                query("SELECT role_id, member_count FROM role_member_counts ORDER BY role_id"));
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (username, email, role_id) VALUES ('cara', 'cara@example.com', 3)");
+        }
+        assertEquals(List.of("2"), query("SELECT member_count FROM role_member_counts WHERE role_id = 3"));
+    }
+
+    @Test
+    void rerun_shouldChangeNothing() throws SQLException {
+        SchemaMigrations.migrate(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (username, email, role_id) VALUES ('anna', 'anna@example.com', 2)");
+        }
+        List<String> versions = query("SELECT version, description, applied_at FROM schema_version ORDER BY version");
+        List<String> objects = schemaObjects();
+        List<String> counts = query("SELECT role_id, member_count FROM role_member_counts ORDER BY role_id");
+        List<String> dataVersion = query("SELECT version FROM data_changes");
+
+        SchemaMigrations.migrate(conn);
+
+        assertEquals(versions, query("SELECT version, description, applied_at FROM schema_version ORDER BY version"));
+        assertEquals(objects, schemaObjects());
+        assertEquals(counts, query("SELECT role_id, member_count FROM role_member_counts ORDER BY role_id"));
+        assertEquals(dataVersion, query("SELECT version FROM data_changes"), "Kein Datensatz darf geschrieben werden");
+    }
+}
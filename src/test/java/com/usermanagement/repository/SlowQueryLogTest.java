@@ -0,0 +1,102 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTest {
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteUserRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.closeConnections();
+        }
+    }
+
+    private RepositoryConfig config() {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("slow.db"));
+        config.setUniquenessFilterEnabled(false);
+        config.setSlowQueryThresholdMillis(0);
+        return config;
+    }
+
+    @Test
+    void negativeThreshold_shouldDisableLog() {
+        RepositoryConfig config = config();
+        config.setSlowQueryThresholdMillis(-1);
+        repository = new SqliteUserRepository(config);
+
+        repository.findAllUsers();
+
+        assertEquals(0, repository.getConnectionPool().getSlowQueryCount());
+    }
+
+    @Test
+    void slowStatements_shouldBeRateLimited() {
+        RepositoryConfig config = config();
+        config.setSlowQueryMaxPerSecond(1);
+        config.setSlowQueryExplainEnabled(false);
+        repository = new SqliteUserRepository(config);
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        long before = repository.getConnectionPool().getSlowQueryCount();
+
+        for (int i = 0; i < 20; i++) {
+            repository.findAllUsers();
+        }
+
+        ConnectionPool pool = repository.getConnectionPool();
+        assertEquals(before + 20, pool.getSlowQueryCount());
+        // 1 per second; the loop may cross at most one second boundary.
+        assertTrue(pool.getSlowQueriesLogged() <= 2, "geloggt: " + pool.getSlowQueriesLogged());
+    }
+
+    @Test
+    void sampleRateZero_shouldLogNothing() {
+        RepositoryConfig config = config();
+        config.setSlowQuerySampleRate(0.0);
+        repository = new SqliteUserRepository(config);
+
+        repository.findAllUsers();
+
+        assertTrue(repository.getConnectionPool().getSlowQueryCount() > 0);
+        assertEquals(0, repository.getConnectionPool().getSlowQueriesLogged());
+    }
+
+    @Test
+    void describe_shouldRedactEmailAndIncludePlan() throws SQLException {
+        RepositoryConfig config = config();
+        repository = new SqliteUserRepository(config);
+        SlowQueryLog log = SlowQueryLog.create(config);
+
+        try (Connection conn = DriverManager.getConnection(config.getDbUrl())) {
+            String entry = log.describe(conn, UserQueries.EMAIL_TAKEN_BY_OTHER,
+                    new Object[]{null, "anna@example.com", 7L}, 2, 250_000_000L, 1);
+
+            assertTrue(entry.startsWith("Slow query (250 ms, rows=1): SELECT id FROM users WHERE email = ?"), entry);
+            assertTrue(entry.contains("params: ['***@example.com', 7]"), entry);
+            assertFalse(entry.contains("anna"), entry);
+            assertTrue(entry.contains("SEARCH users USING COVERING INDEX"), entry);
+        }
+    }
+
+    @Test
+    void redact_shouldOnlyTouchEmailAddresses() {
+        assertEquals("anna", SlowQueryLog.redact("anna"));
+        assertEquals("***@example.com", SlowQueryLog.redact("anna@example.com"));
+    }
+}
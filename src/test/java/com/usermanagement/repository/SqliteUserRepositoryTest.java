@@ -0,0 +1,237 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteUserRepositoryTest {
+    private static final Role ADMIN_ROLE = new Role(1L, "ADMIN");
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private Path dbFile;
+    private SqliteUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dbFile = tempDir.resolve("users.db");
+        repository = new SqliteUserRepository("jdbc:sqlite:" + dbFile);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.closeConnections();
+    }
+
+    private User save(String name, Role role) {
+        return repository.saveUser(new User(null, name, name + "@example.com", role));
+    }
+
+    // What role_member_counts should say, counted from users directly.
+    private Map<String, Integer> countedFromUsers() throws SQLException {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT r.name, (SELECT COUNT(*) FROM users u WHERE u.role_id = r.id)
+                     FROM roles r ORDER BY r.id
+                     """)) {
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    void memberCountTriggers_shouldFollowEveryKindOfWrite() throws SQLException {
+        User admin = save("admin", ADMIN_ROLE);
+        User anna = save("anna", USER_ROLE);
+        assertEquals(Map.of("ADMIN", 1, "USER", 1), repository.countUsersByRole());
+
+        repository.updateUser(new User(anna.getId(), "anna", "anna@example.com", ADMIN_ROLE));
+        assertEquals(Map.of("ADMIN", 2, "USER", 0), repository.countUsersByRole());
+
+        BatchResult<User> saved = repository.saveUsers(List.of(
+                new User(null, "ben", "ben@example.com", USER_ROLE),
+                new User(null, "cara", "cara@example.com", USER_ROLE),
+                new User(null, "dora", "dora@example.com", ADMIN_ROLE)));
+        assertEquals(3, saved.getSuccessCount());
+        assertEquals(Map.of("ADMIN", 3, "USER", 2), repository.countUsersByRole());
+
+        repository.deleteUser(anna.getId());
+        BatchResult<Long> deleted = repository.deleteUsers(
+                saved.getSucceeded().stream().map(User::getId).toList());
+        assertEquals(3, deleted.getSuccessCount());
+
+        assertEquals(Map.of("ADMIN", 1, "USER", 0), repository.countUsersByRole());
+        assertEquals(countedFromUsers(), repository.countUsersByRole());
+        assertNotNull(repository.findById(admin.getId()));
+    }
+
+    @Test
+    void lastAdmin_shouldNotBeDeletedOrDemoted() throws SQLException {
+        User admin = save("admin", ADMIN_ROLE);
+        User other = save("other", ADMIN_ROLE);
+        repository.deleteUser(other.getId());
+
+        assertThrows(IllegalStateException.class, () -> repository.deleteUser(admin.getId()));
+        assertThrows(IllegalStateException.class, () -> repository.updateUser(
+                new User(admin.getId(), "admin", "admin@example.com", USER_ROLE)));
+
+        BatchResult<Long> deleted = repository.deleteUsers(List.of(admin.getId()));
+        assertEquals(0, deleted.getSuccessCount());
+        BatchResult<User> demoted = repository.updateUsers(List.of(
+                new User(admin.getId(), "admin", "admin@example.com", USER_ROLE)));
+        assertEquals(0, demoted.getSuccessCount());
+
+        assertEquals("ADMIN", repository.findById(admin.getId()).getRole().getName());
+        assertEquals(Map.of("ADMIN", 1, "USER", 0), repository.countUsersByRole());
+        assertEquals(countedFromUsers(), repository.countUsersByRole());
+    }
+
+    @Test
+    void saveUsers_shouldReturnTheStoredIdsAndRejectDuplicates() {
+        save("anna", USER_ROLE);
+        // Leave a gap in the id sequence so the batch cannot rely on contiguous ids.
+        repository.deleteUser(save("gap", USER_ROLE).getId());
+
+        BatchResult<User> result = repository.saveUsers(List.of(
+                new User(null, "ben", "ben@example.com", USER_ROLE),
+                new User(null, "anna", "neu@example.com", USER_ROLE),
+                new User(null, "ben", "ben2@example.com", USER_ROLE),
+                new User(null, "cara", "anna@example.com", USER_ROLE),
+                new User(null, "dora", "dora@example.com", new Role(99L, "GAST")),
+                new User(null, "emil", "emil@example.com", ADMIN_ROLE)));
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), result.getRows().stream().map(BatchResult.Row::getIndex).toList());
+        assertEquals(List.of("Username existiert bereits", "Username existiert bereits",
+                        "Email existiert bereits", "Rolle nicht gefunden"),
+                result.getFailures().stream().map(BatchResult.Row::getError).toList());
+        for (User user : result.getSucceeded()) {
+            User stored = repository.findById(user.getId());
+            assertEquals(user.getUsername(), stored.getUsername());
+            assertEquals(user.getRole().getName(), stored.getRole().getName());
+        }
+        assertEquals(List.of("ben", "emil"), result.getSucceeded().stream().map(User::getUsername).toList());
+        assertThrows(UnsupportedOperationException.class, () -> result.getRows().clear());
+        assertEquals(3, repository.findAllUsers().size());
+    }
+
+    @Test
+    void batchUpdateAndDelete_shouldKeepOneAdmin() throws SQLException {
+        User first = save("first", ADMIN_ROLE);
+        User second = save("second", ADMIN_ROLE);
+        User anna = save("anna", USER_ROLE);
+
+        BatchResult<User> demoted = repository.updateUsers(List.of(
+                new User(first.getId(), "first", "first@example.com", USER_ROLE),
+                new User(second.getId(), "second", "second@example.com", USER_ROLE),
+                new User(anna.getId(), "first", "anna@example.com", USER_ROLE)));
+        assertEquals(1, demoted.getSuccessCount());
+        assertEquals(List.of(
+                        "Der letzte Admin-Benutzer kann nicht zu einem normalen Benutzer geändert werden!",
+                        "Username existiert bereits!"),
+                demoted.getFailures().stream().map(BatchResult.Row::getError).toList());
+
+        BatchResult<Long> deleted = repository.deleteUsers(List.of(second.getId(), first.getId(), anna.getId()));
+        assertEquals(List.of(first.getId(), anna.getId()), deleted.getSucceeded());
+        assertEquals("Der letzte Admin-Benutzer kann nicht gelöscht werden!",
+                deleted.getFailures().get(0).getError());
+
+        assertEquals("ADMIN", repository.findById(second.getId()).getRole().getName());
+        assertEquals(Map.of("ADMIN", 1, "USER", 0), repository.countUsersByRole());
+        assertEquals(countedFromUsers(), repository.countUsersByRole());
+    }
+
+    @Test
+    void findUsersPage_shouldWalkKeysetBoundaries() {
+        List<Long> ids = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d", "e")) {
+            ids.add(save(name, USER_ROLE).getId());
+        }
+        repository.deleteUser(ids.get(2));
+
+        assertEquals(List.of(ids.get(0), ids.get(1)), pageIds(null, 2));
+        assertEquals(List.of(ids.get(0), ids.get(1)), pageIds(0L, 2));
+        assertEquals(List.of(ids.get(3), ids.get(4)), pageIds(ids.get(1), 2), "Gelöschte ID wird übersprungen");
+        assertEquals(List.of(ids.get(3), ids.get(4)), pageIds(ids.get(2), 2), "Startet nach einer gelöschten ID");
+        assertEquals(List.of(ids.get(4)), pageIds(ids.get(3), 2), "Letzte Seite ist kürzer");
+        assertEquals(List.of(), pageIds(ids.get(4), 2));
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(3), ids.get(4)), pageIds(null, 4), "Limit genau auf der Anzahl");
+        assertEquals(List.of(), pageIds(ids.get(4), 4));
+        assertEquals(4, pageIds(null, Integer.MAX_VALUE).size());
+        assertThrows(IllegalArgumentException.class, () -> repository.findUsersPage(null, 0));
+    }
+
+    private List<Long> pageIds(Long afterId, int limit) {
+        return repository.findUsersPage(afterId, limit).stream().map(User::getId).toList();
+    }
+
+    @Test
+    void streamAllUsers_shouldReturnConnectionWhenClosedEarly() {
+        for (int i = 0; i < 10; i++) {
+            save("user" + i, USER_ROLE);
+        }
+        ConnectionPool pool = repository.getConnectionPool();
+
+        try (Stream<User> users = repository.streamAllUsers()) {
+            assertEquals(List.of("user0", "user1"), users.limit(2).map(User::getUsername).toList());
+            assertEquals(1, pool.getActiveConnections(), "Verbindung bleibt bis zum Schließen belegt");
+        }
+        assertEquals(0, pool.getActiveConnections());
+
+        try (Stream<User> users = repository.streamAllUsers()) {
+            assertEquals(1, pool.getActiveConnections());
+        }
+        assertEquals(0, pool.getActiveConnections(), "Auch ohne gelesene Zeile zurückgegeben");
+        assertEquals(10, repository.findAllUsers().size());
+    }
+
+    @Test
+    void oversizedFilter_shouldBeRebuiltInBackgroundWithoutLosingValues() throws Exception {
+        repository.closeConnections();
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("filter.db"));
+        config.setUniquenessFilterCapacity(8);
+        config.setWriteQueueEnabled(true);
+        repository = new SqliteUserRepository(config);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (repository.getUsernameFilter() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            repository.saveUser(new User(null, "user" + i, "user" + i + "@example.com", USER_ROLE));
+        }
+        while (repository.getUsernameFilter().getCapacity() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        CountingBloomFilter usernames = repository.getUsernameFilter();
+        assertTrue(usernames.getCapacity() >= 100, "Filter wurde nicht neu aufgebaut: " + usernames.getCapacity());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(usernames.mightContain("user" + i));
+            assertTrue(repository.getEmailFilter().mightContain("user" + i + "@example.com"));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.usermanagement.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+    private static final String A = "SELECT ? + 1";
+    private static final String B = "SELECT ? + 2";
+    private static final String C = "SELECT ? + 3";
+
+    private Connection physical;
+    private StatementCache.Stats stats;
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        physical = DriverManager.getConnection("jdbc:sqlite::memory:");
+        stats = new StatementCache.Stats();
+        cache = new StatementCache(physical, 2, stats, null);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        cache.closeAll();
+        physical.close();
+    }
+
+    private static int run(PreparedStatement stmt, int value) throws SQLException {
+        stmt.setInt(1, value);
+        try (ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void counters_shouldTrackHitsMissesAndEvictions() throws SQLException {
+        PreparedStatement first = cache.prepare(physical, A);
+        assertEquals(2, run(first, 1));
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::executeQuery);
+
+        PreparedStatement again = cache.prepare(physical, A);
+        assertSame(first, again, "Gleiches SQL nach close() muss wiederverwendet werden");
+        assertEquals(11, run(again, 10));
+        again.close();
+        assertEquals(1, stats.hits.get());
+        assertEquals(1, stats.misses.get());
+
+        cache.prepare(physical, B).close();
+        cache.prepare(physical, A).close();
+        cache.prepare(physical, C).close();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, stats.evictions.get(), "B war am längsten unbenutzt");
+        assertEquals(2, stats.hits.get());
+        assertEquals(3, stats.misses.get());
+        assertSame(again, cache.prepare(physical, A));
+    }
+
+    @Test
+    void sameSqlPreparedTwice_shouldHandOutPrivateCopy() throws SQLException {
+        PreparedStatement cached = cache.prepare(physical, A);
+        PreparedStatement copy = cache.prepare(physical, A);
+
+        assertNotSame(cached, copy);
+        assertEquals(2, stats.misses.get());
+        assertEquals(1, cache.size());
+
+        cached.setInt(1, 1);
+        assertEquals(101, run(copy, 100), "Parameter dürfen sich nicht gegenseitig überschreiben");
+        try (ResultSet rs = cached.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+        }
+
+        copy.close();
+        assertTrue(copy.isClosed(), "Die Kopie wird wirklich geschlossen");
+        cached.close();
+        assertSame(cached, cache.prepare(physical, A));
+        assertEquals(1, stats.hits.get());
+    }
+
+    @Test
+    void evictedWhileInUse_shouldStayUsableUntilClosed() throws SQLException {
+        PreparedStatement inUse = cache.prepare(physical, A);
+        PreparedStatement underlying = inUse.unwrap(PreparedStatement.class);
+
+        cache.prepare(physical, B).close();
+        cache.prepare(physical, C).close();
+        assertEquals(1, stats.evictions.get());
+        assertFalse(underlying.isClosed());
+
+        assertEquals(6, run(inUse, 5));
+        inUse.close();
+        assertTrue(underlying.isClosed(), "Verdrängtes Statement wird beim Zurückgeben geschlossen");
+
+        PreparedStatement fresh = cache.prepare(physical, A);
+        assertNotSame(inUse, fresh);
+        assertEquals(8, run(fresh, 7));
+    }
+
+    @Test
+    void releaseAll_shouldReturnStatementsLeftOpen() throws SQLException {
+        PreparedStatement leaked = cache.prepare(physical, A);
+        leaked.setInt(1, 1);
+
+        cache.releaseAll();
+
+        assertTrue(leaked.isClosed());
+        assertSame(leaked, cache.prepare(physical, A));
+        assertEquals(1, stats.hits.get());
+    }
+}
@@ -0,0 +1,76 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+    private static User user(long id, String username) {
+        return new User(id, username, username + "@test.com", new Role(2L, "USER"));
+    }
+
+    @Test
+    void put_shouldServeBothIndexesWithCopies() {
+        UserCache cache = new UserCache(10, 60_000, UserCache.EvictionPolicy.LRU);
+        cache.put(user(1L, "alice"), cache.beginLoad());
+
+        User byId = cache.getById(1L);
+        byId.setUsername("changed");
+
+        assertEquals("alice", cache.getByUsername("alice").getUsername());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void lruPolicy_shouldEvictLeastRecentlyUsed() {
+        UserCache cache = new UserCache(2, 60_000, UserCache.EvictionPolicy.LRU);
+        cache.put(user(1L, "alice"), cache.beginLoad());
+        cache.put(user(2L, "bob"), cache.beginLoad());
+        cache.getById(1L);
+        cache.put(user(3L, "carol"), cache.beginLoad());
+
+        assertNotNull(cache.getById(1L));
+        assertNull(cache.getById(2L));
+        assertNull(cache.getByUsername("bob"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void fifoPolicy_shouldEvictOldestInsert() {
+        UserCache cache = new UserCache(2, 60_000, UserCache.EvictionPolicy.FIFO);
+        cache.put(user(1L, "alice"), cache.beginLoad());
+        cache.put(user(2L, "bob"), cache.beginLoad());
+        cache.getById(1L);
+        cache.put(user(3L, "carol"), cache.beginLoad());
+
+        assertNull(cache.getById(1L));
+        assertNotNull(cache.getById(2L));
+    }
+
+    @Test
+    void invalidate_shouldDropBothIndexesAndRejectRacingLoads() {
+        UserCache cache = new UserCache(10, 60_000, UserCache.EvictionPolicy.LRU);
+        cache.put(user(1L, "alice"), cache.beginLoad());
+
+        long staleLoad = cache.beginLoad();
+        cache.invalidate(1L);
+        cache.put(user(1L, "alice"), staleLoad);
+
+        assertNull(cache.getById(1L));
+        assertNull(cache.getByUsername("alice"));
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    void expiredEntries_shouldCountAsMisses() throws InterruptedException {
+        UserCache cache = new UserCache(10, 1, UserCache.EvictionPolicy.LRU);
+        cache.put(user(1L, "alice"), cache.beginLoad());
+        Thread.sleep(5);
+
+        assertNull(cache.getById(1L));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0.0, cache.getHitRatio());
+    }
+}
@@ -0,0 +1,135 @@
+package com.usermanagement.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN on every statement in {@link UserQueries} and fails when one
+ * of them scans users or role_permissions instead of using an index.
+ */
+class UserRepositoryQueryPlanTest {
+    // Statements that read the whole table on purpose (listings, filter and bitset builds).
+    private static final Set<String> FULL_SCAN_BY_DESIGN = Set.of(
+            "FIND_ALL_USERS",
+            "ALL_USERNAMES_AND_EMAILS",
+            "ALL_USER_SEARCH_KEYS",
+            "FIND_ALL_ROLE_PERMISSIONS"
+    );
+
+    private static final Set<String> CHECKED_TABLES = Set.of("users", "role_permissions");
+    private static final Pattern TABLE_ALIAS = Pattern.compile(
+            "\\b(users|role_permissions)\\s+(?:as\\s+)?([a-z_][a-z0-9_]*)", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> NOT_AN_ALIAS = Set.of(
+            "where", "join", "on", "set", "order", "group", "limit", "values", "left", "inner");
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteUserRepository repository;
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        String url = "jdbc:sqlite:" + tempDir.resolve("plan.db");
+        RepositoryConfig config = new RepositoryConfig(url);
+        config.setUniquenessFilterEnabled(false);
+        repository = new SqliteUserRepository(config);
+        conn = DriverManager.getConnection(url);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+        repository.closeConnections();
+    }
+
+    @Test
+    void repositoryQueries_shouldNotScanUsersOrRolePermissions() throws Exception {
+        Map<String, String> queries = repositoryQueries();
+        assertFalse(queries.isEmpty(), "Keine Queries gefunden");
+
+        List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            if (FULL_SCAN_BY_DESIGN.contains(query.getKey())) {
+                continue;
+            }
+            Set<String> names = scannedNames(query.getValue());
+            for (String detail : explain(query.getValue())) {
+                String[] words = detail.split("\\s+");
+                if (words.length >= 2 && words[0].equals("SCAN") && names.contains(words[1].toLowerCase(Locale.ROOT))) {
+                    violations.add(query.getKey() + ": " + detail);
+                }
+            }
+        }
+
+        assertTrue(violations.isEmpty(), "Full table scans gefunden:\n" + String.join("\n", violations));
+    }
+
+    @Test
+    void adminCount_shouldReadMaintainedCounterInsteadOfUsers() throws Exception {
+        List<String> plan = explain(UserQueries.ADMIN_COUNT);
+
+        assertTrue(plan.stream().noneMatch(line -> line.matches("(SCAN|SEARCH) (users|u)\\b.*")),
+                "Admin-Count sollte users nicht lesen: " + plan);
+        assertTrue(plan.stream().anyMatch(line -> line.startsWith("SEARCH c ")),
+                "Admin-Count sollte role_member_counts per Schlüssel lesen: " + plan);
+    }
+
+    private static Map<String, String> repositoryQueries() throws IllegalAccessException {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (Field field : UserQueries.class.getDeclaredFields()) {
+            if (field.getType() != String.class || !Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            String sql = (String) field.get(null);
+            queries.put(field.getName(), sql.contains("%s") ? UserQueries.withInList(sql, 3) : sql);
+        }
+        return queries;
+    }
+
+    private static Set<String> scannedNames(String sql) {
+        Set<String> names = new HashSet<>(CHECKED_TABLES);
+        Matcher matcher = TABLE_ALIAS.matcher(sql);
+        while (matcher.find()) {
+            String alias = matcher.group(2).toLowerCase(Locale.ROOT);
+            if (!NOT_AN_ALIAS.contains(alias)) {
+                names.add(alias);
+            }
+        }
+        return names;
+    }
+
+    private List<String> explain(String sql) throws SQLException {
+        List<String> details = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                details.add(rs.getString("detail"));
+            }
+        }
+        return details;
+    }
+}
@@ -0,0 +1,101 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private static UserSearchIndex loaded(UserSearchIndex.Builder builder) {
+        UserSearchIndex index = UserSearchIndex.loading();
+        index.load(builder);
+        return index;
+    }
+
+    @Test
+    void search_shouldMatchUsernameAndEmailPrefixesIgnoringCase() {
+        UserSearchIndex.Builder builder = new UserSearchIndex.Builder();
+        builder.add(1L, "Anna", "anna@example.com");
+        builder.add(2L, "bernd", "b.annabel@example.com");
+        builder.add(3L, "annika", "annika@firma.de");
+        builder.add(4L, "carl", "carl@example.com");
+        UserSearchIndex index = loaded(builder);
+
+        assertArrayEquals(new long[]{1L, 3L}, index.search("ANN", 10));
+        assertArrayEquals(new long[]{2L}, index.search("b.", 10));
+        assertArrayEquals(new long[]{1L}, index.search("ann", 1));
+        assertArrayEquals(new long[0], index.search("x", 10));
+        assertEquals(8, index.size());
+    }
+
+    @Test
+    void changes_shouldBeVisibleBeforeAndAfterMerge() {
+        UserSearchIndex index = loaded(new UserSearchIndex.Builder());
+        for (long id = 1; id <= 3_000; id++) {
+            index.add(id, "user" + id, "user" + id + "@example.com");
+        }
+        index.remove(7L, "user7", "user7@example.com");
+        index.add(7L, "sieben", "user7@example.com");
+        index.remove(3_000L, "user3000", "user3000@example.com");
+
+        assertArrayEquals(new long[]{7L}, index.search("sieben", 10));
+        assertArrayEquals(new long[]{7L}, index.search("user7@", 10));
+        assertArrayEquals(new long[]{70L, 700L, 701L}, index.search("user7", 3));
+        assertArrayEquals(new long[0], index.search("user3000", 10));
+        assertEquals(2 * 2_999, index.size());
+    }
+
+    @Test
+    void writesDuringLoad_shouldBeReplayed() {
+        UserSearchIndex index = UserSearchIndex.loading();
+        UserSearchIndex.Builder builder = new UserSearchIndex.Builder();
+        builder.add(1L, "anna", "anna@example.com");
+        builder.add(2L, "ben", "ben@example.com");
+        // Committed while the table was being scanned: one the scan saw, one it did not.
+        index.remove(1L, "anna", "anna@example.com");
+        index.add(3L, "anton", "anton@example.com");
+        assertFalse(index.isLoaded());
+
+        index.load(builder);
+
+        assertTrue(index.isLoaded());
+        assertArrayEquals(new long[]{3L}, index.search("an", 10));
+        assertArrayEquals(new long[]{2L}, index.search("b", 10));
+    }
+
+    @Test
+    void sqliteRepository_shouldKeepIndexCurrent() {
+        SqliteUserRepository repository = new SqliteUserRepository("jdbc:sqlite:" + tempDir.resolve("search.db"));
+        try {
+            User anna = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+            assertEquals(List.of("anna"), usernames(repository.searchUsers("An", 10)));
+
+            repository.saveUsers(List.of(new User(null, "anton", "anton@example.com", USER_ROLE),
+                    new User(null, "bernd", "bernd@example.com", USER_ROLE)));
+            repository.updateUser(new User(anna.getId(), "hanna", "hanna@example.com", USER_ROLE));
+            User bernd = repository.findByUsername("bernd");
+            repository.deleteUser(bernd.getId());
+
+            assertEquals(List.of("anton"), usernames(repository.searchUsers("an", 10)));
+            assertEquals(List.of("hanna"), usernames(repository.searchUsers("HAN", 10)));
+            assertTrue(repository.searchUsers("bernd", 10).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> repository.searchUsers(null, 10));
+        } finally {
+            repository.closeConnections();
+        }
+    }
+
+    private static List<String> usernames(List<User> users) {
+        return users.stream().map(User::getUsername).toList();
+    }
+}
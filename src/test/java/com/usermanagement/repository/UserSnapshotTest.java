@@ -0,0 +1,121 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    private Path writeSnapshot(int users) throws IOException {
+        Path file = tempDir.resolve("users.snapshot");
+        try (UserSnapshot.Writer writer = new UserSnapshot.Writer(file, 42L)) {
+            writer.role(1L, "ADMIN", 1);
+            writer.role(2L, "USER", users - 1);
+            writer.permission(1L, "READ", "Daten lesen");
+            writer.permission(2L, "WRITE", null);
+            writer.grant(1L, 1L);
+            writer.grant(1L, 2L);
+            writer.grant(2L, 1L);
+            for (int i = 1; i <= users; i++) {
+                writer.user(i * 2L, "user" + i, "user" + i + "@example.com", i == 1 ? 1L : 2L);
+            }
+            writer.commit(users * 2L + 5, 2L, 2L);
+        }
+        return file;
+    }
+
+    @Test
+    void roundTrip_shouldFindUsersRolesAndPermissions() throws IOException {
+        UserSnapshot snapshot = UserSnapshot.open(writeSnapshot(5_000));
+
+        assertEquals(42L, snapshot.getChangeMarker());
+        assertEquals(5_000, snapshot.getUserCount());
+        assertEquals(10_005L, snapshot.getLastUserId());
+        assertTrue(snapshot.verify());
+
+        User user = snapshot.findById(2_000L);
+        assertEquals("user1000", user.getUsername());
+        assertEquals("user1000@example.com", user.getEmail());
+        assertEquals("USER", user.getRole().getName());
+        assertNull(snapshot.findById(1_999L));
+        assertEquals(2_000L, snapshot.findByUsername("user1000").getId());
+        assertNull(snapshot.findByUsername("user5001"));
+        assertTrue(snapshot.existsByUsername("user1"));
+        assertEquals(1L, snapshot.findRoleId(2L));
+
+        assertEquals(3, snapshot.indexAfter(6L));
+        assertEquals(8L, snapshot.userAt(snapshot.indexAfter(7L)).getId());
+        assertEquals(5_000, snapshot.indexAfter(10_000L));
+
+        assertEquals(List.of("ADMIN", "USER"), snapshot.getRoles().stream().map(Role::getName).toList());
+        assertEquals(Map.of("ADMIN", 1, "USER", 4_999), snapshot.countUsersByRole());
+        assertEquals(List.of("READ", "WRITE"), snapshot.getPermissions().stream().map(Permission::getName).toList());
+        assertNull(snapshot.getPermissions().get(1).getDescription());
+        assertEquals(Map.of(1L, List.of(1L, 2L), 2L, List.of(1L)), snapshot.getRolePermissionIds());
+        assertEquals(2, snapshot.getRoleWithPermissions(1L).getPermissions().size());
+    }
+
+    @Test
+    void verify_shouldDetectCorruption() throws IOException {
+        Path file = writeSnapshot(100);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long at = raf.length() - 10;
+            raf.seek(at);
+            int b = raf.read();
+            raf.seek(at);
+            raf.write(b ^ 0xFF);
+        }
+
+        assertFalse(UserSnapshot.open(file).verify());
+    }
+
+    @Test
+    void open_shouldRejectForeignFiles() throws IOException {
+        Path file = tempDir.resolve("other.snapshot");
+        Files.write(file, new byte[UserSnapshot.HEADER_BYTES]);
+
+        assertThrows(IOException.class, () -> UserSnapshot.open(file));
+    }
+
+    @Test
+    void open_shouldRejectDamagedLengthsAndTruncation() throws IOException {
+        Path file = writeSnapshot(10);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(UserSnapshot.HEADER_BYTES + 8);
+            raf.writeInt(0x7fff0000);
+        }
+        assertThrows(IOException.class, () -> UserSnapshot.open(file));
+
+        Path truncated = writeSnapshot(10);
+        try (RandomAccessFile raf = new RandomAccessFile(truncated.toFile(), "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+        assertThrows(IOException.class, () -> UserSnapshot.open(truncated));
+    }
+
+    @Test
+    void writer_shouldRejectOutOfOrderInput() throws IOException {
+        Path file = tempDir.resolve("users.snapshot");
+        try (UserSnapshot.Writer writer = new UserSnapshot.Writer(file, 1L)) {
+            writer.user(5L, "anna", "anna@example.com", 2L);
+            assertThrows(IllegalStateException.class, () -> writer.user(3L, "ben", "ben@example.com", 2L));
+            assertThrows(IllegalStateException.class, () -> writer.role(3L, "GAST", 0));
+        }
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(tempDir.resolve("users.snapshot.tmp")));
+    }
+}
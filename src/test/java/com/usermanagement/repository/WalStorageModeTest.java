@@ -0,0 +1,134 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalStorageModeTest {
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private Path dbFile;
+    private SqliteUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dbFile = tempDir.resolve("wal.db");
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + dbFile);
+        config.setStorageMode(RepositoryConfig.StorageMode.WAL);
+        config.setUniquenessFilterEnabled(false);
+        repository = new SqliteUserRepository(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.closeConnections();
+        }
+    }
+
+    @Test
+    void database_shouldBeSwitchedToWal() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1));
+        }
+        assertTrue(repository.getConnectionPool().isReadOnly());
+        assertFalse(repository.getWriteConnectionPool().isReadOnly());
+        assertEquals(1, repository.getWriteConnectionPool().getMaxSize());
+    }
+
+    @Test
+    void readConnections_shouldRejectWrites() throws SQLException {
+        try (Connection conn = repository.getConnectionPool().getConnection();
+             Statement stmt = conn.createStatement()) {
+            assertThrows(SQLException.class,
+                    () -> stmt.executeUpdate("INSERT INTO roles (name) VALUES ('GAST')"));
+        }
+    }
+
+    @Test
+    void crudOperations_shouldWorkAcrossReadAndWriteConnections() {
+        User saved = repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        assertEquals("anna", repository.findById(saved.getId()).getUsername());
+
+        saved.setEmail("anna@firma.de");
+        repository.updateUser(saved);
+        assertEquals("anna@firma.de", repository.findByUsername("anna").getEmail());
+
+        repository.saveUsers(List.of(new User(null, "ben", "ben@example.com", USER_ROLE)));
+        assertEquals(2, repository.findAllUsers().size());
+
+        repository.deleteUser(saved.getId());
+        assertNull(repository.findById(saved.getId()));
+        assertEquals(1, repository.countUsersByRole().get("USER"));
+    }
+
+    @Test
+    void readers_shouldNotWaitForOpenWriteTransaction() throws SQLException {
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+
+        try (Connection writer = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+             Statement stmt = writer.createStatement()) {
+            stmt.execute("BEGIN EXCLUSIVE");
+            stmt.executeUpdate("INSERT INTO users (username, email, role_id) VALUES ('ben', 'ben@example.com', 2)");
+
+            List<User> users = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> repository.findAllUsers());
+            assertEquals(1, users.size(), "Nicht committete Zeilen dürfen nicht sichtbar sein");
+            stmt.execute("ROLLBACK");
+        }
+    }
+
+    @Test
+    void close_shouldTruncateWal() throws Exception {
+        repository.saveUser(new User(null, "anna", "anna@example.com", USER_ROLE));
+        repository.closeConnections();
+        repository = null;
+
+        Path wal = tempDir.resolve("wal.db-wal");
+        assertTrue(!Files.exists(wal) || Files.size(wal) == 0, "WAL sollte nach dem Schließen leer sein");
+    }
+
+    @Test
+    void busyRetry_shouldRetryOnlyBusyErrors() {
+        BusyRetry retry = new BusyRetry(3, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retry.run(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new RuntimeException("Database error", new SQLException("database is locked", null, 5));
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, retry.getRetryCount());
+
+        AtomicInteger failing = new AtomicInteger();
+        assertThrows(IllegalArgumentException.class, () -> retry.run(() -> {
+            failing.incrementAndGet();
+            throw new IllegalArgumentException("Username existiert bereits");
+        }));
+        assertEquals(1, failing.get());
+    }
+}
@@ -0,0 +1,150 @@
+package com.usermanagement.repository;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteQueueTest {
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteUserRepository repository;
+
+    private SqliteUserRepository open(int batchSize, long maxDelayMillis) {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("queue.db"));
+        config.setUniquenessFilterEnabled(false);
+        config.setWriteQueueEnabled(true);
+        config.setWriteBatchSize(batchSize);
+        config.setWriteMaxDelayMillis(maxDelayMillis);
+        repository = new SqliteUserRepository(config);
+        return repository;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.closeConnections();
+        }
+    }
+
+    @Test
+    void concurrentSaves_shouldAllCommitInFewerTransactions() throws Exception {
+        SqliteUserRepository repo = open(64, 2);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(threads.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    String name = "user" + thread + "_" + i;
+                    ids.add(repo.saveUser(new User(null, name, name + "@example.com", USER_ROLE)).getId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        WriteQueue queue = repo.getWriteQueue();
+        assertEquals(400, ids.size());
+        assertEquals(400, repo.findAllUsers().size());
+        assertEquals(400, queue.getCompletedCount());
+        assertTrue(queue.getCommitCount() < 400, "Schreibvorgänge sollten gruppiert werden: " + queue);
+    }
+
+    @Test
+    void failingCommand_shouldOnlyRollBackItself() throws Exception {
+        SqliteUserRepository repo = open(64, 200);
+
+        CompletableFuture<User> first = repo.saveUserAsync(new User(null, "anna", "anna@example.com", USER_ROLE));
+        CompletableFuture<User> duplicate = repo.saveUserAsync(new User(null, "anna", "other@example.com", USER_ROLE));
+        CompletableFuture<User> third = repo.saveUserAsync(new User(null, "ben", "ben@example.com", USER_ROLE));
+
+        assertNotNull(first.get(10, TimeUnit.SECONDS).getId());
+        assertNotNull(third.get(10, TimeUnit.SECONDS).getId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> duplicate.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(2, repo.findAllUsers().size());
+        assertEquals(1, repo.getWriteQueue().getCommitCount());
+    }
+
+    @Test
+    void fullQueue_shouldRejectAfterOfferTimeout() throws Exception {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("full.db"));
+        config.setWriteQueueCapacity(1);
+        config.setWriteBatchSize(1);
+        config.setWriteQueueOfferTimeoutMillis(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ConnectionPool pool = new ConnectionPool(config); WriteQueue queue = new WriteQueue(pool, config)) {
+            CompletableFuture<Integer> blocking = queue.submit(conn -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+                return 1;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Integer> queued = queue.submit(conn -> 2);
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> queue.submit(conn -> 3));
+            assertEquals("Schreibwarteschlange ist voll", e.getMessage());
+            assertEquals(1, queue.getRejectedCount());
+
+            release.countDown();
+            assertEquals(1, blocking.get(5, TimeUnit.SECONDS));
+            assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void interruptWhileCollectingBatch_shouldStillCompleteCollectedCommands() throws Exception {
+        RepositoryConfig config = new RepositoryConfig("jdbc:sqlite:" + tempDir.resolve("interrupt.db"));
+        config.setWriteBatchSize(2);
+        config.setWriteMaxDelayMillis(60_000);
+
+        try (ConnectionPool pool = new ConnectionPool(config); WriteQueue queue = new WriteQueue(pool, config)) {
+            CompletableFuture<Thread> writer = queue.submit(conn -> Thread.currentThread());
+            queue.submit(conn -> 0).get(5, TimeUnit.SECONDS);
+            Thread writerThread = writer.get(5, TimeUnit.SECONDS);
+
+            // The writer now holds this command and waits up to a minute for a second one.
+            CompletableFuture<Integer> collected = queue.submit(conn -> 42);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            writerThread.interrupt();
+
+            assertEquals(42, collected.get(5, TimeUnit.SECONDS));
+            // The writer keeps going; two commands fill the next batch without waiting.
+            CompletableFuture<Integer> next = queue.submit(conn -> 7);
+            queue.submit(conn -> 8);
+            assertEquals(7, next.get(5, TimeUnit.SECONDS));
+        }
+    }
+}
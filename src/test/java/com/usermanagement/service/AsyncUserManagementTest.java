@@ -0,0 +1,167 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncUserManagementTest {
+
+    @Mock
+    private UserRepository repository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RoleService roleService;
+
+    @Mock
+    private PermissionService permissionService;
+
+    private AsyncUserManagement async;
+
+    private AsyncUserManagement create(int maxConcurrency, Duration timeout) {
+        async = new AsyncUserManagement(repository, userService, roleService, permissionService,
+                new AsyncExecutor(maxConcurrency, timeout));
+        return async;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (async != null) {
+            async.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Ergebnis des Repositorys wird durchgereicht")
+    void findById_shouldCompleteWithRepositoryResult() throws Exception {
+        User user = new User(1L, "anna", "anna@example.com", new Role(2L, "USER"));
+        when(repository.findById(1L)).thenReturn(user);
+
+        User result = create(2, Duration.ZERO).findById(1L).get(5, TimeUnit.SECONDS);
+
+        assertSame(user, result);
+    }
+
+    @Test
+    @DisplayName("Fehler des Services kommt als Ursache an")
+    void createUser_withInvalidData_shouldPropagateOriginalException() {
+        when(userService.createUser("x", "ungueltig", null))
+                .thenThrow(new IllegalArgumentException("Ungültiges Email-Format"));
+
+        CompletableFuture<User> future = create(2, Duration.ZERO).createUser("x", "ungueltig", null);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals("Ungültiges Email-Format", e.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Aktualisieren läuft über die Validierung des Services")
+    void updateUser_shouldGoThroughUserService() {
+        User user = new User(1L, "x", "ungueltig", new Role(2L, "USER"));
+        when(userService.updateUser(user)).thenThrow(new IllegalArgumentException("Ungültiges Email-Format"));
+
+        CompletableFuture<User> future = create(2, Duration.ZERO).updateUser(user);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Zeitüberschreitung bricht die laufende Abfrage ab")
+    void hasPermission_exceedingTimeout_shouldFailAndInterruptTask() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(permissionService.hasPermission(anyLong(), anyString())).thenAnswer(invocation -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        });
+
+        CompletableFuture<Boolean> future = create(2, Duration.ofMillis(100)).hasPermission(1L, "READ");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Task sollte unterbrochen werden");
+    }
+
+    @Test
+    @DisplayName("Abbrechen unterbricht den Task und gibt den Platz frei")
+    void cancel_shouldInterruptTaskAndReleasePermit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(roleService.getAllRoles()).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of();
+        });
+        when(repository.findById(7L)).thenReturn(null);
+
+        AsyncUserManagement management = create(1, Duration.ZERO);
+        CompletableFuture<List<Role>> future = management.getAllRoles();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(future.isCancelled());
+        assertThrows(CancellationException.class, future::join);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Task sollte unterbrochen werden");
+        assertNull(management.findById(7L).get(5, TimeUnit.SECONDS), "Platz muss wieder frei sein");
+    }
+
+    @Test
+    @DisplayName("Nie mehr gleichzeitige Aufrufe als erlaubt")
+    void manyCalls_shouldRespectConcurrencyLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(permissionService.roleHasPermission(anyLong(), anyString())).thenAnswer(invocation -> {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return true;
+        });
+
+        AsyncUserManagement management = create(3, Duration.ZERO);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(management.roleHasPermission(1L, "READ"));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertTrue(maxRunning.get() <= 3, "Maximal 3 gleichzeitig, waren " + maxRunning.get());
+        assertEquals(0, management.getExecutor().getActiveCount());
+    }
+}
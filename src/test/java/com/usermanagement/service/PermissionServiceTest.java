@@ -1,6 +1,8 @@
 package com.usermanagement.service;
 
 import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
 import com.usermanagement.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.junit.jupiter.api.extension.ExtendWith;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -66,4 +71,79 @@ class PermissionServiceTest {
         assertEquals(2, permissionService.getAllPermissions().size());
         verify(repository).getAllPermissions();
     }
-}
\ No newline at end of file
+
+    @Test
+    void hasPermission_shouldUseCompiledRolePermissions() {
+        when(repository.getAllPermissions()).thenReturn(Arrays.asList(
+                new Permission(1L, "READ", "Can read"),
+                new Permission(2L, "WRITE", "Can write")
+        ));
+        when(repository.getRolePermissionIds()).thenReturn(Map.of(2L, List.of(1L)));
+        when(repository.findById(5L)).thenReturn(new User(5L, "user", "user@test.com", new Role(2L, "USER")));
+
+        assertTrue(permissionService.hasPermission(5L, "READ"));
+        assertFalse(permissionService.hasPermission(5L, "WRITE"));
+        assertFalse(permissionService.hasPermission(5L, "UNKNOWN"));
+        verify(repository, times(1)).getRolePermissionIds();
+    }
+
+    @Test
+    void hasPermission_withUnknownUser_shouldReturnFalse() {
+        when(repository.findById(99L)).thenReturn(null);
+
+        assertFalse(permissionService.hasPermission(99L, "READ"));
+    }
+
+    @Test
+    void hasPermission_forManyUsers_shouldResolveRolesInOneLookup() {
+        when(repository.getAllPermissions()).thenReturn(List.of(new Permission(1L, "READ", "Can read")));
+        when(repository.getRolePermissionIds()).thenReturn(Map.of(1L, List.of(1L), 2L, List.of(1L)));
+        List<Long> userIds = Arrays.asList(5L, 6L, null, 99L, 7L, 5L);
+        when(repository.findRoleIdsByUserIds(userIds)).thenReturn(Map.of(5L, 2L, 6L, 3L, 7L, 1L));
+
+        BitSet allowed = permissionService.hasPermission(userIds, "READ");
+
+        assertEquals(BitSet.valueOf(new long[]{0b110001}), allowed);
+        verify(repository).findRoleIdsByUserIds(userIds);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void hasPermission_forManyUsers_withPermissionNoRoleHolds_shouldNotQuery() {
+        when(repository.getAllPermissions()).thenReturn(List.of(new Permission(1L, "READ", "Can read")));
+        when(repository.getRolePermissionIds()).thenReturn(Map.of());
+
+        assertTrue(permissionService.hasPermission(List.of(1L, 2L), "READ").isEmpty());
+        assertTrue(permissionService.hasPermission(List.of(1L, 2L), "UNKNOWN").isEmpty());
+        verify(repository, never()).findRoleIdsByUserIds(any());
+    }
+
+    @Test
+    void hasPermission_forManyUsers_withNullList_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> permissionService.hasPermission((List<Long>) null, "READ"));
+    }
+
+    @Test
+    void assignAndRemovePermission_shouldRecompileIncrementally() {
+        when(repository.getAllPermissions()).thenReturn(List.of(new Permission(1L, "READ", "Can read")));
+        when(repository.getRolePermissionIds()).thenReturn(Map.of());
+        when(repository.createPermission("ADMIN", "Admin")).thenReturn(new Permission(2L, "ADMIN", "Admin"));
+
+        assertFalse(permissionService.roleHasPermission(1L, "READ"));
+
+        permissionService.assignPermissionToRole(1L, 1L);
+        assertTrue(permissionService.roleHasPermission(1L, "READ"));
+
+        permissionService.createPermission("ADMIN", "Admin");
+        permissionService.assignPermissionToRole(1L, 2L);
+        assertTrue(permissionService.roleHasPermission(1L, "ADMIN"));
+
+        permissionService.removePermissionFromRole(1L, 1L);
+        assertFalse(permissionService.roleHasPermission(1L, "READ"));
+        assertTrue(permissionService.roleHasPermission(1L, "ADMIN"));
+
+        verify(repository, times(1)).getRolePermissionIds();
+        verify(repository).removePermissionFromRole(1L, 1L);
+    }
+}
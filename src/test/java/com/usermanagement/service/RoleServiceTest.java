@@ -12,7 +12,9 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -102,4 +104,18 @@ class RoleServiceTest {
         assertEquals(expectedRoles, result, "Listen muss identisch sein");
         verify(repository, times(1)).getAllRoles();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Benutzeranzahl pro Rolle kommt aus dem Repository")
+    void countUsersByRole_shouldReturnRepositoryCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("ADMIN", 1);
+        counts.put("USER", 42);
+        when(repository.countUsersByRole()).thenReturn(counts);
+
+        Map<String, Integer> result = roleService.countUsersByRole();
+
+        assertEquals(counts, result);
+        verify(repository).countUsersByRole();
+    }
+}
@@ -0,0 +1,101 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Permission;
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserExporterTest {
+    private static final Role USER_ROLE = new Role(2L, "USER");
+
+    @Mock
+    private UserRepository repository;
+    private UserExporter exporter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new UserExporter(repository);
+    }
+
+    private String export(UserExporter.Format format, boolean withPermissions) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(Channels.newChannel(out), format, withPermissions);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csv_shouldQuoteOnlyWhereNeeded() throws IOException {
+        when(repository.streamAllUsers()).thenReturn(Stream.of(
+                new User(1L, "anna", "anna@example.com", new Role(1L, "ADMIN")),
+                new User(2L, "müller, \"jr\"", "jr@example.com", USER_ROLE)));
+
+        assertEquals("""
+                id,username,email,role_id,role
+                1,anna,anna@example.com,1,ADMIN
+                2,"müller, ""jr\"\"",jr@example.com,2,USER
+                """, export(UserExporter.Format.CSV, false));
+        verify(repository, never()).getRolePermissionIds();
+    }
+
+    @Test
+    void jsonl_shouldEscapeAndIncludeRolePermissions() throws IOException {
+        when(repository.streamAllUsers()).thenReturn(Stream.of(
+                new User(7L, "tab\there", "ä😀@example.com", USER_ROLE),
+                new User(8L, "ohne", "ohne@example.com", new Role(3L, "GAST"))));
+        when(repository.getAllPermissions()).thenReturn(List.of(
+                new Permission(1L, "WRITE", null), new Permission(2L, "READ", null)));
+        when(repository.getRolePermissionIds()).thenReturn(Map.of(2L, List.of(1L, 2L)));
+
+        assertEquals("""
+                {"id":7,"username":"tab\\there","email":"ä😀@example.com","role":{"id":2,"name":"USER"},"permissions":["READ","WRITE"]}
+                {"id":8,"username":"ohne","email":"ohne@example.com","role":{"id":3,"name":"GAST"},"permissions":[]}
+                """, export(UserExporter.Format.JSONL, true));
+    }
+
+    @Test
+    void export_shouldStreamManyRowsAndCloseCursor() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamAllUsers()).thenReturn(LongStream.rangeClosed(1, 50_000)
+                .mapToObj(id -> new User(id, "user" + id, "user" + id + "@example.com", USER_ROLE))
+                .onClose(() -> closed.set(true)));
+        Path target = tempDir.resolve("users.csv");
+
+        assertEquals(50_000, exporter.export(target, UserExporter.Format.CSV, false));
+
+        assertTrue(closed.get());
+        List<String> lines = Files.readAllLines(target);
+        assertEquals(50_001, lines.size());
+        assertEquals("50000,user50000,user50000@example.com,2,USER", lines.get(50_000));
+    }
+
+    @Test
+    void format_shouldRejectUnknownNames() {
+        assertEquals(UserExporter.Format.JSONL, UserExporter.Format.of("jsonl"));
+        assertThrows(IllegalArgumentException.class, () -> UserExporter.Format.of("xml"));
+    }
+}
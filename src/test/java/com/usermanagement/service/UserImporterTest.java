@@ -0,0 +1,96 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import com.usermanagement.repository.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImporterTest {
+    @TempDir
+    Path tempDir;
+
+    private InMemoryUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryUserRepository();
+    }
+
+    @Test
+    void csv_shouldImportValidRowsAndReportTheRest() throws IOException {
+        repository.saveUser(new User(null, "vorhanden", "vorhanden@example.com", new Role(2L, "USER")));
+        String csv = """
+                username,email,role
+                anna,anna@example.com,user
+                ben,kaputt,USER
+                cara,cara@example.com,GAST
+                anna,anna2@example.com,USER
+                "dora, ""d""\",dora@example.com,ADMIN
+                vorhanden,neu@example.com,USER
+                emil,anna@example.com,USER
+                "fritz
+                zweite Zeile",fritz@example.com,USER
+                """;
+        Path errors = tempDir.resolve("fehler.csv");
+        List<Long> progress = new ArrayList<>();
+
+        UserImporter.Summary summary = new UserImporter(repository, 3, 2).importFrom(new StringReader(csv),
+                UserExporter.Format.CSV, errors, p -> progress.add(p.getRows()));
+
+        assertEquals(8, summary.getRows());
+        assertEquals(3, summary.getImported());
+        assertEquals(5, summary.getFailed());
+        assertEquals(List.of(2L, 4L, 6L, 8L), progress);
+        assertEquals("ADMIN", repository.findByUsername("dora, \"d\"").getRole().getName());
+        assertNotNull(repository.findByUsername("fritz\nzweite Zeile"));
+        assertEquals(List.of(
+                "zeile,fehler,datensatz",
+                "3,Ungültiges Email-Format,\"ben,kaputt,USER\"",
+                "4,Rolle nicht gefunden: GAST,\"cara,cara@example.com,GAST\"",
+                "5,Username doppelt in der Datei (Zeile 2),\"anna,anna2@example.com,USER\"",
+                "7,Username existiert bereits,\"vorhanden,neu@example.com,USER\"",
+                "8,Email doppelt in der Datei (Zeile 2),\"emil,anna@example.com,USER\""), Files.readAllLines(errors));
+    }
+
+    @Test
+    void jsonl_shouldReadWhatTheExporterWrites() throws IOException {
+        UserService service = new UserService(repository);
+        service.createUser("anna", "anna@example.com", new Role(1L, "ADMIN"));
+        service.createUser("b\"en", "ben@example.com", new Role(2L, "USER"));
+        Path export = tempDir.resolve("users.jsonl");
+        new UserExporter(repository).export(export, UserExporter.Format.JSONL, true);
+
+        InMemoryUserRepository target = new InMemoryUserRepository();
+        UserImporter.Summary summary = new UserImporter(target).importFile(export, UserExporter.Format.JSONL,
+                tempDir.resolve("fehler.csv"), null);
+
+        assertEquals(2, summary.getImported());
+        assertEquals("ADMIN", target.findByUsername("anna").getRole().getName());
+        assertEquals("ben@example.com", target.findByUsername("b\"en").getEmail());
+        assertFalse(Files.exists(tempDir.resolve("fehler.csv")));
+    }
+
+    @Test
+    void malformedInput_shouldBeRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new UserImporter(repository)
+                .importFrom(new StringReader("name,email\nanna,anna@example.com\n"), UserExporter.Format.CSV, null, null));
+
+        UserImporter.Summary summary = new UserImporter(repository).importFrom(new StringReader("""
+                {"username":"anna","email":"anna@example.com","role_id":2,"extra":[1,{"a":null}]}
+                {"username":"ben",
+                """), UserExporter.Format.JSONL, null, null);
+        assertEquals(1, summary.getImported());
+        assertEquals(1, summary.getFailed());
+    }
+}
@@ -2,12 +2,16 @@ package com.usermanagement.service;
 
 import com.usermanagement.model.Role;
 import com.usermanagement.model.User;
+import com.usermanagement.repository.BatchResult;
 import com.usermanagement.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -28,7 +32,7 @@ class UserServiceTest {
 
     @Test
     void createUser_withValidData_shouldSucceed() {
-        when(repository.findByUsername(testUser.getUsername())).thenReturn(null);
+        when(repository.existsByUsername(testUser.getUsername())).thenReturn(false);
         when(repository.saveUser(any(User.class))).thenReturn(testUser);
 
         User result = userService.createUser(
@@ -44,7 +48,7 @@ class UserServiceTest {
 
     @Test
     void createUser_withExistingUsername_shouldThrowException() {
-        when(repository.findByUsername(testUser.getUsername())).thenReturn(testUser);
+        when(repository.existsByUsername(testUser.getUsername())).thenReturn(true);
 
         assertThrows(IllegalArgumentException.class,
                 () -> userService.createUser(testUser.getUsername(), testUser.getEmail(), testRole));
@@ -71,4 +75,66 @@ class UserServiceTest {
                 () -> userService.createUser("", testUser.getEmail(), testRole));
         verify(repository, never()).saveUser(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void createUsers_withInvalidRows_shouldReportFailuresAndSaveValidRows() {
+        BatchResult<User> saved = new BatchResult<>();
+        saved.addSuccess(0, new User(10L, "first", "first@test.com", testRole));
+        saved.addFailure(1, new User(null, "testUser", "test@test.com", testRole), "Username existiert bereits");
+        when(repository.saveUsers(argThat(users -> users.size() == 2))).thenReturn(saved);
+
+        BatchResult<User> result = userService.createUsers(List.of(
+                new User(null, "first", "first@test.com", testRole),
+                new User(null, "broken", "invalid-email", testRole),
+                testUser
+        ));
+
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(10L, result.getSucceeded().get(0).getId());
+        assertEquals(2, result.getFailureCount());
+        assertEquals(1, result.getFailures().get(0).getIndex());
+        assertEquals("Ungültiges Email-Format", result.getFailures().get(0).getError());
+        assertEquals(2, result.getFailures().get(1).getIndex());
+        assertEquals("Username existiert bereits", result.getFailures().get(1).getError());
+    }
+
+    @Test
+    void createUsers_withOnlyInvalidRows_shouldNotTouchRepository() {
+        BatchResult<User> result = userService.createUsers(List.of(
+                new User(null, "", "test@test.com", testRole),
+                new User(null, "noRole", "test@test.com", null)
+        ));
+
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(2, result.getFailureCount());
+        verify(repository, never()).saveUsers(any());
+    }
+
+    @Test
+    void updateUser_withInvalidData_shouldNotTouchRepository() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser(new User(1L, " ", "test@test.com", testRole)));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser(new User(1L, "testUser", "test@test.com", null)));
+        verify(repository, never()).updateUser(any());
+    }
+
+    @Test
+    void updateUsers_withInvalidRows_shouldReportFailuresAndUpdateValidRows() {
+        BatchResult<User> updated = new BatchResult<>();
+        updated.addSuccess(0, testUser);
+        when(repository.updateUsers(List.of(testUser))).thenReturn(updated);
+
+        BatchResult<User> result = userService.updateUsers(List.of(
+                new User(2L, "", "empty@test.com", testRole),
+                testUser,
+                new User(3L, "noRole", "norole@test.com", null)
+        ));
+
+        assertEquals(List.of(testUser), result.getSucceeded());
+        assertEquals(1, result.getRows().get(1).getIndex());
+        assertEquals(2, result.getFailureCount());
+        assertEquals("Username darf nicht leer sein", result.getFailures().get(0).getError());
+        assertEquals("Rolle darf nicht null sein", result.getFailures().get(1).getError());
+    }
+}
@@ -0,0 +1,83 @@
+package com.usermanagement.service;
+
+import com.usermanagement.model.Role;
+import com.usermanagement.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserValidatorTest {
+    // The regex UserService used before the scanner; the scanner must agree with it.
+    private static final Pattern LEGACY_EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+
+    private final UserValidator validator = new UserValidator();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "anna@example.com", "a@b", "a.b+c_d-e@x", "a@@b", "a@b@c", "a@ b", "a@ä", "a@\t",
+            "", "@", "a@", "@b", "a", "ab", "ä@b", "a b@c", "a@b\n", "a@\nb", "a\n@b", "a@b\r",
+            "a@\u0085", "a@x\u2028", "a@\u2029x", "a@\uD83D\uDE00", "a@\uD800", "\n", "a@b\r\n"
+    })
+    @DisplayName("Scanner entspricht dem bisherigen Regex")
+    void isValidEmail_shouldMatchLegacyRegex(String email) {
+        assertEquals(LEGACY_EMAIL.matcher(email).matches(), validator.isValidEmail(email), "für: " + email);
+    }
+
+    @Test
+    @DisplayName("Zufallseingaben: Scanner entspricht dem bisherigen Regex")
+    void isValidEmail_randomInput_shouldMatchLegacyRegex() {
+        char[] alphabet = {'a', 'Z', '5', '+', '_', '.', '-', '@', ' ', '\n', '\r', '\u0085', '\u2028', 'ä', '#'};
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            char[] chars = new char[random.nextInt(8)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String email = new String(chars);
+            assertEquals(LEGACY_EMAIL.matcher(email).matches(), validator.isValidEmail(email), "für: " + email);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "\t\n", "\u0000 \u001f"})
+    @DisplayName("Leere Usernames werden wie mit trim() erkannt")
+    void isValidUsername_blank_shouldBeRejected(String username) {
+        assertFalse(validator.isValidUsername(username));
+        assertTrue(username.trim().isEmpty());
+    }
+
+    @Test
+    void check_shouldReportFirstFailingRule() {
+        Role role = new Role(2L, "USER");
+
+        assertNull(validator.check("anna", "anna@example.com", role));
+        assertEquals(UserValidator.Reason.USERNAME_BLANK, validator.check(" ", "kaputt", null));
+        assertEquals(UserValidator.Reason.EMAIL_INVALID, validator.check("anna", "kaputt", null));
+        assertEquals(UserValidator.Reason.ROLE_MISSING, validator.check("anna", "anna@example.com", null));
+        assertEquals(UserValidator.Reason.EMAIL_INVALID, validator.check("anna", null, role));
+    }
+
+    @Test
+    void checkAll_shouldFillReasonsPerIndex() {
+        Role role = new Role(2L, "USER");
+        List<User> users = Arrays.asList(
+                new User(null, "anna", "anna@example.com", role),
+                new User(null, "", "ben@example.com", role),
+                new User(null, "carl", "carl", role));
+        UserValidator.Reason[] reasons = new UserValidator.Reason[users.size()];
+
+        int failures = validator.checkAll(users, reasons);
+
+        assertEquals(2, failures);
+        assertArrayEquals(new UserValidator.Reason[]{
+                null, UserValidator.Reason.USERNAME_BLANK, UserValidator.Reason.EMAIL_INVALID}, reasons);
+    }
+}